@@ -0,0 +1,88 @@
+package com.andrefilho99.unittesting.cache;
+
+import com.andrefilho99.unittesting.dto.BankAccountStatsBucket;
+import com.andrefilho99.unittesting.dto.BankAccountStatsResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+public class BankAccountAggregates {
+
+    private static final double[] BUCKET_BOUNDS = {0, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalCents = new LongAdder();
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS.length + 1];
+
+    public BankAccountAggregates() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void rebuild(Stream<Double> balances) {
+        count.reset();
+        totalCents.reset();
+
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+
+        balances.forEach(balance -> add(balance, 1));
+    }
+
+    public void created(Double balance) {
+        TransactionCallbacks.afterCommit(() -> add(balance, 1));
+    }
+
+    public void updated(Double previousBalance, Double balance) {
+        TransactionCallbacks.afterCommit(() -> {
+            add(previousBalance, -1);
+            add(balance, 1);
+        });
+    }
+
+    public void deleted(Double balance) {
+        TransactionCallbacks.afterCommit(() -> add(balance, -1));
+    }
+
+    public BankAccountStatsResponse snapshot() {
+        List<BankAccountStatsBucket> histogram = new ArrayList<>(buckets.length);
+
+        for (int i = 0; i < buckets.length; i++) {
+            histogram.add(BankAccountStatsBucket
+                    .builder()
+                    .from(i == 0 ? null : BUCKET_BOUNDS[i - 1])
+                    .to(i == BUCKET_BOUNDS.length ? null : BUCKET_BOUNDS[i])
+                    .count(buckets[i].sum())
+                    .build());
+        }
+
+        return BankAccountStatsResponse
+                .builder()
+                .count(count.sum())
+                .totalBalance(totalCents.sum() / 100.0)
+                .histogram(histogram)
+                .build();
+    }
+
+    private void add(Double balance, int sign) {
+        double value = balance == null ? 0 : balance;
+
+        count.add(sign);
+        totalCents.add(sign * Math.round(value * 100));
+        buckets[bucket(value)].add(sign);
+    }
+
+    private static int bucket(double balance) {
+        int bucket = 0;
+
+        while (bucket < BUCKET_BOUNDS.length && balance >= BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+
+        return bucket;
+    }
+}
@@ -0,0 +1,111 @@
+package com.andrefilho99.unittesting.cache;
+
+import com.andrefilho99.unittesting.repository.BankAccountBalance;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+public class BankAccountBalanceIndex {
+
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final NavigableSet<Entry> entries;
+    private final Map<Long, Entry> entriesById;
+
+    public BankAccountBalanceIndex() {
+        this(new ConcurrentSkipListSet<>(Comparator.comparingDouble(Entry::balance).thenComparingLong(Entry::id)), new ConcurrentHashMap<>());
+    }
+
+    private BankAccountBalanceIndex(NavigableSet<Entry> entries, Map<Long, Entry> entriesById) {
+        this.entries = entries;
+        this.entriesById = entriesById;
+    }
+
+    public static BankAccountBalanceIndex disabled() {
+        return new BankAccountBalanceIndex(null, null);
+    }
+
+    public boolean isEnabled() {
+        return entries != null;
+    }
+
+    public int size() {
+        return entries == null ? 0 : entries.size();
+    }
+
+    public void rebuild(Stream<BankAccountBalance> bankAccounts) {
+        if (entries == null) {
+            return;
+        }
+
+        entries.clear();
+        entriesById.clear();
+        bankAccounts.forEach(bankAccount -> put(bankAccount.getId(), bankAccount.getBalance(), bankAccount.getVersion()));
+    }
+
+    public void updated(Long id, Double balance, Long version) {
+        if (entries != null) {
+            TransactionCallbacks.afterCommit(() -> put(id, balance, version));
+        }
+    }
+
+    public void deleted(Long id) {
+        if (entries != null) {
+            TransactionCallbacks.afterCommit(() -> put(id, null, DELETED));
+        }
+    }
+
+    // Ids of the accounts with a balance in [minBalance, maxBalance], ordered by balance and then id.
+    public List<Long> findIds(double minBalance, double maxBalance, boolean descending, int limit) {
+        if (minBalance > maxBalance) {
+            return List.of();
+        }
+
+        NavigableSet<Entry> range = entries.subSet(new Entry(minBalance, Long.MIN_VALUE, 0), true, new Entry(maxBalance, Long.MAX_VALUE, 0), true);
+        List<Long> ids = new ArrayList<>(Math.min(limit, 64));
+
+        for (Entry entry : descending ? range.descendingSet() : range) {
+            if (ids.size() == limit) {
+                break;
+            }
+
+            ids.add(entry.id());
+        }
+
+        return ids;
+    }
+
+    // Writes commit in row-lock order but their after-commit callbacks may run in any order, so a
+    // change only replaces the entry of an older version. Deleted ids keep a marker at the highest
+    // version, which stops a late update from bringing them back.
+    private void put(Long id, Double balance, Long version) {
+        long entryVersion = version == null ? 0 : version;
+
+        entriesById.compute(id, (key, current) -> {
+            if (current != null && current.version() >= entryVersion) {
+                return current;
+            }
+
+            if (current != null) {
+                entries.remove(current);
+            }
+
+            Entry entry = new Entry(balance == null ? 0 : balance, id, entryVersion);
+
+            if (balance != null) {
+                entries.add(entry);
+            }
+
+            return entry;
+        });
+    }
+
+    private record Entry(double balance, long id, long version) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.andrefilho99.unittesting.cache;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+// Concurrent lookups of the same key share one load, cached or not: the cache keeps the loading
+// future as its entry, and with the cache disabled the future is only kept while the load runs.
+public class BankAccountCache {
+
+    private static final Duration DEFAULT_LOAD_TIMEOUT = Duration.ofSeconds(5);
+
+    private final AsyncCache<Long, BankAccount> cache;
+    private final AsyncCache<String, Long> idsByNumber;
+    private final ConcurrentMap<Long, CompletableFuture<BankAccount>> loading = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Long>> loadingIds = new ConcurrentHashMap<>();
+    private final long loadTimeoutNanos;
+
+    public BankAccountCache(long maximumSize, Duration expireAfterWrite) {
+        this(maximumSize, expireAfterWrite, DEFAULT_LOAD_TIMEOUT);
+    }
+
+    public BankAccountCache(long maximumSize, Duration expireAfterWrite, Duration loadTimeout) {
+        this(Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(expireAfterWrite)
+                        .recordStats()
+                        .buildAsync(),
+                Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(expireAfterWrite)
+                        .buildAsync(),
+                loadTimeout);
+    }
+
+    private BankAccountCache(AsyncCache<Long, BankAccount> cache, AsyncCache<String, Long> idsByNumber, Duration loadTimeout) {
+        this.cache = cache;
+        this.idsByNumber = idsByNumber;
+        this.loadTimeoutNanos = loadTimeout.toNanos();
+    }
+
+    public static BankAccountCache disabled() {
+        return disabled(DEFAULT_LOAD_TIMEOUT);
+    }
+
+    public static BankAccountCache disabled(Duration loadTimeout) {
+        return new BankAccountCache(null, null, loadTimeout);
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public BankAccount get(Long id, Function<Long, BankAccount> loader) {
+        if (cache == null) {
+            return load(loading, id, loader);
+        }
+
+        return load(cache, id, loader);
+    }
+
+    public Long getId(String number, Function<String, Long> loader) {
+        if (idsByNumber == null) {
+            return load(loadingIds, number, loader);
+        }
+
+        return load(idsByNumber, number, loader);
+    }
+
+    public void evictNumber(String number) {
+        if (idsByNumber != null) {
+            idsByNumber.synchronous().invalidate(number);
+        } else {
+            loadingIds.remove(number);
+        }
+    }
+
+    // Also detaches a load in flight, so that lookups after the write start a new one.
+    public void evict(Long id) {
+        TransactionCallbacks.afterCompletion(() -> invalidate(id));
+    }
+
+    private void invalidate(Long id) {
+        if (cache != null) {
+            cache.synchronous().invalidate(id);
+        } else {
+            loading.remove(id);
+        }
+    }
+
+    public void cleanUp() {
+        if (cache != null) {
+            cache.synchronous().cleanUp();
+            idsByNumber.synchronous().cleanUp();
+        }
+    }
+
+    public CacheStats stats() {
+        return cache == null ? CacheStats.empty() : cache.synchronous().stats();
+    }
+
+    // The loader runs on the calling thread, outside the map's bin lock, so a JDBC call never holds a
+    // monitor (which would pin a virtual thread). Concurrent callers for the same key wait on the
+    // future, and an eviction during the load drops the entry instead of waiting for it.
+    private <K, V> V load(AsyncCache<K, V> cache, K key, Function<K, V> loader) {
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> value = cache.get(key, (k, executor) -> loading);
+
+        if (value == loading) {
+            return complete(loading, key, loader);
+        }
+
+        return await(value, key, loader);
+    }
+
+    private <K, V> V load(ConcurrentMap<K, CompletableFuture<V>> inFlight, K key, Function<K, V> loader) {
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> value = inFlight.putIfAbsent(key, loading);
+
+        if (value != null) {
+            return await(value, key, loader);
+        }
+
+        try {
+            return complete(loading, key, loader);
+        } finally {
+            inFlight.remove(key, loading);
+        }
+    }
+
+    private static <K, V> V complete(CompletableFuture<V> loading, K key, Function<K, V> loader) {
+        try {
+            V value = loader.apply(key);
+            loading.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Waiters get the loader's exception as is. One that waited longer than the load timeout stops
+    // waiting and loads on its own, so a stuck load only delays the callers that joined it.
+    private <K, V> V await(CompletableFuture<V> value, K key, Function<K, V> loader) {
+        try {
+            return value.get(loadTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            return loader.apply(key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return loader.apply(key);
+        }
+    }
+}
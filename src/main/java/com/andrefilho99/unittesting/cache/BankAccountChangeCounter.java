@@ -0,0 +1,18 @@
+package com.andrefilho99.unittesting.cache;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BankAccountChangeCounter {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong changes = new AtomicLong();
+
+    public String tag() {
+        return epoch + "-" + changes.get();
+    }
+
+    public void changed() {
+        TransactionCallbacks.afterCompletion(changes::incrementAndGet);
+    }
+}
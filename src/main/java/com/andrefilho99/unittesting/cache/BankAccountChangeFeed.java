@@ -0,0 +1,120 @@
+package com.andrefilho99.unittesting.cache;
+
+import com.andrefilho99.unittesting.dto.BankAccountChangeEvent;
+import com.andrefilho99.unittesting.dto.BankAccountChangeType;
+import com.andrefilho99.unittesting.exceptions.BankAccountChangesExpiredException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+// The last `capacity` committed changes in a ring buffer, numbered from 1 in commit order. Writers
+// only store an event and signal under a short lock, so a slow reader never holds them up; a reader
+// that falls more than `capacity` events behind gets BankAccountChangesExpiredException instead. The
+// lock is a ReentrantLock rather than a monitor so that readers parked on a virtual thread unmount.
+public class BankAccountChangeFeed {
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private final BankAccountChangeEvent[] events;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+    private volatile long last;
+
+    public BankAccountChangeFeed() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public BankAccountChangeFeed(int capacity) {
+        this.events = new BankAccountChangeEvent[capacity];
+    }
+
+    public long last() {
+        return last;
+    }
+
+    // Called with the sequence number of each event once it is published, on the thread that
+    // committed the change.
+    public void addListener(LongConsumer listener) {
+        listeners.add(listener);
+    }
+
+    public void created(Long id, String number, Double balance, Long version) {
+        TransactionCallbacks.afterCommit(() -> publish(BankAccountChangeType.CREATED, id, number, balance, version));
+    }
+
+    public void updated(Long id, String number, Double balance, Long version) {
+        TransactionCallbacks.afterCommit(() -> publish(BankAccountChangeType.UPDATED, id, number, balance, version));
+    }
+
+    public void deleted(Long id, String number) {
+        TransactionCallbacks.afterCommit(() -> publish(BankAccountChangeType.DELETED, id, number, null, null));
+    }
+
+    // Up to limit events published after the given sequence number, without waiting.
+    public List<BankAccountChangeEvent> since(long after, int limit) {
+        lock.lock();
+
+        try {
+            return copy(after, limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // As since(), but waits up to timeout for the first event when there is none yet.
+    public List<BankAccountChangeEvent> await(long after, int limit, Duration timeout) throws InterruptedException {
+        long nanos = timeout.toNanos();
+        lock.lockInterruptibly();
+
+        try {
+            while (last == after && nanos > 0) {
+                nanos = published.awaitNanos(nanos);
+            }
+
+            return copy(after, limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<BankAccountChangeEvent> copy(long after, int limit) {
+        if (after > last || after < last - events.length) {
+            throw new BankAccountChangesExpiredException(String.format(
+                    "Changes after %d are no longer available, reload the bank accounts and resume from %d.", after, last));
+        }
+
+        int count = (int) Math.min(last - after, limit);
+        List<BankAccountChangeEvent> changes = new ArrayList<>(count);
+
+        for (long sequence = after + 1; sequence <= after + count; sequence++) {
+            changes.add(events[index(sequence)]);
+        }
+
+        return changes;
+    }
+
+    private void publish(BankAccountChangeType type, Long id, String number, Double balance, Long version) {
+        long sequence;
+        lock.lock();
+
+        try {
+            sequence = ++last;
+            events[index(sequence)] = new BankAccountChangeEvent(sequence, type, id, number, balance, version);
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        listeners.forEach(listener -> listener.accept(sequence));
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % events.length);
+    }
+}
@@ -0,0 +1,100 @@
+package com.andrefilho99.unittesting.cache;
+
+import com.andrefilho99.unittesting.repository.BankAccountBalance;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+// One bit per existing id, in pages of 64K ids allocated on first use. Ids come from a sequence, so
+// the pages stay dense (128 KB per million accounts). Unlike a Bloom filter, deletes can clear their
+// bit. A create sets its bit before it commits, so no reader can see the row while its bit is still
+// clear, and a delete clears it after commit, so a clear bit means the account does not exist. A set
+// bit can be stale after a create rolls back or a delete runs between a create's insert and commit;
+// that only costs a query.
+public class BankAccountIdFilter {
+
+    private static final int PAGE_BITS = 16;
+    private static final long PAGE_MASK = (1L << PAGE_BITS) - 1;
+
+    private final Map<Long, AtomicLongArray> pages;
+    private final AtomicLong size = new AtomicLong();
+
+    public BankAccountIdFilter() {
+        this(new ConcurrentHashMap<>());
+    }
+
+    private BankAccountIdFilter(Map<Long, AtomicLongArray> pages) {
+        this.pages = pages;
+    }
+
+    public static BankAccountIdFilter disabled() {
+        return new BankAccountIdFilter(null);
+    }
+
+    public boolean isEnabled() {
+        return pages != null;
+    }
+
+    public long size() {
+        return size.get();
+    }
+
+    public void rebuild(Stream<BankAccountBalance> bankAccounts) {
+        if (pages == null) {
+            return;
+        }
+
+        pages.clear();
+        size.set(0);
+        bankAccounts.forEach(bankAccount -> set(bankAccount.getId()));
+    }
+
+    public void created(Long id) {
+        if (pages != null) {
+            set(id);
+        }
+    }
+
+    public void deleted(Long id) {
+        if (pages != null) {
+            TransactionCallbacks.afterCommit(() -> clear(id));
+        }
+    }
+
+    // False only when no account with this id exists; always true when disabled.
+    public boolean mightExist(Long id) {
+        if (pages == null) {
+            return true;
+        }
+
+        AtomicLongArray page = pages.get(id >>> PAGE_BITS);
+        return page != null && (page.get(word(id)) & bit(id)) != 0;
+    }
+
+    private void set(long id) {
+        AtomicLongArray page = pages.computeIfAbsent(id >>> PAGE_BITS, key -> new AtomicLongArray(1 << (PAGE_BITS - 6)));
+
+        if ((page.getAndAccumulate(word(id), bit(id), (word, bit) -> word | bit) & bit(id)) == 0) {
+            size.incrementAndGet();
+        }
+    }
+
+    private void clear(long id) {
+        AtomicLongArray page = pages.get(id >>> PAGE_BITS);
+
+        if (page != null && (page.getAndAccumulate(word(id), bit(id), (word, bit) -> word & ~bit) & bit(id)) != 0) {
+            size.decrementAndGet();
+        }
+    }
+
+    private static int word(long id) {
+        return (int) ((id & PAGE_MASK) >>> 6);
+    }
+
+    private static long bit(long id) {
+        return 1L << id;
+    }
+}
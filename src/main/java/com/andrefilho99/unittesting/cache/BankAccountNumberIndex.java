@@ -0,0 +1,112 @@
+package com.andrefilho99.unittesting.cache;
+
+import com.andrefilho99.unittesting.repository.BankAccountBalance;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+// Account numbers in sorted order, so that a prefix is a contiguous range. Only the number map is
+// kept: an entry may outlive a rename or delete whose callback ran before an older one, and
+// searches drop it once the fetched account shows it is stale.
+public class BankAccountNumberIndex {
+
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final ConcurrentSkipListMap<String, Entry> entries;
+
+    public BankAccountNumberIndex() {
+        this(new ConcurrentSkipListMap<>());
+    }
+
+    private BankAccountNumberIndex(ConcurrentSkipListMap<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    public static BankAccountNumberIndex disabled() {
+        return new BankAccountNumberIndex(null);
+    }
+
+    public boolean isEnabled() {
+        return entries != null;
+    }
+
+    public int size() {
+        return entries == null ? 0 : entries.size();
+    }
+
+    public void rebuild(Stream<BankAccountBalance> bankAccounts) {
+        if (entries == null) {
+            return;
+        }
+
+        entries.clear();
+        bankAccounts.forEach(bankAccount -> put(bankAccount.getNumber(), bankAccount.getId(), bankAccount.getVersion()));
+    }
+
+    public void updated(Long id, String previousNumber, String number, Long version) {
+        if (entries != null) {
+            TransactionCallbacks.afterCommit(() -> {
+                if (previousNumber != null && !previousNumber.equals(number)) {
+                    remove(previousNumber, id, version);
+                }
+
+                put(number, id, version);
+            });
+        }
+    }
+
+    public void deleted(Long id, String number) {
+        if (entries != null) {
+            TransactionCallbacks.afterCommit(() -> remove(number, id, DELETED));
+        }
+    }
+
+    // Up to limit numbers starting with prefix and greater than after (when given), with their ids, in number order.
+    public Map<String, Long> find(String prefix, String after, int limit) {
+        NavigableMap<String, Entry> range = entries.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+
+        if (after != null) {
+            range = range.tailMap(after, false);
+        }
+
+        Map<String, Long> ids = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Entry> entry : range.entrySet()) {
+            if (ids.size() == limit) {
+                break;
+            }
+
+            ids.put(entry.getKey(), entry.getValue().id());
+        }
+
+        return ids;
+    }
+
+    public void evict(String number, Long id) {
+        if (entries != null) {
+            entries.computeIfPresent(number, (key, current) -> current.id() == id ? null : current);
+        }
+    }
+
+    private void put(String number, Long id, Long version) {
+        if (number == null) {
+            return;
+        }
+
+        long entryVersion = version == null ? 0 : version;
+
+        entries.compute(number, (key, current) ->
+                current != null && current.id() == id && current.version() >= entryVersion ? current : new Entry(id, entryVersion));
+    }
+
+    private void remove(String number, Long id, long version) {
+        entries.computeIfPresent(number, (key, current) ->
+                current.id() == id && current.version() < version ? null : current);
+    }
+
+    private record Entry(long id, long version) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.andrefilho99.unittesting.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Defers in-memory maintenance until the current transaction has finished, so that no other request
+// sees a change the database does not have yet. Outside of a transaction it runs at once.
+final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    // For changes that must not be applied when the write rolls back.
+    static void afterCommit(Runnable callback) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        callback.run();
+                    }
+                }
+            });
+        } else {
+            callback.run();
+        }
+    }
+
+    // For invalidations, which are harmless when the write rolls back.
+    static void afterCompletion(Runnable callback) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    callback.run();
+                }
+            });
+        } else {
+            callback.run();
+        }
+    }
+}
@@ -1,14 +1,132 @@
 package com.andrefilho99.unittesting.configuration;
 
-import org.modelmapper.ModelMapper;
+import com.andrefilho99.unittesting.cache.BankAccountAggregates;
+import com.andrefilho99.unittesting.cache.BankAccountBalanceIndex;
+import com.andrefilho99.unittesting.cache.BankAccountCache;
+import com.andrefilho99.unittesting.cache.BankAccountChangeCounter;
+import com.andrefilho99.unittesting.cache.BankAccountChangeFeed;
+import com.andrefilho99.unittesting.cache.BankAccountIdFilter;
+import com.andrefilho99.unittesting.cache.BankAccountNumberIndex;
+import com.andrefilho99.unittesting.mapper.BankAccountMapper;
+import com.andrefilho99.unittesting.repository.BankAccountBalance;
+import com.andrefilho99.unittesting.repository.BankAccountRepository;
+import com.andrefilho99.unittesting.service.BankAccountWriteBehindQueue;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.stream.Stream;
 
 @Configuration
 public class AppConfig {
 
     @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
+    public BankAccountMapper bankAccountMapper() {
+        return new BankAccountMapper();
+    }
+
+    @Bean
+    public BankAccountCache bankAccountCache(@Value("${bank-account.cache.enabled:true}") boolean enabled,
+                                             @Value("${bank-account.cache.maximum-size:10000}") long maximumSize,
+                                             @Value("${bank-account.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                                             @Value("${bank-account.cache.load-timeout:5s}") Duration loadTimeout) {
+        return enabled ? new BankAccountCache(maximumSize, expireAfterWrite, loadTimeout) : BankAccountCache.disabled(loadTimeout);
+    }
+
+    @Bean
+    public BankAccountChangeCounter bankAccountChangeCounter() {
+        return new BankAccountChangeCounter();
+    }
+
+    @Bean
+    public BankAccountChangeFeed bankAccountChangeFeed(@Value("${bank-account.changes.buffer-size:10000}") int bufferSize) {
+        return new BankAccountChangeFeed(bufferSize);
+    }
+
+    @Bean
+    public BankAccountAggregates bankAccountAggregates(BankAccountRepository bankAccountRepository,
+                                                       PlatformTransactionManager transactionManager) {
+        BankAccountAggregates bankAccountAggregates = new BankAccountAggregates();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Double> balances = bankAccountRepository.streamBalances()) {
+                bankAccountAggregates.rebuild(balances);
+            }
+        });
+        return bankAccountAggregates;
+    }
+
+    @Bean
+    public BankAccountBalanceIndex bankAccountBalanceIndex(BankAccountRepository bankAccountRepository,
+                                                           PlatformTransactionManager transactionManager,
+                                                           @Value("${bank-account.balance-index.enabled:false}") boolean enabled) {
+        if (!enabled) {
+            return BankAccountBalanceIndex.disabled();
+        }
+
+        BankAccountBalanceIndex bankAccountBalanceIndex = new BankAccountBalanceIndex();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<BankAccountBalance> bankAccounts = bankAccountRepository.streamIdBalances()) {
+                bankAccountBalanceIndex.rebuild(bankAccounts);
+            }
+        });
+        return bankAccountBalanceIndex;
+    }
+
+    @Bean
+    public BankAccountNumberIndex bankAccountNumberIndex(BankAccountRepository bankAccountRepository,
+                                                         PlatformTransactionManager transactionManager,
+                                                         @Value("${bank-account.number-index.enabled:true}") boolean enabled) {
+        if (!enabled) {
+            return BankAccountNumberIndex.disabled();
+        }
+
+        BankAccountNumberIndex bankAccountNumberIndex = new BankAccountNumberIndex();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<BankAccountBalance> bankAccounts = bankAccountRepository.streamIdBalances()) {
+                bankAccountNumberIndex.rebuild(bankAccounts);
+            }
+        });
+        return bankAccountNumberIndex;
+    }
+
+    @Bean
+    public BankAccountIdFilter bankAccountIdFilter(BankAccountRepository bankAccountRepository,
+                                                   PlatformTransactionManager transactionManager,
+                                                   @Value("${bank-account.id-filter.enabled:true}") boolean enabled) {
+        if (!enabled) {
+            return BankAccountIdFilter.disabled();
+        }
+
+        BankAccountIdFilter bankAccountIdFilter = new BankAccountIdFilter();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<BankAccountBalance> bankAccounts = bankAccountRepository.streamIdBalances()) {
+                bankAccountIdFilter.rebuild(bankAccounts);
+            }
+        });
+        return bankAccountIdFilter;
+    }
+
+    @Bean
+    public BankAccountWriteBehindQueue bankAccountWriteBehindQueue(BankAccountRepository bankAccountRepository,
+                                                                   BankAccountCache bankAccountCache,
+                                                                   BankAccountAggregates bankAccountAggregates,
+                                                                   PlatformTransactionManager transactionManager,
+                                                                   @Value("${bank-account.write-behind.enabled:false}") boolean enabled,
+                                                                   @Value("${bank-account.write-behind.max-pending:1000}") int maxPending,
+                                                                   @Value("${bank-account.write-behind.flush-interval:200ms}") Duration flushInterval) {
+        return enabled
+                ? new BankAccountWriteBehindQueue(bankAccountRepository, bankAccountCache, bankAccountAggregates, transactionManager, maxPending, flushInterval)
+                : BankAccountWriteBehindQueue.disabled();
     }
 }
@@ -0,0 +1,81 @@
+package com.andrefilho99.unittesting.configuration;
+
+import com.andrefilho99.unittesting.cache.BankAccountCache;
+import com.andrefilho99.unittesting.metrics.SqlStatementCounter;
+import com.andrefilho99.unittesting.metrics.SqlStatementMetricsFilter;
+import com.andrefilho99.unittesting.service.BankAccountWriteBehindQueue;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+@Configuration
+@ConditionalOnProperty(name = "bank-account.metrics.enabled", matchIfMissing = true)
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter(MeterRegistry meterRegistry) {
+        return new SqlStatementCounter(meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer(SqlStatementCounter sqlStatementCounter) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+    }
+
+    @Bean
+    public SqlStatementMetricsFilter sqlStatementMetricsFilter(SqlStatementCounter sqlStatementCounter, MeterRegistry meterRegistry) {
+        return new SqlStatementMetricsFilter(sqlStatementCounter, meterRegistry);
+    }
+
+    // Picked up by the application task executor, which runs the streaming endpoints and other MVC
+    // async work, so that its statements count for the request that started it.
+    @Bean
+    public TaskDecorator sqlStatementScopePropagation(SqlStatementCounter sqlStatementCounter) {
+        return sqlStatementCounter::propagate;
+    }
+
+    @Bean
+    public MeterBinder bankAccountCacheMetrics(BankAccountCache bankAccountCache) {
+        return meterRegistry -> {
+            FunctionCounter
+                    .builder("bank.account.cache.gets", bankAccountCache, cache -> cache.stats().hitCount())
+                    .tag("result", "hit")
+                    .register(meterRegistry);
+            FunctionCounter
+                    .builder("bank.account.cache.gets", bankAccountCache, cache -> cache.stats().missCount())
+                    .tag("result", "miss")
+                    .register(meterRegistry);
+            FunctionCounter
+                    .builder("bank.account.cache.evictions", bankAccountCache, cache -> cache.stats().evictionCount())
+                    .register(meterRegistry);
+        };
+    }
+
+    @Bean
+    public MeterBinder bankAccountWriteBehindMetrics(BankAccountWriteBehindQueue bankAccountWriteBehindQueue) {
+        return meterRegistry -> {
+            Gauge
+                    .builder("bank.account.write.behind.pending", bankAccountWriteBehindQueue, BankAccountWriteBehindQueue::pending)
+                    .register(meterRegistry);
+            FunctionCounter
+                    .builder("bank.account.write.behind.coalesced", bankAccountWriteBehindQueue, BankAccountWriteBehindQueue::coalesced)
+                    .register(meterRegistry);
+            FunctionCounter
+                    .builder("bank.account.write.behind.flushed", bankAccountWriteBehindQueue, BankAccountWriteBehindQueue::flushed)
+                    .register(meterRegistry);
+        };
+    }
+}
@@ -0,0 +1,70 @@
+package com.andrefilho99.unittesting.configuration;
+
+import com.andrefilho99.unittesting.cache.BankAccountChangeFeed;
+import com.andrefilho99.unittesting.replica.BankAccountReplicator;
+import com.andrefilho99.unittesting.replica.ReadWriteRoutingDataSource;
+import com.andrefilho99.unittesting.replica.ReplicaSession;
+import com.andrefilho99.unittesting.replica.ReplicaSessionFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "bank-account.replica.enabled")
+public class ReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource primaryDataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primaryDataSource.setPoolName("primary");
+        return primaryDataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties dataSourceProperties,
+                                              @Value("${bank-account.replica.url}") String url) {
+        HikariDataSource replicaDataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        replicaDataSource.setPoolName("replica");
+        return replicaDataSource;
+    }
+
+    @Bean
+    public BankAccountReplicator bankAccountReplicator(HikariDataSource primaryDataSource,
+                                                       HikariDataSource replicaDataSource,
+                                                       BankAccountChangeFeed bankAccountChangeFeed,
+                                                       @Value("${bank-account.replica.delay:0ms}") Duration delay) {
+        bankAccountChangeFeed.addListener(ReplicaSession::wrote);
+        return new BankAccountReplicator(primaryDataSource, replicaDataSource, bankAccountChangeFeed, delay);
+    }
+
+    @Bean
+    public ReplicaSessionFilter replicaSessionFilter() {
+        return new ReplicaSessionFilter();
+    }
+
+    // The route is chosen once per physical connection. With open-in-view the request's
+    // EntityManager keeps that connection across transactions, so a write after a read-only
+    // transaction could run on the replica.
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 HikariDataSource replicaDataSource,
+                                 BankAccountReplicator bankAccountReplicator,
+                                 @Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        if (openInView) {
+            throw new IllegalStateException("bank-account.replica.enabled requires spring.jpa.open-in-view=false");
+        }
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, bankAccountReplicator));
+    }
+}
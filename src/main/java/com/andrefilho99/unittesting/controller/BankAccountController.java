@@ -1,62 +1,448 @@
 package com.andrefilho99.unittesting.controller;
 
 import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.dto.BankAccountAmountRequest;
+import com.andrefilho99.unittesting.dto.BankAccountBatchResult;
+import com.andrefilho99.unittesting.dto.BankAccountChangeEvent;
+import com.andrefilho99.unittesting.dto.BankAccountChangesResponse;
+import com.andrefilho99.unittesting.dto.BankAccountFileFormat;
+import com.andrefilho99.unittesting.dto.BankAccountImportReport;
+import com.andrefilho99.unittesting.dto.BankAccountMultiGetResponse;
 import com.andrefilho99.unittesting.dto.BankAccountRequest;
 import com.andrefilho99.unittesting.dto.BankAccountResponse;
+import com.andrefilho99.unittesting.dto.BankAccountStatsResponse;
+import com.andrefilho99.unittesting.dto.BankAccountTransferRequest;
+import com.andrefilho99.unittesting.exceptions.BankAccountChangesExpiredException;
+import com.andrefilho99.unittesting.exceptions.InvalidBankAccountOperationException;
+import com.andrefilho99.unittesting.mapper.BankAccountMapper;
+import com.andrefilho99.unittesting.service.BankAccountBatchService;
+import com.andrefilho99.unittesting.service.BankAccountExportService;
+import com.andrefilho99.unittesting.service.BankAccountImportService;
 import com.andrefilho99.unittesting.service.BankAccountService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/bankAccounts")
 public class BankAccountController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_CHANGES_TIMEOUT_SECONDS = 60;
+    private static final Duration CHANGES_HEARTBEAT = Duration.ofSeconds(15);
+    private static final Duration CHANGES_TIMEOUT_MARGIN = Duration.ofSeconds(5);
+    private static final Duration SSE_TIMEOUT = Duration.ofMinutes(30);
+    private static final Duration EXPORT_TIMEOUT = Duration.ofMinutes(10);
+
     private final BankAccountService bankAccountService;
-    private final ModelMapper modelMapper;
+    private final BankAccountBatchService bankAccountBatchService;
+    private final BankAccountExportService bankAccountExportService;
+    private final BankAccountImportService bankAccountImportService;
+    private final BankAccountMapper bankAccountMapper;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public ResponseEntity<List<BankAccountResponse>> getAll() {
+    public ResponseEntity<List<BankAccountResponse>> getAll(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = ETags.of(bankAccountService.getChangeTag());
+
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
         List<BankAccount> bankAccountList = bankAccountService.getAll();
         List<BankAccountResponse> bankAccountResponseList = bankAccountList
                 .stream()
-                .map(bankAccount -> modelMapper.map(bankAccount, BankAccountResponse.class))
+                .map(bankAccountMapper::toBankAccountResponse)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.status(HttpStatus.OK).headers(ETags.headers(eTag)).body(bankAccountResponseList);
+    }
+
+    @GetMapping(params = {"limit", "!sort", "!ids", "!minBalance", "!maxBalance"})
+    public ResponseEntity<List<BankAccountResponse>> getPage(@RequestParam(defaultValue = "0") Long after, @RequestParam Integer limit,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = ETags.of(bankAccountService.getChangeTag());
+
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        List<BankAccount> bankAccountList = bankAccountService.getPage(after, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        List<BankAccountResponse> bankAccountResponseList = bankAccountList
+                .stream()
+                .map(bankAccountMapper::toBankAccountResponse)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.status(HttpStatus.OK).headers(ETags.headers(eTag)).body(bankAccountResponseList);
+    }
+
+    // The sort and balance range mappings exclude ids, so a request combining them lands here and is
+    // rejected rather than answered with one of its filters ignored.
+    @GetMapping(params = "ids")
+    public ResponseEntity<BankAccountMultiGetResponse> getByIds(@RequestParam List<Long> ids,
+                                                                @RequestParam(required = false) String sort,
+                                                                @RequestParam(required = false) String minBalance,
+                                                                @RequestParam(required = false) String maxBalance) {
+        if (sort != null || minBalance != null || maxBalance != null) {
+            throw new InvalidBankAccountOperationException("ids cannot be combined with sort, minBalance or maxBalance.");
+        }
+
+        return multiGet(ids);
+    }
+
+    @PostMapping("/by-ids")
+    public ResponseEntity<BankAccountMultiGetResponse> postByIds(@RequestBody List<Long> ids) {
+        return multiGet(ids);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<BankAccountResponse>> search(@RequestParam String numberPrefix,
+                                                            @RequestParam(defaultValue = "100") Integer limit,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (numberPrefix.isBlank()) {
+            throw new InvalidBankAccountOperationException("Number prefix must not be blank.");
+        }
+
+        String eTag = ETags.of(bankAccountService.getChangeTag());
+
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        List<BankAccount> bankAccountList = bankAccountService.search(numberPrefix, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        List<BankAccountResponse> bankAccountResponseList = bankAccountList
+                .stream()
+                .map(bankAccountMapper::toBankAccountResponse)
                 .collect(Collectors.toList());
 
-        return ResponseEntity.status(HttpStatus.OK).body(bankAccountResponseList);
+        return ResponseEntity.status(HttpStatus.OK).headers(ETags.headers(eTag)).body(bankAccountResponseList);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<BankAccountStatsResponse> getStats(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = ETags.of(bankAccountService.getChangeTag());
+
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).headers(ETags.headers(eTag)).body(bankAccountService.getStats());
+    }
+
+    @GetMapping(params = {"sort", "!ids"})
+    public ResponseEntity<List<BankAccountResponse>> getByBalance(@RequestParam(required = false) Double minBalance,
+                                                                  @RequestParam(required = false) Double maxBalance,
+                                                                  @RequestParam String sort,
+                                                                  @RequestParam(defaultValue = "100") Integer limit,
+                                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        boolean descending = switch (sort) {
+            case "balance", "balance,asc" -> false;
+            case "balance,desc" -> true;
+            default -> throw new InvalidBankAccountOperationException(String.format("Unsupported sort %s, use balance or balance,desc.", sort));
+        };
+
+        String eTag = ETags.of(bankAccountService.getChangeTag());
+
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        List<BankAccount> bankAccountList = bankAccountService.getByBalance(minBalance, maxBalance, descending, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        List<BankAccountResponse> bankAccountResponseList = bankAccountList
+                .stream()
+                .map(bankAccountMapper::toBankAccountResponse)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.status(HttpStatus.OK).headers(ETags.headers(eTag)).body(bankAccountResponseList);
+    }
+
+    // A balance range without sort is read in ascending balance order rather than falling through to
+    // getAll. Request params can only be required together, hence one mapping per bound.
+    @GetMapping(params = {"minBalance", "!sort", "!ids"})
+    public ResponseEntity<List<BankAccountResponse>> getByMinBalance(@RequestParam Double minBalance,
+                                                                     @RequestParam(required = false) Double maxBalance,
+                                                                     @RequestParam(defaultValue = "100") Integer limit,
+                                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return getByBalance(minBalance, maxBalance, "balance", limit, ifNoneMatch);
+    }
+
+    @GetMapping(params = {"maxBalance", "!minBalance", "!sort", "!ids"})
+    public ResponseEntity<List<BankAccountResponse>> getByMaxBalance(@RequestParam Double maxBalance,
+                                                                     @RequestParam(defaultValue = "100") Integer limit,
+                                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return getByBalance(null, maxBalance, "balance", limit, ifNoneMatch);
+    }
+
+    // Streams write to the response from an MVC async task rather than a StreamingResponseBody, whose
+    // timeout can only be set for every async request at once. EXPORT_TIMEOUT bounds how long the
+    // whole table may take to read.
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> stream(HttpServletResponse response) {
+        return new WebAsyncTask<>(EXPORT_TIMEOUT.toMillis(), () -> {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            bankAccountExportService.export(BankAccountFileFormat.NDJSON, response.getOutputStream());
+            return null;
+        });
+    }
+
+    @GetMapping("/export")
+    public WebAsyncTask<Void> export(@RequestParam(defaultValue = "csv") String format,
+                                     @RequestParam(defaultValue = "false") boolean gzip,
+                                     HttpServletResponse response) {
+        BankAccountFileFormat fileFormat = BankAccountFileFormat.of(format);
+
+        return new WebAsyncTask<>(EXPORT_TIMEOUT.toMillis(), () -> {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(fileFormat.getMediaType().toString());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("bank-accounts." + fileFormat.getExtension()).build().toString());
+
+            if (gzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                GZIPOutputStream gzipOutputStream = new GZIPOutputStream(response.getOutputStream(), STREAM_BUFFER_SIZE);
+                bankAccountExportService.export(fileFormat, gzipOutputStream);
+                gzipOutputStream.finish();
+            } else {
+                bankAccountExportService.export(fileFormat, response.getOutputStream());
+            }
+
+            return null;
+        });
+    }
+
+    // Long-poll fallback for clients that cannot read SSE: answers as soon as there are changes after
+    // `after`, or with none once timeoutSeconds have passed. The wait runs on a virtual thread, so a
+    // waiting client holds neither a request thread nor a connection from the pool.
+    @GetMapping("/changes")
+    public DeferredResult<BankAccountChangesResponse> getChanges(@RequestParam(required = false) Long after,
+                                                                 @RequestParam(defaultValue = "100") Integer limit,
+                                                                 @RequestParam(defaultValue = "30") Integer timeoutSeconds) {
+        long from = after != null ? after : bankAccountService.getLastChange();
+        int max = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Duration timeout = Duration.ofSeconds(Math.max(0, Math.min(timeoutSeconds, MAX_CHANGES_TIMEOUT_SECONDS)));
+        DeferredResult<BankAccountChangesResponse> result = new DeferredResult<>(timeout.plus(CHANGES_TIMEOUT_MARGIN).toMillis());
+
+        Thread.ofVirtual().name("bank-account-changes").start(() -> {
+            try {
+                List<BankAccountChangeEvent> changes = bankAccountService.awaitChanges(from, max, timeout);
+
+                result.setResult(BankAccountChangesResponse
+                        .builder()
+                        .changes(changes)
+                        .next(changes.isEmpty() ? from : changes.get(changes.size() - 1).getSequence())
+                        .build());
+            } catch (BankAccountChangesExpiredException e) {
+                result.setErrorResult(e);
+            } catch (InterruptedException e) {
+                result.setErrorResult(e);
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        return result;
+    }
+
+    // One virtual thread per subscriber copies events from the change feed to the connection, so a
+    // slow client only delays itself. A client that falls out of the feed's buffer gets a `reset`
+    // event and continues from the latest change; it should reload the accounts it keeps. The stream
+    // ends after SSE_TIMEOUT, and an EventSource reconnects with Last-Event-ID.
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long after,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long from = lastEventId != null ? lastEventId : after != null ? after : bankAccountService.getLastChange();
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT.toMillis());
+
+        Thread.ofVirtual().name("bank-account-changes").start(() -> {
+            long cursor = from;
+
+            try {
+                while (true) {
+                    List<BankAccountChangeEvent> changes;
+
+                    try {
+                        changes = bankAccountService.awaitChanges(cursor, MAX_PAGE_SIZE, CHANGES_HEARTBEAT);
+                    } catch (BankAccountChangesExpiredException e) {
+                        cursor = bankAccountService.getLastChange();
+                        emitter.send(SseEmitter.event().id(Long.toString(cursor)).name("reset").data(e.getMessage()));
+                        continue;
+                    }
+
+                    if (changes.isEmpty()) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+
+                    for (BankAccountChangeEvent change : changes) {
+                        emitter.send(SseEmitter.event().id(change.getSequence().toString()).data(change, MediaType.APPLICATION_JSON));
+                        cursor = change.getSequence();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                emitter.complete();
+            }
+        });
+
+        return emitter;
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<BankAccountResponse> getById(@PathVariable Long id) {
+    public ResponseEntity<BankAccountResponse> getById(@PathVariable Long id,
+                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         BankAccount bankAccount = bankAccountService.getById(id);
-        BankAccountResponse bankAccountResponse = modelMapper.map(bankAccount, BankAccountResponse.class);
+        String eTag = ETags.of(bankAccount.getVersion());
+
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        BankAccountResponse bankAccountResponse = bankAccountMapper.toBankAccountResponse(bankAccount);
+
+        return ResponseEntity.status(HttpStatus.OK).headers(ETags.headers(eTag)).body(bankAccountResponse);
+    }
+
+    @GetMapping("/by-number/{number}")
+    public ResponseEntity<BankAccountResponse> getByNumber(@PathVariable String number,
+                                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        BankAccount bankAccount = bankAccountService.getByNumber(number);
+        String eTag = ETags.of(bankAccount.getVersion());
+
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        BankAccountResponse bankAccountResponse = bankAccountMapper.toBankAccountResponse(bankAccount);
 
-        return ResponseEntity.status(HttpStatus.OK).body(bankAccountResponse);
+        return ResponseEntity.status(HttpStatus.OK).headers(ETags.headers(eTag)).body(bankAccountResponse);
     }
 
     @PostMapping
     public ResponseEntity<BankAccountResponse> create(@RequestBody BankAccountRequest bankAccountRequest) {
-        BankAccount bankAccount = bankAccountService.create(modelMapper.map(bankAccountRequest, BankAccount.class));
-        BankAccountResponse bankAccountResponse = modelMapper.map(bankAccount, BankAccountResponse.class);
-        return ResponseEntity.status(HttpStatus.CREATED).body(bankAccountResponse);
+        BankAccount bankAccount = bankAccountService.create(bankAccountMapper.toBankAccount(bankAccountRequest));
+        BankAccountResponse bankAccountResponse = bankAccountMapper.toBankAccountResponse(bankAccount);
+        return ResponseEntity.status(HttpStatus.CREATED).headers(ETags.headers(ETags.of(bankAccount.getVersion()))).body(bankAccountResponse);
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BankAccountBatchResult>> createAll(@RequestBody List<BankAccountRequest> bankAccountRequestList) {
+        List<BankAccountBatchResult> bankAccountBatchResultList = bankAccountBatchService.createAll(bankAccountRequestList
+                .stream()
+                .map(bankAccountMapper::toBankAccount));
+
+        return ResponseEntity.status(HttpStatus.OK).body(bankAccountBatchResultList);
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<BankAccountBatchResult>> createAllFromNdjson(InputStream body) throws IOException {
+        try (MappingIterator<BankAccountRequest> bankAccountRequests = objectMapper.readerFor(BankAccountRequest.class).readValues(body)) {
+            List<BankAccountBatchResult> bankAccountBatchResultList = bankAccountBatchService.createAll(StreamSupport
+                    .stream(Spliterators.spliteratorUnknownSize(bankAccountRequests, Spliterator.ORDERED), false)
+                    .map(bankAccountMapper::toBankAccount));
+
+            return ResponseEntity.status(HttpStatus.OK).body(bankAccountBatchResultList);
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BankAccountImportReport> importAll(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                             @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+                                                             @RequestParam(defaultValue = "0") Long resumeFrom,
+                                                             InputStream body) throws IOException {
+        InputStream inputStream = "gzip".equalsIgnoreCase(contentEncoding) ? new GZIPInputStream(body, STREAM_BUFFER_SIZE) : body;
+        BankAccountImportReport bankAccountImportReport = bankAccountImportService.importAll(BankAccountFileFormat.of(contentType), inputStream, resumeFrom);
+        HttpStatus status = bankAccountImportReport.getCompleted() ? HttpStatus.OK : HttpStatus.INTERNAL_SERVER_ERROR;
+
+        return ResponseEntity.status(status).body(bankAccountImportReport);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<BankAccountResponse> update(@PathVariable Long id, @RequestBody BankAccountRequest bankAccountRequest) {
-        BankAccount bankAccount = bankAccountService.update(id, modelMapper.map(bankAccountRequest, BankAccount.class));
-        BankAccountResponse bankAccountResponse = modelMapper.map(bankAccount, BankAccountResponse.class);
-        return ResponseEntity.status(HttpStatus.OK).body(bankAccountResponse);
+    public ResponseEntity<BankAccountResponse> update(@PathVariable Long id, @RequestBody BankAccountRequest bankAccountRequest,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        BankAccount bankAccount = bankAccountService.update(id, bankAccountMapper.toBankAccount(bankAccountRequest), ETags.expectedVersion(ifMatch));
+        BankAccountResponse bankAccountResponse = bankAccountMapper.toBankAccountResponse(bankAccount);
+        return ResponseEntity.status(HttpStatus.OK).headers(ETags.headers(ETags.of(bankAccount.getVersion()))).body(bankAccountResponse);
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<BankAccountResponse> patch(@PathVariable Long id, @RequestBody BankAccountRequest bankAccountRequest) {
+        BankAccount bankAccount = bankAccountService.patch(id, bankAccountMapper.toBankAccount(bankAccountRequest));
+        BankAccountResponse bankAccountResponse = bankAccountMapper.toBankAccountResponse(bankAccount);
+        return ResponseEntity.status(HttpStatus.OK).headers(ETags.headers(ETags.of(bankAccount.getVersion()))).body(bankAccountResponse);
+    }
+
+    @PostMapping("/{id}/credit")
+    public ResponseEntity<BankAccountResponse> credit(@PathVariable Long id, @RequestBody BankAccountAmountRequest bankAccountAmountRequest) {
+        BankAccount bankAccount = bankAccountService.credit(id, bankAccountAmountRequest.getAmount());
+        BankAccountResponse bankAccountResponse = bankAccountMapper.toBankAccountResponse(bankAccount);
+        return ResponseEntity.status(HttpStatus.OK).headers(ETags.headers(ETags.of(bankAccount.getVersion()))).body(bankAccountResponse);
+    }
+
+    @PostMapping("/{id}/debit")
+    public ResponseEntity<BankAccountResponse> debit(@PathVariable Long id, @RequestBody BankAccountAmountRequest bankAccountAmountRequest) {
+        BankAccount bankAccount = bankAccountService.debit(id, bankAccountAmountRequest.getAmount());
+        BankAccountResponse bankAccountResponse = bankAccountMapper.toBankAccountResponse(bankAccount);
+        return ResponseEntity.status(HttpStatus.OK).headers(ETags.headers(ETags.of(bankAccount.getVersion()))).body(bankAccountResponse);
+    }
+
+    @PostMapping("/transfers")
+    public ResponseEntity<Void> transfer(@RequestBody BankAccountTransferRequest bankAccountTransferRequest) {
+        bankAccountService.transfer(
+                bankAccountTransferRequest.getFromId(),
+                bankAccountTransferRequest.getToId(),
+                bankAccountTransferRequest.getAmount()
+        );
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<BankAccount> delete(@PathVariable Long id) {
-        bankAccountService.delete(id);
+    public ResponseEntity<BankAccount> delete(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        bankAccountService.delete(id, ETags.expectedVersion(ifMatch));
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
+
+    private ResponseEntity<BankAccountMultiGetResponse> multiGet(List<Long> ids) {
+        if (ids.size() > MAX_PAGE_SIZE) {
+            throw new InvalidBankAccountOperationException(String.format("At most %d ids can be fetched at once.", MAX_PAGE_SIZE));
+        }
+
+        Map<Long, BankAccount> bankAccounts = bankAccountService.getByIds(ids);
+        BankAccountMultiGetResponse bankAccountMultiGetResponse = BankAccountMultiGetResponse
+                .builder()
+                .bankAccounts(bankAccounts.values()
+                        .stream()
+                        .map(bankAccountMapper::toBankAccountResponse)
+                        .collect(Collectors.toList()))
+                .missingIds(ids.stream()
+                        .distinct()
+                        .filter(id -> id != null && !bankAccounts.containsKey(id))
+                        .collect(Collectors.toList()))
+                .build();
+
+        return ResponseEntity.status(HttpStatus.OK).body(bankAccountMultiGetResponse);
+    }
 }
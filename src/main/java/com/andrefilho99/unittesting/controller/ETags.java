@@ -0,0 +1,57 @@
+package com.andrefilho99.unittesting.controller;
+
+import com.andrefilho99.unittesting.exceptions.BankAccountVersionMismatchException;
+import org.springframework.http.HttpHeaders;
+
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(Object version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    public static HttpHeaders headers(String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+
+        if (eTag != null) {
+            headers.setETag(eTag);
+        }
+
+        return headers;
+    }
+
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+
+            if (value.equals("*") || value.equals(eTag) || value.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String value = ifMatch.trim();
+
+        try {
+            if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                return Long.valueOf(value.substring(1, value.length() - 1));
+            }
+        } catch (NumberFormatException ignored) {
+        }
+
+        throw new BankAccountVersionMismatchException(String.format("If-Match must be a single strong ETag, got %s.", value));
+    }
+}
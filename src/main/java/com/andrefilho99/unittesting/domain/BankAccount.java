@@ -11,11 +11,23 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "ux_bank_account_number", columnList = "number", unique = true),
+        @Index(name = "ix_bank_account_balance", columnList = "balance, id")
+})
 public class BankAccount {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bank_account_seq")
+    @SequenceGenerator(name = "bank_account_seq", sequenceName = "bank_account_seq", allocationSize = 50)
     private Long id;
     private String number;
     private Double balance;
+
+    @Version
+    private Long version;
+
+    public BankAccount(Long id, String number, Double balance) {
+        this(id, number, balance, null);
+    }
 }
@@ -0,0 +1,14 @@
+package com.andrefilho99.unittesting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BankAccountAmountRequest {
+    private Double amount;
+}
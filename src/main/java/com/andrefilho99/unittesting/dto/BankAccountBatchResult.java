@@ -0,0 +1,17 @@
+package com.andrefilho99.unittesting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BankAccountBatchResult {
+    private Long index;
+    private Long id;
+    private Integer status;
+    private String error;
+}
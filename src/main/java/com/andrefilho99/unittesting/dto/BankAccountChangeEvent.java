@@ -0,0 +1,19 @@
+package com.andrefilho99.unittesting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BankAccountChangeEvent {
+    private Long sequence;
+    private BankAccountChangeType type;
+    private Long id;
+    private String number;
+    private Double balance;
+    private Long version;
+}
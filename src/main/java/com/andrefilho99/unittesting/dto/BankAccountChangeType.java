@@ -0,0 +1,7 @@
+package com.andrefilho99.unittesting.dto;
+
+public enum BankAccountChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,36 @@
+package com.andrefilho99.unittesting.dto;
+
+import com.andrefilho99.unittesting.exceptions.InvalidBankAccountOperationException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+@Getter
+@RequiredArgsConstructor
+public enum BankAccountFileFormat {
+    CSV("csv", new MediaType("text", "csv")),
+    NDJSON("ndjson", MediaType.APPLICATION_NDJSON);
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    public static BankAccountFileFormat of(String format) {
+        for (BankAccountFileFormat fileFormat : values()) {
+            if (fileFormat.extension.equalsIgnoreCase(format)) {
+                return fileFormat;
+            }
+        }
+
+        throw new InvalidBankAccountOperationException(String.format("Unsupported file format %s.", format));
+    }
+
+    public static BankAccountFileFormat of(MediaType mediaType) {
+        for (BankAccountFileFormat fileFormat : values()) {
+            if (fileFormat.mediaType.isCompatibleWith(mediaType)) {
+                return fileFormat;
+            }
+        }
+
+        throw new InvalidBankAccountOperationException(String.format("Unsupported file format %s.", mediaType));
+    }
+}
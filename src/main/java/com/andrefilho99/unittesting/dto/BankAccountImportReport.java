@@ -0,0 +1,24 @@
+package com.andrefilho99.unittesting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BankAccountImportReport {
+    private Boolean completed;
+    private Long rows;
+    private Long imported;
+    private Long rejected;
+    private Long checkpoint;
+    private Long elapsedMillis;
+    private Double rowsPerSecond;
+    private String error;
+    private List<BankAccountBatchResult> rejections;
+}
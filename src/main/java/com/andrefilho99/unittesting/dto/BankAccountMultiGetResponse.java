@@ -0,0 +1,17 @@
+package com.andrefilho99.unittesting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BankAccountMultiGetResponse {
+    private List<BankAccountResponse> bankAccounts;
+    private List<Long> missingIds;
+}
@@ -0,0 +1,18 @@
+package com.andrefilho99.unittesting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BankAccountStatsResponse {
+    private Long count;
+    private Double totalBalance;
+    private List<BankAccountStatsBucket> histogram;
+}
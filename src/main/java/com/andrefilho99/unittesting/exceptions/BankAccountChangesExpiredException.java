@@ -0,0 +1,11 @@
+package com.andrefilho99.unittesting.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GONE)
+public class BankAccountChangesExpiredException extends RuntimeException {
+    public BankAccountChangesExpiredException(String message) {
+        super(message);
+    }
+}
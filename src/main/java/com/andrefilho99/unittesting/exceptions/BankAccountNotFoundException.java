@@ -3,9 +3,11 @@ package com.andrefilho99.unittesting.exceptions;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+// Raised for every request to an unknown id, so it skips filling in a stack trace: the cause is
+// always the request, never the code path that got there.
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class BankAccountNotFoundException extends RuntimeException {
     public BankAccountNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
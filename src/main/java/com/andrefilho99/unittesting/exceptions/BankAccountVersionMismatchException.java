@@ -0,0 +1,11 @@
+package com.andrefilho99.unittesting.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class BankAccountVersionMismatchException extends RuntimeException {
+    public BankAccountVersionMismatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,26 @@
+package com.andrefilho99.unittesting.exceptions;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+// The unique index on the account number is the only violation a client can cause by reusing a
+// number. JDBC, R2DBC and the in-memory repository all name the index in one of the messages of the
+// cause chain, while the exception types differ between them.
+public final class DataIntegrityViolations {
+
+    public static final String NUMBER_INDEX = "ux_bank_account_number";
+
+    private DataIntegrityViolations() {
+    }
+
+    public static boolean isDuplicateNumber(DataIntegrityViolationException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().toLowerCase(Locale.ROOT).contains(NUMBER_INDEX)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,11 @@
+package com.andrefilho99.unittesting.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidBankAccountOperationException extends RuntimeException {
+    public InvalidBankAccountOperationException(String message) {
+        super(message);
+    }
+}
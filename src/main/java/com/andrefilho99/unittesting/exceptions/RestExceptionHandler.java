@@ -1,7 +1,10 @@
 package com.andrefilho99.unittesting.exceptions;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -16,13 +19,62 @@ public class RestExceptionHandler {
     @ResponseStatus(HttpStatus.NOT_FOUND)
     @ResponseBody
     public ErrorResponse handleBankAccountNotFoundException(HttpServletRequest request, BankAccountNotFoundException ex) {
+        return errorResponse(request, HttpStatus.NOT_FOUND, ex.getMessage());
+    }
+
+    @ExceptionHandler(InsufficientFundsException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    @ResponseBody
+    public ErrorResponse handleInsufficientFundsException(HttpServletRequest request, InsufficientFundsException ex) {
+        return errorResponse(request, HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidBankAccountOperationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    public ErrorResponse handleInvalidBankAccountOperationException(HttpServletRequest request, InvalidBankAccountOperationException ex) {
+        return errorResponse(request, HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(BankAccountVersionMismatchException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    @ResponseBody
+    public ErrorResponse handleBankAccountVersionMismatchException(HttpServletRequest request, BankAccountVersionMismatchException ex) {
+        return errorResponse(request, HttpStatus.PRECONDITION_FAILED, ex.getMessage());
+    }
+
+    @ExceptionHandler(BankAccountChangesExpiredException.class)
+    @ResponseStatus(HttpStatus.GONE)
+    @ResponseBody
+    public ErrorResponse handleBankAccountChangesExpiredException(HttpServletRequest request, BankAccountChangesExpiredException ex) {
+        return errorResponse(request, HttpStatus.GONE, ex.getMessage());
+    }
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ResponseBody
+    public ErrorResponse handleObjectOptimisticLockingFailureException(HttpServletRequest request, ObjectOptimisticLockingFailureException ex) {
+        return errorResponse(request, HttpStatus.CONFLICT, "Bank account was modified concurrently, retry the request.");
+    }
+
+    // Any other violation, such as a missing number, is rejected as a bad request.
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    @ResponseBody
+    public ResponseEntity<ErrorResponse> handleDataIntegrityViolationException(HttpServletRequest request, DataIntegrityViolationException ex) {
+        if (DataIntegrityViolations.isDuplicateNumber(ex)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse(request, HttpStatus.CONFLICT, "Bank account number is already in use."));
+        }
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse(request, HttpStatus.BAD_REQUEST, "Bank account violates a data constraint."));
+    }
+
+    private ErrorResponse errorResponse(HttpServletRequest request, HttpStatus status, String error) {
         return ErrorResponse
                 .builder()
                 .timestamp(new Date())
-                .status(HttpStatus.NOT_FOUND.value())
-                .error(ex.getMessage())
+                .status(status.value())
+                .error(error)
                 .path(request.getRequestURI())
                 .build();
     }
 }
-
@@ -0,0 +1,16 @@
+package com.andrefilho99.unittesting.mapper;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.dto.BankAccountRequest;
+import com.andrefilho99.unittesting.dto.BankAccountResponse;
+
+public class BankAccountMapper {
+
+    public BankAccount toBankAccount(BankAccountRequest bankAccountRequest) {
+        return new BankAccount(null, bankAccountRequest.getNumber(), bankAccountRequest.getBalance());
+    }
+
+    public BankAccountResponse toBankAccountResponse(BankAccount bankAccount) {
+        return new BankAccountResponse(bankAccount.getId(), bankAccount.getNumber(), bankAccount.getBalance());
+    }
+}
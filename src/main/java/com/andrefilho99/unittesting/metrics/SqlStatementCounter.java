@@ -0,0 +1,73 @@
+package com.andrefilho99.unittesting.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Counts every statement, and those of the current scope on the side. A scope follows the thread
+// that started it; work handed to another thread is counted in it when wrapped with propagate(),
+// as the MVC async executor does for the streaming endpoints. A load shared through BankAccountCache
+// runs on the thread of the request that started it and counts there only. The change feed threads
+// started by the controller issue no statements, so they are not wrapped.
+public class SqlStatementCounter implements StatementInspector {
+
+    private final ThreadLocal<AtomicInteger> statementsInScope = new ThreadLocal<>();
+    private final Counter statements;
+
+    public SqlStatementCounter(MeterRegistry meterRegistry) {
+        this.statements = Counter
+                .builder("bank.account.sql.statements")
+                .description("SQL statements prepared by Hibernate")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        AtomicInteger count = statementsInScope.get();
+
+        if (count != null) {
+            count.incrementAndGet();
+        }
+
+        statements.increment();
+        return sql;
+    }
+
+    // The returned count keeps growing while work propagated from this scope runs elsewhere.
+    public AtomicInteger startScope() {
+        AtomicInteger count = new AtomicInteger();
+        statementsInScope.set(count);
+        return count;
+    }
+
+    public int endScope() {
+        AtomicInteger count = statementsInScope.get();
+        statementsInScope.remove();
+        return count == null ? 0 : count.get();
+    }
+
+    public Runnable propagate(Runnable task) {
+        AtomicInteger count = statementsInScope.get();
+
+        if (count == null) {
+            return task;
+        }
+
+        return () -> {
+            AtomicInteger previous = statementsInScope.get();
+            statementsInScope.set(count);
+
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    statementsInScope.remove();
+                } else {
+                    statementsInScope.set(previous);
+                }
+            }
+        };
+    }
+}
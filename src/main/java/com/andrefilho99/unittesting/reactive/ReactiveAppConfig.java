@@ -0,0 +1,23 @@
+package com.andrefilho99.unittesting.reactive;
+
+import com.andrefilho99.unittesting.mapper.BankAccountMapper;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Profile("reactive")
+@Configuration
+public class ReactiveAppConfig {
+
+    @Bean
+    public BankAccountMapper bankAccountMapper() {
+        return new BankAccountMapper();
+    }
+
+    // Tomcat is on the classpath for the servlet stack and would otherwise be picked over Netty
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,131 @@
+package com.andrefilho99.unittesting.reactive;
+
+import com.andrefilho99.unittesting.controller.ETags;
+import com.andrefilho99.unittesting.dto.BankAccountAmountRequest;
+import com.andrefilho99.unittesting.dto.BankAccountRequest;
+import com.andrefilho99.unittesting.dto.BankAccountResponse;
+import com.andrefilho99.unittesting.dto.BankAccountTransferRequest;
+import com.andrefilho99.unittesting.mapper.BankAccountMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Profile("reactive")
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/bankAccounts")
+public class ReactiveBankAccountController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveBankAccountService bankAccountService;
+    private final BankAccountMapper bankAccountMapper;
+
+    @GetMapping
+    public Mono<ResponseEntity<List<BankAccountResponse>>> getAll() {
+        return bankAccountService.getAll()
+                .map(bankAccountMapper::toBankAccountResponse)
+                .collectList()
+                .map(bankAccountResponseList -> ResponseEntity.status(HttpStatus.OK).body(bankAccountResponseList));
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<List<BankAccountResponse>>> getPage(@RequestParam(defaultValue = "0") Long after, @RequestParam Integer limit) {
+        return bankAccountService.getPage(after, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)))
+                .map(bankAccountMapper::toBankAccountResponse)
+                .collectList()
+                .map(bankAccountResponseList -> ResponseEntity.status(HttpStatus.OK).body(bankAccountResponseList));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BankAccountResponse> stream() {
+        return bankAccountService.getAll().map(bankAccountMapper::toBankAccountResponse);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<BankAccountResponse>> getById(@PathVariable Long id,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return bankAccountService.getById(id).map(bankAccount -> {
+            String eTag = ETags.of(bankAccount.getVersion());
+
+            if (ETags.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+
+            return ResponseEntity.status(HttpStatus.OK).headers(ETags.headers(eTag)).body(bankAccountMapper.toBankAccountResponse(bankAccount));
+        });
+    }
+
+    @GetMapping("/by-number/{number}")
+    public Mono<ResponseEntity<BankAccountResponse>> getByNumber(@PathVariable String number) {
+        return bankAccountService.getByNumber(number)
+                .map(bankAccount -> ResponseEntity.status(HttpStatus.OK)
+                        .headers(ETags.headers(ETags.of(bankAccount.getVersion())))
+                        .body(bankAccountMapper.toBankAccountResponse(bankAccount)));
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<BankAccountResponse>> create(@RequestBody BankAccountRequest bankAccountRequest) {
+        return bankAccountService.create(bankAccountMapper.toBankAccount(bankAccountRequest))
+                .map(bankAccount -> ResponseEntity.status(HttpStatus.CREATED)
+                        .headers(ETags.headers(ETags.of(bankAccount.getVersion())))
+                        .body(bankAccountMapper.toBankAccountResponse(bankAccount)));
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<BankAccountResponse>> update(@PathVariable Long id, @RequestBody BankAccountRequest bankAccountRequest,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return bankAccountService.update(id, bankAccountMapper.toBankAccount(bankAccountRequest), ETags.expectedVersion(ifMatch))
+                .map(bankAccount -> ResponseEntity.status(HttpStatus.OK)
+                        .headers(ETags.headers(ETags.of(bankAccount.getVersion())))
+                        .body(bankAccountMapper.toBankAccountResponse(bankAccount)));
+    }
+
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<BankAccountResponse>> patch(@PathVariable Long id, @RequestBody BankAccountRequest bankAccountRequest) {
+        return bankAccountService.patch(id, bankAccountMapper.toBankAccount(bankAccountRequest))
+                .map(bankAccount -> ResponseEntity.status(HttpStatus.OK)
+                        .headers(ETags.headers(ETags.of(bankAccount.getVersion())))
+                        .body(bankAccountMapper.toBankAccountResponse(bankAccount)));
+    }
+
+    @PostMapping("/{id}/credit")
+    public Mono<ResponseEntity<BankAccountResponse>> credit(@PathVariable Long id, @RequestBody BankAccountAmountRequest bankAccountAmountRequest) {
+        return bankAccountService.credit(id, bankAccountAmountRequest.getAmount())
+                .map(bankAccount -> ResponseEntity.status(HttpStatus.OK)
+                        .headers(ETags.headers(ETags.of(bankAccount.getVersion())))
+                        .body(bankAccountMapper.toBankAccountResponse(bankAccount)));
+    }
+
+    @PostMapping("/{id}/debit")
+    public Mono<ResponseEntity<BankAccountResponse>> debit(@PathVariable Long id, @RequestBody BankAccountAmountRequest bankAccountAmountRequest) {
+        return bankAccountService.debit(id, bankAccountAmountRequest.getAmount())
+                .map(bankAccount -> ResponseEntity.status(HttpStatus.OK)
+                        .headers(ETags.headers(ETags.of(bankAccount.getVersion())))
+                        .body(bankAccountMapper.toBankAccountResponse(bankAccount)));
+    }
+
+    @PostMapping("/transfers")
+    public Mono<ResponseEntity<Void>> transfer(@RequestBody BankAccountTransferRequest bankAccountTransferRequest) {
+        return bankAccountService.transfer(
+                        bankAccountTransferRequest.getFromId(),
+                        bankAccountTransferRequest.getToId(),
+                        bankAccountTransferRequest.getAmount())
+                .then(Mono.just(ResponseEntity.status(HttpStatus.NO_CONTENT).build()));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> delete(@PathVariable Long id,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return bankAccountService.delete(id, ETags.expectedVersion(ifMatch))
+                .then(Mono.just(ResponseEntity.status(HttpStatus.NO_CONTENT).build()));
+    }
+}
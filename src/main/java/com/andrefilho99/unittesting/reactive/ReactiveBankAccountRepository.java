@@ -0,0 +1,130 @@
+package com.andrefilho99.unittesting.reactive;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Profile("reactive")
+@RequiredArgsConstructor
+@Repository
+public class ReactiveBankAccountRepository {
+
+    private static final String SELECT = "select id, number, balance, version from bank_account";
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<BankAccount> findAll() {
+        return databaseClient.sql(SELECT + " order by id")
+                .map(ReactiveBankAccountRepository::toBankAccount)
+                .all();
+    }
+
+    public Flux<BankAccount> findByIdGreaterThan(Long id, int limit) {
+        return databaseClient.sql(SELECT + " where id > :id order by id limit :limit")
+                .bind("id", id)
+                .bind("limit", limit)
+                .map(ReactiveBankAccountRepository::toBankAccount)
+                .all();
+    }
+
+    public Mono<BankAccount> findById(Long id) {
+        return databaseClient.sql(SELECT + " where id = :id")
+                .bind("id", id)
+                .map(ReactiveBankAccountRepository::toBankAccount)
+                .one();
+    }
+
+    public Mono<BankAccount> findByNumber(String number) {
+        return databaseClient.sql(SELECT + " where number = :number")
+                .bind("number", number)
+                .map(ReactiveBankAccountRepository::toBankAccount)
+                .one();
+    }
+
+    public Mono<Boolean> existsById(Long id) {
+        return databaseClient.sql("select count(*) from bank_account where id = :id")
+                .bind("id", id)
+                .map(row -> row.get(0, Long.class) > 0)
+                .one();
+    }
+
+    public Mono<BankAccount> insert(BankAccount bankAccount) {
+        return bindNullable(databaseClient.sql("insert into bank_account (number, balance, version) values (:number, :balance, 0)")
+                .filter(statement -> statement.returnGeneratedValues("id")), bankAccount.getNumber(), bankAccount.getBalance())
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> new BankAccount(id, bankAccount.getNumber(), bankAccount.getBalance(), 0L));
+    }
+
+    public Mono<Long> update(Long id, String number, Double balance) {
+        return bindNullable(databaseClient.sql("update bank_account set number = :number, balance = :balance, version = version + 1 where id = :id")
+                .bind("id", id), number, balance)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> updateIfVersion(Long id, String number, Double balance, Long version) {
+        return bindNullable(databaseClient.sql("update bank_account set number = :number, balance = :balance, version = version + 1 where id = :id and version = :version")
+                .bind("id", id)
+                .bind("version", version), number, balance)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> patch(Long id, String number, Double balance) {
+        return bindNullable(databaseClient.sql("update bank_account set number = coalesce(:number, number), balance = coalesce(:balance, balance), version = version + 1 where id = :id")
+                .bind("id", id), number, balance)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> deleteById(Long id) {
+        return databaseClient.sql("delete from bank_account where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> deleteByIdIfVersion(Long id, Long version) {
+        return databaseClient.sql("delete from bank_account where id = :id and version = :version")
+                .bind("id", id)
+                .bind("version", version)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> credit(Long id, Double amount) {
+        return databaseClient.sql("update bank_account set balance = balance + :amount, version = version + 1 where id = :id")
+                .bind("id", id)
+                .bind("amount", amount)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> debit(Long id, Double amount) {
+        return databaseClient.sql("update bank_account set balance = balance - :amount, version = version + 1 where id = :id and balance >= :amount")
+                .bind("id", id)
+                .bind("amount", amount)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String number, Double balance) {
+        spec = number == null ? spec.bindNull("number", String.class) : spec.bind("number", number);
+        return balance == null ? spec.bindNull("balance", Double.class) : spec.bind("balance", balance);
+    }
+
+    private static BankAccount toBankAccount(Readable row) {
+        return new BankAccount(
+                row.get("id", Long.class),
+                row.get("number", String.class),
+                row.get("balance", Double.class),
+                row.get("version", Long.class)
+        );
+    }
+}
@@ -0,0 +1,136 @@
+package com.andrefilho99.unittesting.reactive;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.exceptions.BankAccountNotFoundException;
+import com.andrefilho99.unittesting.exceptions.BankAccountVersionMismatchException;
+import com.andrefilho99.unittesting.exceptions.InsufficientFundsException;
+import com.andrefilho99.unittesting.exceptions.InvalidBankAccountOperationException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Profile("reactive")
+@RequiredArgsConstructor
+@Service
+public class ReactiveBankAccountService {
+
+    private final ReactiveBankAccountRepository bankAccountRepository;
+
+    public Flux<BankAccount> getAll() {
+        return bankAccountRepository.findAll();
+    }
+
+    public Flux<BankAccount> getPage(Long after, int limit) {
+        return bankAccountRepository.findByIdGreaterThan(after, limit);
+    }
+
+    public Mono<BankAccount> getById(Long id) {
+        return bankAccountRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> notFound(id)));
+    }
+
+    public Mono<BankAccount> getByNumber(String number) {
+        return bankAccountRepository.findByNumber(number)
+                .switchIfEmpty(Mono.error(() -> new BankAccountNotFoundException(String.format("Bank account with number %s not found.", number))));
+    }
+
+    public Mono<BankAccount> create(BankAccount bankAccount) {
+        return bankAccountRepository.insert(bankAccount);
+    }
+
+    // Without If-Match the version written is only known by reading the row back, in the same
+    // transaction so the PUT's ETag is the version it wrote.
+    @Transactional
+    public Mono<BankAccount> update(Long id, BankAccount bankAccount, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return bankAccountRepository.update(id, bankAccount.getNumber(), bankAccount.getBalance())
+                    .flatMap(rows -> rows == 0 ? Mono.error(notFound(id)) : getById(id));
+        }
+
+        return bankAccountRepository.updateIfVersion(id, bankAccount.getNumber(), bankAccount.getBalance(), expectedVersion)
+                .flatMap(rows -> rows == 0
+                        ? versionMismatchOrNotFound(id, expectedVersion)
+                        : Mono.just(new BankAccount(id, bankAccount.getNumber(), bankAccount.getBalance(), expectedVersion + 1)));
+    }
+
+    public Mono<BankAccount> patch(Long id, BankAccount bankAccount) {
+        return bankAccountRepository.patch(id, bankAccount.getNumber(), bankAccount.getBalance())
+                .flatMap(rows -> rows == 0 ? Mono.error(notFound(id)) : getById(id));
+    }
+
+    public Mono<Void> delete(Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return bankAccountRepository.deleteById(id)
+                    .flatMap(rows -> rows == 0 ? Mono.error(notFound(id)) : Mono.empty());
+        }
+
+        return bankAccountRepository.deleteByIdIfVersion(id, expectedVersion)
+                .flatMap(rows -> rows == 0 ? versionMismatchOrNotFound(id, expectedVersion).then() : Mono.empty());
+    }
+
+    @Transactional
+    public Mono<BankAccount> credit(Long id, Double amount) {
+        return requirePositive(amount)
+                .then(applyCredit(id, amount))
+                .then(getById(id));
+    }
+
+    @Transactional
+    public Mono<BankAccount> debit(Long id, Double amount) {
+        return requirePositive(amount)
+                .then(applyDebit(id, amount))
+                .then(getById(id));
+    }
+
+    @Transactional
+    public Mono<Void> transfer(Long fromId, Long toId, Double amount) {
+        return requirePositive(amount).then(Mono.defer(() -> {
+            if (fromId == null || toId == null) {
+                return Mono.error(new InvalidBankAccountOperationException("Transfer requires both fromId and toId."));
+            }
+
+            if (fromId.equals(toId)) {
+                return Mono.error(new InvalidBankAccountOperationException("Cannot transfer to the same bank account."));
+            }
+
+            return fromId < toId
+                    ? applyDebit(fromId, amount).then(applyCredit(toId, amount))
+                    : applyCredit(toId, amount).then(applyDebit(fromId, amount));
+        }));
+    }
+
+    private Mono<Void> applyCredit(Long id, Double amount) {
+        return bankAccountRepository.credit(id, amount)
+                .flatMap(rows -> rows == 0 ? Mono.error(notFound(id)) : Mono.empty());
+    }
+
+    private Mono<Void> applyDebit(Long id, Double amount) {
+        return bankAccountRepository.debit(id, amount)
+                .flatMap(rows -> rows > 0 ? Mono.empty() : bankAccountRepository.existsById(id)
+                        .flatMap(exists -> Mono.error(exists
+                                ? new InsufficientFundsException(String.format("Bank account with id %d has insufficient funds.", id))
+                                : notFound(id))));
+    }
+
+    private Mono<Void> requirePositive(Double amount) {
+        if (amount == null || amount <= 0) {
+            return Mono.error(new InvalidBankAccountOperationException("Amount must be greater than zero."));
+        }
+
+        return Mono.empty();
+    }
+
+    private <T> Mono<T> versionMismatchOrNotFound(Long id, Long expectedVersion) {
+        return bankAccountRepository.existsById(id)
+                .flatMap(exists -> Mono.error(exists
+                        ? new BankAccountVersionMismatchException(String.format("Bank account with id %d is no longer at version %d.", id, expectedVersion))
+                        : notFound(id)));
+    }
+
+    private BankAccountNotFoundException notFound(Long id) {
+        return new BankAccountNotFoundException(String.format("Bank account with id %d not found.", id));
+    }
+}
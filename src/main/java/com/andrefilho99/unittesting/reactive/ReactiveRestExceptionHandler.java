@@ -0,0 +1,66 @@
+package com.andrefilho99.unittesting.reactive;
+
+import com.andrefilho99.unittesting.exceptions.BankAccountNotFoundException;
+import com.andrefilho99.unittesting.exceptions.BankAccountVersionMismatchException;
+import com.andrefilho99.unittesting.exceptions.DataIntegrityViolations;
+import com.andrefilho99.unittesting.exceptions.ErrorResponse;
+import com.andrefilho99.unittesting.exceptions.InsufficientFundsException;
+import com.andrefilho99.unittesting.exceptions.InvalidBankAccountOperationException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Date;
+
+@Profile("reactive")
+@RestControllerAdvice
+public class ReactiveRestExceptionHandler {
+
+    @ExceptionHandler(BankAccountNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ErrorResponse handleBankAccountNotFoundException(ServerHttpRequest request, BankAccountNotFoundException ex) {
+        return errorResponse(request, HttpStatus.NOT_FOUND, ex.getMessage());
+    }
+
+    @ExceptionHandler(InsufficientFundsException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public ErrorResponse handleInsufficientFundsException(ServerHttpRequest request, InsufficientFundsException ex) {
+        return errorResponse(request, HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidBankAccountOperationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleInvalidBankAccountOperationException(ServerHttpRequest request, InvalidBankAccountOperationException ex) {
+        return errorResponse(request, HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(BankAccountVersionMismatchException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ErrorResponse handleBankAccountVersionMismatchException(ServerHttpRequest request, BankAccountVersionMismatchException ex) {
+        return errorResponse(request, HttpStatus.PRECONDITION_FAILED, ex.getMessage());
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorResponse> handleDataIntegrityViolationException(ServerHttpRequest request, DataIntegrityViolationException ex) {
+        if (DataIntegrityViolations.isDuplicateNumber(ex)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse(request, HttpStatus.CONFLICT, "Bank account number is already in use."));
+        }
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse(request, HttpStatus.BAD_REQUEST, "Bank account violates a data constraint."));
+    }
+
+    private ErrorResponse errorResponse(ServerHttpRequest request, HttpStatus status, String error) {
+        return ErrorResponse
+                .builder()
+                .timestamp(new Date())
+                .status(status.value())
+                .error(error)
+                .path(request.getPath().value())
+                .build();
+    }
+}
@@ -0,0 +1,17 @@
+package com.andrefilho99.unittesting.reactive;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Profile;
+
+@Profile("reactive")
+@SpringBootApplication
+public class ReactiveUnitTestingApplication {
+
+	public static void main(String[] args) {
+		new SpringApplicationBuilder(ReactiveUnitTestingApplication.class)
+				.profiles("reactive")
+				.run(args);
+	}
+
+}
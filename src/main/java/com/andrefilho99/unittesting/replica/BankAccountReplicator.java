@@ -0,0 +1,187 @@
+package com.andrefilho99.unittesting.replica;
+
+import com.andrefilho99.unittesting.cache.BankAccountChangeFeed;
+import com.andrefilho99.unittesting.dto.BankAccountChangeEvent;
+import com.andrefilho99.unittesting.exceptions.BankAccountChangesExpiredException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps a second database in step with the primary by applying the change feed to it, the way an
+// asynchronous replica would follow the primary's log. Changes are applied in batches, each in one
+// replica transaction, after an optional delay that stands in for replication lag. When the feed
+// has moved past the replica, or a change fails to apply, the table is copied over again.
+//
+// Changes from concurrent writes to the same account can be published out of commit order. Updates
+// carry the version and only ever update an existing row to a newer version, so an older one never
+// overwrites a newer one and one published after a later delete leaves the row deleted. Only a
+// create inserts, and only when the row is not there yet.
+@Slf4j
+public class BankAccountReplicator implements SmartLifecycle {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+
+    private static final String CREATE = "merge into bank_account t using (values (cast(? as bigint), cast(? as varchar), cast(? as double precision), cast(? as bigint))) s(id, number, balance, version) on t.id = s.id "
+            + "when not matched then insert (id, number, balance, version) values (s.id, s.number, s.balance, s.version)";
+    private static final String UPDATE = "update bank_account set number = ?, balance = ?, version = ? where id = ? and version < ?";
+    private static final String DELETE = "delete from bank_account where id = ?";
+    private static final String INSERT = "insert into bank_account (id, number, balance, version) values (?, ?, ?, ?)";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final TransactionTemplate replicaTransactionTemplate;
+    private final BankAccountChangeFeed bankAccountChangeFeed;
+    private final Duration delay;
+    private volatile long applied = -1;
+    private volatile Thread worker;
+
+    public BankAccountReplicator(DataSource primaryDataSource,
+                                 DataSource replicaDataSource,
+                                 BankAccountChangeFeed bankAccountChangeFeed,
+                                 Duration delay) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.primary.setFetchSize(BATCH_SIZE);
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.replicaTransactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(replicaDataSource));
+        this.bankAccountChangeFeed = bankAccountChangeFeed;
+        this.delay = delay;
+    }
+
+    // True when the replica holds every change committed so far, so a read from it returns what a
+    // read from the primary would.
+    public boolean isCaughtUp() {
+        return hasApplied(bankAccountChangeFeed.last());
+    }
+
+    // True when the replica holds every change up to the given sequence. A sequence ahead of the
+    // feed, such as one a client kept from before a restart, counts as the feed's last.
+    public boolean hasApplied(long sequence) {
+        long applied = this.applied;
+        return applied >= 0 && applied >= Math.min(sequence, bankAccountChangeFeed.last());
+    }
+
+    public long applied() {
+        return applied;
+    }
+
+    @Override
+    public void start() {
+        copySchema();
+        worker = Thread.ofPlatform().daemon().name("bank-account-replicator").unstarted(this::run);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread worker = this.worker;
+        this.worker = null;
+
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return worker != null;
+    }
+
+    private void run() {
+        while (worker != null) {
+            try {
+                if (applied < 0) {
+                    copyTable();
+                    continue;
+                }
+
+                List<BankAccountChangeEvent> changes = bankAccountChangeFeed.await(applied, BATCH_SIZE, POLL_TIMEOUT);
+
+                if (changes.isEmpty()) {
+                    continue;
+                }
+
+                if (!delay.isZero()) {
+                    Thread.sleep(delay.toMillis());
+                }
+
+                replicaTransactionTemplate.executeWithoutResult(status -> changes.forEach(this::apply));
+                applied = changes.get(changes.size() - 1).getSequence();
+            } catch (BankAccountChangesExpiredException e) {
+                log.info("Replica fell behind the change feed, copying bank accounts again");
+                applied = -1;
+            } catch (DataAccessException | TransactionException e) {
+                log.warn("Could not update the replica, copying bank accounts again", e);
+                applied = -1;
+
+                if (!pause()) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(POLL_TIMEOUT.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    private void apply(BankAccountChangeEvent change) {
+        switch (change.getType()) {
+            case CREATED -> replica.update(CREATE, change.getId(), change.getNumber(), change.getBalance(), change.getVersion());
+            case UPDATED -> replica.update(UPDATE, change.getNumber(), change.getBalance(), change.getVersion(), change.getId(), change.getVersion());
+            case DELETED -> replica.update(DELETE, change.getId());
+        }
+    }
+
+    // H2 specific: the primary scripts its own schema and the replica runs it.
+    private void copySchema() {
+        List<String> statements = primary.queryForList("script nodata", String.class);
+
+        replica.execute("drop all objects");
+        statements.stream()
+                .filter(statement -> !statement.startsWith("CREATE USER"))
+                .forEach(replica::execute);
+    }
+
+    // Changes published while the rows are read are applied again afterwards. Each one carries the
+    // whole row, so applying it on top of a copy that already has it changes nothing.
+    private void copyTable() {
+        long from = bankAccountChangeFeed.last();
+
+        replicaTransactionTemplate.executeWithoutResult(status -> {
+            replica.update("delete from bank_account");
+
+            List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+            primary.query("select id, number, balance, version from bank_account", resultSet -> {
+                rows.add(new Object[]{resultSet.getObject(1), resultSet.getObject(2), resultSet.getObject(3), resultSet.getObject(4)});
+
+                if (rows.size() == BATCH_SIZE) {
+                    replica.batchUpdate(INSERT, rows);
+                    rows.clear();
+                }
+            });
+
+            if (!rows.isEmpty()) {
+                replica.batchUpdate(INSERT, rows);
+            }
+        });
+
+        applied = from;
+    }
+}
@@ -0,0 +1,30 @@
+package com.andrefilho99.unittesting.replica;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Hands out replica connections to read-only transactions once the replica has applied the changes
+// the caller's ReplicaSession requires, and primary connections otherwise. The transaction is only
+// known once it has started, so this has to sit behind a LazyConnectionDataSourceProxy.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    private final BankAccountReplicator bankAccountReplicator;
+
+    public ReadWriteRoutingDataSource(DataSource primaryDataSource, DataSource replicaDataSource, BankAccountReplicator bankAccountReplicator) {
+        this.bankAccountReplicator = bankAccountReplicator;
+        setTargetDataSources(Map.of(PRIMARY, primaryDataSource, REPLICA, replicaDataSource));
+        setDefaultTargetDataSource(primaryDataSource);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && bankAccountReplicator.hasApplied(ReplicaSession.required()) ? REPLICA : PRIMARY;
+    }
+}
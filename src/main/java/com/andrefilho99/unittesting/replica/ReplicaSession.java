@@ -0,0 +1,70 @@
+package com.andrefilho99.unittesting.replica;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.function.Supplier;
+
+// The change feed sequence the current caller has to be able to read, kept per thread: raised by
+// the caller's own committed writes and, for HTTP clients, by the sequence they send back from the
+// response to their last write. Reads go to the replica once it has applied that sequence, so a
+// caller waits for its own writes only, not for everyone else's.
+public final class ReplicaSession {
+
+    public static final String SEQUENCE_HEADER = "X-Bank-Account-Sequence";
+
+    private static final ThreadLocal<Long> REQUIRED = new ThreadLocal<>();
+
+    private ReplicaSession() {
+    }
+
+    public static long required() {
+        Long required = REQUIRED.get();
+        return required == null ? 0 : required;
+    }
+
+    public static void require(long sequence) {
+        if (sequence > required()) {
+            REQUIRED.set(sequence);
+        }
+    }
+
+    // Also hands the sequence to the client of the current request, which sends it back to read
+    // its own write on later requests.
+    public static void wrote(long sequence) {
+        require(sequence);
+
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+
+        if (requestAttributes instanceof ServletRequestAttributes servletRequestAttributes) {
+            HttpServletResponse response = servletRequestAttributes.getResponse();
+
+            if (response != null && !response.isCommitted()) {
+                response.setHeader(SEQUENCE_HEADER, String.valueOf(required()));
+            }
+        }
+    }
+
+    // For reads shared with other callers, such as a cache load, which have to include their
+    // writes too.
+    public static <T> T requiring(long sequence, Supplier<T> reader) {
+        Long previous = REQUIRED.get();
+        require(sequence);
+
+        try {
+            return reader.get();
+        } finally {
+            if (previous == null) {
+                REQUIRED.remove();
+            } else {
+                REQUIRED.set(previous);
+            }
+        }
+    }
+
+    public static void clear() {
+        REQUIRED.remove();
+    }
+}
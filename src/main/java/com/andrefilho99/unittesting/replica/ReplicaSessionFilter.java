@@ -0,0 +1,39 @@
+package com.andrefilho99.unittesting.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Starts each request's ReplicaSession from the sequence the client sent back, if any, and ends
+// it with the request so that a pooled thread does not carry it over to the next one.
+public class ReplicaSessionFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            String sequence = request.getHeader(ReplicaSession.SEQUENCE_HEADER);
+
+            if (sequence != null) {
+                require(sequence);
+            }
+
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaSession.clear();
+        }
+    }
+
+    // A malformed sequence is ignored, the request then only waits for writes it makes itself.
+    private static void require(String sequence) {
+        try {
+            ReplicaSession.require(Long.parseLong(sequence.trim()));
+        } catch (NumberFormatException e) {
+            // read as if no sequence was sent
+        }
+    }
+}
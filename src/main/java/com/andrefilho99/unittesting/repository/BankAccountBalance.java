@@ -0,0 +1,11 @@
+package com.andrefilho99.unittesting.repository;
+
+public interface BankAccountBalance {
+    public Long getId();
+
+    public String getNumber();
+
+    public Double getBalance();
+
+    public Long getVersion();
+}
@@ -1,10 +1,67 @@
 package com.andrefilho99.unittesting.repository;
 
 import com.andrefilho99.unittesting.domain.BankAccount;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface BankAccountRepository extends JpaRepository<BankAccount, Long> {
     public BankAccount findByNumber(String number);
+
+    public List<BankAccount> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.andrefilho99.unittesting.domain.BankAccount(b.id, b.number, b.balance, b.version) from BankAccount b order by b.id")
+    public Stream<BankAccount> streamAll();
+
+    @Query("select b.balance from BankAccount b")
+    public Stream<Double> streamBalances();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select b.id as id, b.number as number, b.balance as balance, b.version as version from BankAccount b")
+    public Stream<BankAccountBalance> streamIdBalances();
+
+    public List<BankAccount> findByBalanceBetween(Double minBalance, Double maxBalance, Pageable pageable);
+
+    public List<BankAccount> findByNumberStartingWithOrderByNumberAsc(String numberPrefix, Pageable pageable);
+
+    // Writes select the row as it was before the statement from H2's OLD TABLE delta, so a single
+    // statement both applies the change and tells the aggregates and indexes what it replaced.
+    // Empty when no row matched.
+    @Query(value = "select id, number, balance, version from old table (update bank_account set number = :number, balance = :balance, version = version + 1 where id = :id)", nativeQuery = true)
+    public Optional<BankAccountBalance> update(@Param("id") Long id, @Param("number") String number, @Param("balance") Double balance);
+
+    @Query(value = "select id, number, balance, version from old table (update bank_account set number = :number, balance = :balance, version = version + 1 where id = :id and version = :version)", nativeQuery = true)
+    public Optional<BankAccountBalance> updateIfVersion(@Param("id") Long id, @Param("number") String number, @Param("balance") Double balance, @Param("version") Long version);
+
+    @Query(value = "select id, number, balance, version from old table (update bank_account set number = coalesce(:number, number), balance = coalesce(:balance, balance), version = version + 1 where id = :id)", nativeQuery = true)
+    public Optional<BankAccountBalance> patch(@Param("id") Long id, @Param("number") String number, @Param("balance") Double balance);
+
+    // Never moves the version back, so a stale write of a pending balance is ignored.
+    @Modifying(clearAutomatically = true)
+    @Query("update BankAccount b set b.balance = :balance, b.version = :version where b.id = :id and b.version < :version")
+    public int writeBalance(@Param("id") Long id, @Param("balance") Double balance, @Param("version") Long version);
+
+    @Query(value = "select id, number, balance, version from old table (delete from bank_account where id = :id)", nativeQuery = true)
+    public Optional<BankAccountBalance> deleteBankAccountById(@Param("id") Long id);
+
+    @Query(value = "select id, number, balance, version from old table (delete from bank_account where id = :id and version = :version)", nativeQuery = true)
+    public Optional<BankAccountBalance> deleteBankAccountByIdIfVersion(@Param("id") Long id, @Param("version") Long version);
+
+    @Query(value = "select id, number, balance, version from old table (update bank_account set balance = balance + :amount, version = version + 1 where id = :id)", nativeQuery = true)
+    public Optional<BankAccountBalance> credit(@Param("id") Long id, @Param("amount") Double amount);
+
+    @Query(value = "select id, number, balance, version from old table (update bank_account set balance = balance - :amount, version = version + 1 where id = :id and balance >= :amount)", nativeQuery = true)
+    public Optional<BankAccountBalance> debit(@Param("id") Long id, @Param("amount") Double amount);
 }
@@ -0,0 +1,1156 @@
+package com.andrefilho99.unittesting.repository;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.exceptions.DataIntegrityViolations;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.data.support.ExampleMatcherAccessor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Keeps accounts in primitive columns instead of managed entities: one slot per account in id order,
+// an open-addressing id -> slot map and a number -> slot map, numbers stored as UTF-8 bytes. Writes
+// are serialized by a StampedLock; reads are optimistic and retry under the read lock when a write
+// ran concurrently. Writes inside a Spring transaction are undone if it rolls back. Like a row lock,
+// a row written by an open transaction can only be written again by that transaction until it
+// completes, and until then every other reader sees the row as it was before the transaction first
+// wrote it (read committed). Query by example filters a scan. It takes precedence over the JPA
+// repository, which stays registered alongside it.
+@Primary
+@Profile("in-memory")
+@Repository
+public class InMemoryBankAccountRepository implements BankAccountRepository {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long LOCK_TIMEOUT_MILLIS = 10_000;
+    private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+    private final StampedLock lock = new StampedLock();
+    private final Map<Long, UndoLog> rowOwners = new ConcurrentHashMap<>();
+    private final AtomicInteger openUndoLogs = new AtomicInteger();
+
+    private Columns columns = new Columns(INITIAL_CAPACITY);
+    private IdTable idTable = new IdTable(INITIAL_CAPACITY * 2);
+    private NumberTable numberTable = new NumberTable(INITIAL_CAPACITY * 2);
+    private int deleted;
+    private long nextId = 1;
+
+    @Override
+    public BankAccount findByNumber(String number) {
+        byte[] bytes = number.getBytes(StandardCharsets.UTF_8);
+        UndoLog reader = currentUndoLog();
+        return read(() -> {
+            Columns columns = this.columns;
+            int slot = numberTable.get(columns, bytes);
+            BankAccount bankAccount = slot < 0 ? null : visible(columns, columns.ids[slot], slot, reader);
+
+            if (bankAccount != null && number.equals(bankAccount.getNumber())) {
+                return bankAccount;
+            }
+
+            // the number may have been changed or deleted by a transaction that has not committed
+            for (Map.Entry<Long, UndoLog> owned : rowOwners.entrySet()) {
+                UndoEntry committed = owned.getValue() == reader ? null : owned.getValue().committed.get(owned.getKey());
+
+                if (committed != null && committed.previous != null && number.equals(committed.previous.number)) {
+                    return committed.previous.toBankAccount();
+                }
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<BankAccount> findById(Long id) {
+        UndoLog reader = currentUndoLog();
+        return Optional.ofNullable(read(() -> visible(columns, id, idTable.get(id), reader)));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public List<BankAccount> findAllById(Iterable<Long> ids) {
+        List<BankAccount> bankAccounts = new ArrayList<>();
+        UndoLog reader = currentUndoLog();
+        long stamp = lock.readLock();
+        try {
+            for (Long id : ids) {
+                BankAccount bankAccount = visible(columns, id, idTable.get(id), reader);
+
+                if (bankAccount != null) {
+                    bankAccounts.add(bankAccount);
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return bankAccounts;
+    }
+
+    @Override
+    public List<BankAccount> findAll() {
+        return scan(bankAccount -> true);
+    }
+
+    @Override
+    public List<BankAccount> findAll(Sort sort) {
+        return sorted(scan(bankAccount -> true), sort);
+    }
+
+    @Override
+    public Page<BankAccount> findAll(Pageable pageable) {
+        List<BankAccount> bankAccounts = sorted(scan(bankAccount -> true), pageable.getSort());
+        return new PageImpl<>(page(bankAccounts, pageable), pageable, bankAccounts.size());
+    }
+
+    @Override
+    public long count() {
+        UndoLog reader = currentUndoLog();
+        return read(() -> {
+            long count = (long) columns.used - deleted;
+
+            // rows inserted or deleted by other open transactions are counted as they were before
+            for (Map.Entry<Long, UndoLog> owned : rowOwners.entrySet()) {
+                UndoEntry committed = owned.getValue() == reader ? null : owned.getValue().committed.get(owned.getKey());
+
+                if (committed != null) {
+                    count += (committed.previous != null ? 1 : 0) - (idTable.get(owned.getKey()) >= 0 ? 1 : 0);
+                }
+            }
+
+            return count;
+        });
+    }
+
+    @Override
+    public List<BankAccount> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable) {
+        List<BankAccount> bankAccounts = new ArrayList<>(pageable.getPageSize());
+        UndoLog reader = currentUndoLog();
+        long stamp = lock.readLock();
+        try {
+            Columns columns = this.columns;
+            int from = Arrays.binarySearch(columns.ids, 0, columns.used, id + 1);
+
+            for (int slot = from < 0 ? -from - 1 : from; slot < columns.used && bankAccounts.size() < pageable.getPageSize(); slot++) {
+                BankAccount bankAccount = visible(columns, columns.ids[slot], slot, reader);
+
+                if (bankAccount != null) {
+                    bankAccounts.add(bankAccount);
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return bankAccounts;
+    }
+
+    // Slots are in id order, so this walks them from a snapshot of the used slot count and reads
+    // each row under its own optimistic read.
+    @Override
+    public Stream<BankAccount> streamAll() {
+        int used = read(() -> columns.used);
+        UndoLog reader = currentUndoLog();
+        return IntStream.range(0, used)
+                .mapToObj(slot -> read(() -> {
+                    Columns columns = this.columns;
+                    return slot < columns.used ? visible(columns, columns.ids[slot], slot, reader) : null;
+                }))
+                .filter(bankAccount -> bankAccount != null);
+    }
+
+    @Override
+    public Stream<Double> streamBalances() {
+        return streamAll().map(BankAccount::getBalance);
+    }
+
+    @Override
+    public Stream<BankAccountBalance> streamIdBalances() {
+        return streamAll().map(bankAccount -> new Row(bankAccount.getId(), bankAccount.getNumber(), bankAccount.getBalance(), bankAccount.getVersion()));
+    }
+
+    @Override
+    public List<BankAccount> findByBalanceBetween(Double minBalance, Double maxBalance, Pageable pageable) {
+        List<BankAccount> bankAccounts = scan(bankAccount -> bankAccount.getBalance() != null
+                && bankAccount.getBalance() >= minBalance && bankAccount.getBalance() <= maxBalance);
+        return page(sorted(bankAccounts, pageable.getSort()), pageable);
+    }
+
+    @Override
+    public List<BankAccount> findByNumberStartingWithOrderByNumberAsc(String numberPrefix, Pageable pageable) {
+        List<BankAccount> bankAccounts = scan(bankAccount -> bankAccount.getNumber() != null && bankAccount.getNumber().startsWith(numberPrefix));
+        return page(sorted(bankAccounts, Sort.by("number")), pageable);
+    }
+
+    @Override
+    public Optional<BankAccountBalance> update(Long id, String number, Double balance) {
+        return write(id, row -> true, row -> new Row(row.id, number, balance, row.version + 1));
+    }
+
+    @Override
+    public Optional<BankAccountBalance> updateIfVersion(Long id, String number, Double balance, Long version) {
+        return write(id, row -> row.version.equals(version), row -> new Row(row.id, number, balance, row.version + 1));
+    }
+
+    @Override
+    public Optional<BankAccountBalance> patch(Long id, String number, Double balance) {
+        return write(id, row -> true, row -> new Row(row.id,
+                number != null ? number : row.number, balance != null ? balance : row.balance, row.version + 1));
+    }
+
+    @Override
+    public int writeBalance(Long id, Double balance, Long version) {
+        return write(id, row -> row.version < version, row -> new Row(row.id, row.number, balance, version)).isPresent() ? 1 : 0;
+    }
+
+    @Override
+    public Optional<BankAccountBalance> deleteBankAccountById(Long id) {
+        return write(id, row -> true, row -> null);
+    }
+
+    @Override
+    public Optional<BankAccountBalance> deleteBankAccountByIdIfVersion(Long id, Long version) {
+        return write(id, row -> row.version.equals(version), row -> null);
+    }
+
+    @Override
+    public Optional<BankAccountBalance> credit(Long id, Double amount) {
+        return write(id, row -> true, row -> new Row(row.id, row.number, row.balance == null ? null : row.balance + amount, row.version + 1));
+    }
+
+    @Override
+    public Optional<BankAccountBalance> debit(Long id, Double amount) {
+        return write(id, row -> row.balance != null && row.balance >= amount,
+                row -> new Row(row.id, row.number, row.balance - amount, row.version + 1));
+    }
+
+    @Override
+    public <S extends BankAccount> S save(S bankAccount) {
+        UndoLog undoLog = bankAccount.getId() == null ? undoLog() : acquire(bankAccount.getId());
+        long stamp = lock.writeLock();
+        try {
+            int slot = bankAccount.getId() == null ? -1 : idTable.get(bankAccount.getId());
+
+            if (slot < 0) {
+                Row row = new Row(nextId, bankAccount.getNumber(), bankAccount.getBalance(), 0L);
+                insert(row);
+                nextId++;
+
+                if (undoLog != null) {
+                    rowOwners.put(row.id, undoLog);
+                }
+
+                undoOnRollback(undoLog, row.id, null);
+                bankAccount.setId(row.id);
+                bankAccount.setVersion(row.version);
+                return bankAccount;
+            }
+
+            Row previous = columns.row(slot);
+
+            if (!previous.version.equals(bankAccount.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(BankAccount.class, bankAccount.getId());
+            }
+
+            replace(slot, new Row(previous.id, bankAccount.getNumber(), bankAccount.getBalance(), previous.version + 1));
+            undoOnRollback(undoLog, previous.id, previous);
+            bankAccount.setVersion(previous.version + 1);
+            return bankAccount;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public <S extends BankAccount> List<S> saveAll(Iterable<S> bankAccounts) {
+        List<S> saved = new ArrayList<>();
+        bankAccounts.forEach(bankAccount -> saved.add(save(bankAccount)));
+        return saved;
+    }
+
+    @Override
+    public <S extends BankAccount> S saveAndFlush(S bankAccount) {
+        return save(bankAccount);
+    }
+
+    @Override
+    public <S extends BankAccount> List<S> saveAllAndFlush(Iterable<S> bankAccounts) {
+        return saveAll(bankAccounts);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        deleteBankAccountById(id);
+    }
+
+    @Override
+    public void delete(BankAccount bankAccount) {
+        deleteBankAccountById(bankAccount.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        ids.forEach(this::deleteBankAccountById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends BankAccount> bankAccounts) {
+        bankAccounts.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<BankAccount> bankAccounts) {
+        deleteAll(bankAccounts);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    // Not undone by a rollback, unlike the row-level writes.
+    @Override
+    public void deleteAll() {
+        long stamp = lock.writeLock();
+        try {
+            columns = new Columns(INITIAL_CAPACITY);
+            idTable = new IdTable(INITIAL_CAPACITY * 2);
+            numberTable = new NumberTable(INITIAL_CAPACITY * 2);
+            deleted = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void deleteInBatch(Iterable<BankAccount> bankAccounts) {
+        deleteAll(bankAccounts);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public BankAccount getOne(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public BankAccount getById(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public BankAccount getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException(String.format("Bank account with id %d not found.", id)));
+    }
+
+    @Override
+    public <S extends BankAccount> Optional<S> findOne(Example<S> example) {
+        List<S> bankAccounts = findAll(example);
+
+        if (bankAccounts.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, bankAccounts.size());
+        }
+
+        return bankAccounts.stream().findFirst();
+    }
+
+    @Override
+    public <S extends BankAccount> List<S> findAll(Example<S> example) {
+        return scan(new ExamplePredicate(example)).stream()
+                .map(example.getProbeType()::cast)
+                .toList();
+    }
+
+    @Override
+    public <S extends BankAccount> List<S> findAll(Example<S> example, Sort sort) {
+        return sorted(scan(new ExamplePredicate(example)), sort).stream()
+                .map(example.getProbeType()::cast)
+                .toList();
+    }
+
+    @Override
+    public <S extends BankAccount> Page<S> findAll(Example<S> example, Pageable pageable) {
+        List<BankAccount> bankAccounts = sorted(scan(new ExamplePredicate(example)), pageable.getSort());
+        return new PageImpl<>(page(bankAccounts, pageable), pageable, bankAccounts.size()).map(example.getProbeType()::cast);
+    }
+
+    @Override
+    public <S extends BankAccount> long count(Example<S> example) {
+        return scan(new ExamplePredicate(example)).size();
+    }
+
+    @Override
+    public <S extends BankAccount> boolean exists(Example<S> example) {
+        return !scan(new ExamplePredicate(example)).isEmpty();
+    }
+
+    @Override
+    public <S extends BankAccount, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        return queryFunction.apply(new ExampleQuery<>(example, example.getProbeType(), Sort.unsorted()));
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+
+        if (stamp != 0) {
+            try {
+                T value = reader.get();
+
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            } catch (RuntimeException e) {
+                // torn read of arrays being replaced by a writer, retried below
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private List<BankAccount> scan(Predicate<BankAccount> filter) {
+        List<BankAccount> bankAccounts = new ArrayList<>();
+        UndoLog reader = currentUndoLog();
+        long stamp = lock.readLock();
+        try {
+            Columns columns = this.columns;
+
+            for (int slot = 0; slot < columns.used; slot++) {
+                BankAccount bankAccount = visible(columns, columns.ids[slot], slot, reader);
+
+                if (bankAccount != null && filter.test(bankAccount)) {
+                    bankAccounts.add(bankAccount);
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return bankAccounts;
+    }
+
+    // The row with the given id (in the given slot, negative if there is none) as the reader's
+    // transaction sees it: another open transaction's change is hidden behind the row as it was
+    // before that transaction first wrote it, null when that transaction inserted it.
+    private BankAccount visible(Columns columns, long id, int slot, UndoLog reader) {
+        UndoLog owner = rowOwners.get(id);
+
+        if (owner != null && owner != reader) {
+            UndoEntry committed = owner.committed.get(id);
+
+            if (committed != null) {
+                return committed.previous == null ? null : committed.previous.toBankAccount();
+            }
+        }
+
+        return columns.toBankAccount(slot);
+    }
+
+    // Applies change to the row with the given id when condition holds and returns the row as it was
+    // before; a change to null deletes the row. The condition sees the row as the writer's own
+    // transaction left it, since the row is owned by that transaction (or none) once acquired.
+    private Optional<BankAccountBalance> write(Long id, Predicate<Row> condition, Function<Row, Row> change) {
+        UndoLog undoLog = acquire(id);
+        long stamp = lock.writeLock();
+        try {
+            int slot = idTable.get(id);
+
+            if (slot < 0) {
+                return Optional.empty();
+            }
+
+            Row previous = columns.row(slot);
+
+            if (!condition.test(previous)) {
+                return Optional.empty();
+            }
+
+            Row row = change.apply(previous);
+
+            if (row == null) {
+                remove(slot);
+            } else {
+                replace(slot, row);
+            }
+
+            undoOnRollback(undoLog, id, previous);
+            return Optional.of(previous);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void insert(Row row) {
+        byte[] number = encode(row.number);
+
+        if (number != null && numberTable.get(columns, number) >= 0) {
+            throw duplicateNumber(row.number);
+        }
+
+        if (columns.used == columns.capacity()) {
+            resize();
+        }
+
+        int slot = columns.used++;
+        columns.set(slot, row.id, number, row.balance, row.version);
+        idTable = idTable.put(row.id, slot);
+
+        if (number != null) {
+            numberTable = numberTable.put(columns, slot);
+        }
+    }
+
+    private void replace(int slot, Row row) {
+        byte[] number = encode(row.number);
+        boolean numberChanged = !Arrays.equals(number, columns.numbers[slot]);
+
+        if (numberChanged && number != null && numberTable.get(columns, number) >= 0) {
+            throw duplicateNumber(row.number);
+        }
+
+        if (numberChanged && columns.numbers[slot] != null) {
+            numberTable.remove(columns, slot);
+        }
+
+        columns.set(slot, row.id, number, row.balance, row.version);
+
+        if (numberChanged && number != null) {
+            numberTable = numberTable.put(columns, slot);
+        }
+    }
+
+    private void remove(int slot) {
+        idTable.remove(columns.ids[slot]);
+
+        if (columns.numbers[slot] != null) {
+            numberTable.remove(columns, slot);
+        }
+
+        columns.versions[slot] = Columns.DELETED;
+        columns.numbers[slot] = null;
+        deleted++;
+    }
+
+    // A rolled back delete is restored into the slot it came from, so slots are only compacted while
+    // no transaction can still roll back.
+    private void restore(long id, Row previous) {
+        int slot = idTable.get(id);
+
+        if (previous == null) {
+            if (slot >= 0) {
+                remove(slot);
+            }
+        } else if (slot >= 0) {
+            replace(slot, previous);
+        } else {
+            slot = Arrays.binarySearch(columns.ids, 0, columns.used, id);
+            byte[] number = encode(previous.number);
+
+            if (number != null && numberTable.get(columns, number) >= 0) {
+                return;
+            }
+
+            columns.set(slot, id, number, previous.balance, previous.version);
+            idTable = idTable.put(id, slot);
+
+            if (number != null) {
+                numberTable = numberTable.put(columns, slot);
+            }
+
+            deleted--;
+        }
+    }
+
+    private void resize() {
+        boolean compact = openUndoLogs.get() == 0 && deleted > columns.capacity() / 4;
+        Columns resized = new Columns(compact ? columns.capacity() : columns.capacity() * 2);
+        IdTable resizedIdTable = new IdTable(resized.capacity() * 2);
+        NumberTable resizedNumberTable = new NumberTable(resized.capacity() * 2);
+
+        for (int slot = 0; slot < columns.used; slot++) {
+            if (compact && columns.versions[slot] == Columns.DELETED) {
+                continue;
+            }
+
+            int target = resized.used++;
+            resized.set(target, columns.ids[slot], columns.numbers[slot], columns.balances[slot], columns.versions[slot]);
+
+            if (columns.versions[slot] != Columns.DELETED) {
+                resizedIdTable.put(columns.ids[slot], target);
+
+                if (columns.numbers[slot] != null) {
+                    resizedNumberTable.put(resized, target);
+                }
+            }
+        }
+
+        if (compact) {
+            deleted = 0;
+        }
+
+        columns = resized;
+        idTable = resizedIdTable;
+        numberTable = resizedNumberTable;
+    }
+
+    // Waits until no other open transaction owns the row and makes the current one (if any) its owner.
+    private UndoLog acquire(Long id) {
+        UndoLog undoLog = undoLog();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LOCK_TIMEOUT_MILLIS);
+
+        while (true) {
+            UndoLog owner = undoLog == null ? rowOwners.get(id) : rowOwners.putIfAbsent(id, undoLog);
+
+            if (owner == null || owner == undoLog) {
+                return undoLog;
+            }
+
+            if (!owner.await(deadline - System.nanoTime())) {
+                throw new CannotAcquireLockException(String.format("Timed out waiting for the lock on bank account %d.", id));
+            }
+        }
+    }
+
+    // The undo log of the current transaction if it has written anything, without starting one.
+    private UndoLog currentUndoLog() {
+        return (UndoLog) TransactionSynchronizationManager.getResource(this);
+    }
+
+    private UndoLog undoLog() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        UndoLog undoLog = (UndoLog) TransactionSynchronizationManager.getResource(this);
+
+        if (undoLog == null) {
+            undoLog = new UndoLog();
+            TransactionSynchronizationManager.bindResource(this, undoLog);
+            TransactionSynchronizationManager.registerSynchronization(undoLog);
+            openUndoLogs.incrementAndGet();
+        }
+
+        return undoLog;
+    }
+
+    private static void undoOnRollback(UndoLog undoLog, long id, Row previous) {
+        if (undoLog != null) {
+            UndoEntry entry = new UndoEntry(id, previous);
+            undoLog.entries.push(entry);
+            undoLog.committed.putIfAbsent(id, entry);
+        }
+    }
+
+    private static List<BankAccount> sorted(List<BankAccount> bankAccounts, Sort sort) {
+        Comparator<BankAccount> comparator = null;
+
+        for (Sort.Order order : sort) {
+            Comparator<BankAccount> property = switch (order.getProperty()) {
+                case "id" -> Comparator.comparing(BankAccount::getId);
+                case "number" -> Comparator.comparing(BankAccount::getNumber, Comparator.nullsLast(Comparator.naturalOrder()));
+                case "balance" -> Comparator.comparing(BankAccount::getBalance, Comparator.nullsLast(Comparator.naturalOrder()));
+                case "version" -> Comparator.comparing(BankAccount::getVersion);
+                default -> throw new IllegalArgumentException(String.format("Unknown bank account property %s.", order.getProperty()));
+            };
+
+            property = order.isDescending() ? property.reversed() : property;
+            comparator = comparator == null ? property : comparator.thenComparing(property);
+        }
+
+        if (comparator != null) {
+            bankAccounts.sort(comparator);
+        }
+
+        return bankAccounts;
+    }
+
+    private static List<BankAccount> page(List<BankAccount> bankAccounts, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return bankAccounts;
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), bankAccounts.size());
+        return new ArrayList<>(bankAccounts.subList(from, Math.min(from + pageable.getPageSize(), bankAccounts.size())));
+    }
+
+    private static byte[] encode(String number) {
+        return number == null ? null : number.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static DataIntegrityViolationException duplicateNumber(String number) {
+        return new DataIntegrityViolationException(String.format("Bank account with number %s already exists (%s).", number, DataIntegrityViolations.NUMBER_INDEX));
+    }
+
+    private class UndoLog implements TransactionSynchronization {
+
+        private final Deque<UndoEntry> entries = new ArrayDeque<>();
+        // first entry per row, read by other transactions while this one is open
+        private final Map<Long, UndoEntry> committed = new ConcurrentHashMap<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(InMemoryBankAccountRepository.this);
+            long stamp = lock.writeLock();
+            try {
+                if (status != STATUS_COMMITTED) {
+                    entries.forEach(entry -> restore(entry.id, entry.previous));
+                }
+
+                openUndoLogs.decrementAndGet();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+
+            rowOwners.values().removeIf(owner -> owner == this);
+            completed.countDown();
+        }
+
+        private boolean await(long nanos) {
+            try {
+                return completed.await(nanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private record UndoEntry(long id, Row previous) {
+    }
+
+    private record Row(Long id, String number, Double balance, Long version) implements BankAccountBalance {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getNumber() {
+            return number;
+        }
+
+        @Override
+        public Double getBalance() {
+            return balance;
+        }
+
+        @Override
+        public Long getVersion() {
+            return version;
+        }
+
+        private BankAccount toBankAccount() {
+            return new BankAccount(id, number, balance, version);
+        }
+    }
+
+    // Matches the probe's non-null properties (all of them, or any with a matchAny matcher) the way
+    // the JPA repository's query by example does.
+    private static class ExamplePredicate implements Predicate<BankAccount> {
+
+        private final Example<? extends BankAccount> example;
+        private final ExampleMatcherAccessor accessor;
+
+        private ExamplePredicate(Example<? extends BankAccount> example) {
+            this.example = example;
+            this.accessor = new ExampleMatcherAccessor(example.getMatcher());
+        }
+
+        @Override
+        public boolean test(BankAccount bankAccount) {
+            if (!example.getProbeType().isInstance(bankAccount)) {
+                return false;
+            }
+
+            BankAccount probe = example.getProbe();
+            Boolean[] matches = {
+                    matches("id", probe.getId(), bankAccount.getId()),
+                    matches("number", probe.getNumber(), bankAccount.getNumber()),
+                    matches("balance", probe.getBalance(), bankAccount.getBalance()),
+                    matches("version", probe.getVersion(), bankAccount.getVersion())
+            };
+            Stream<Boolean> specified = Arrays.stream(matches).filter(match -> match != null);
+
+            return example.getMatcher().isAllMatching() ? specified.allMatch(match -> match) : specified.anyMatch(match -> match);
+        }
+
+        // Null when the property does not take part in the match.
+        private Boolean matches(String path, Object probeValue, Object value) {
+            if (accessor.isIgnoredPath(path)) {
+                return null;
+            }
+
+            Object expected = accessor.getValueTransformerForPath(path).apply(Optional.ofNullable(probeValue)).orElse(null);
+
+            if (expected == null) {
+                return accessor.getNullHandler() == ExampleMatcher.NullHandler.INCLUDE ? value == null : null;
+            }
+
+            if (!(expected instanceof String string) || value == null) {
+                return expected.equals(value);
+            }
+
+            String actual = (String) value;
+
+            if (accessor.isIgnoreCaseForPath(path)) {
+                string = string.toLowerCase(Locale.ROOT);
+                actual = actual.toLowerCase(Locale.ROOT);
+            }
+
+            return switch (accessor.getStringMatcherForPath(path)) {
+                case DEFAULT, EXACT -> actual.equals(string);
+                case STARTING -> actual.startsWith(string);
+                case ENDING -> actual.endsWith(string);
+                case CONTAINING -> actual.contains(string);
+                case REGEX -> Pattern.compile(string).matcher(actual).matches();
+            };
+        }
+    }
+
+    // The fluent query of findBy, run over a scan; projected properties are not narrowed, every row
+    // is read whole anyway.
+    private class ExampleQuery<S extends BankAccount, R> implements FluentQuery.FetchableFluentQuery<R> {
+
+        private final Example<S> example;
+        private final Class<R> resultType;
+        private final Sort sort;
+
+        private ExampleQuery(Example<S> example, Class<R> resultType, Sort sort) {
+            this.example = example;
+            this.resultType = resultType;
+            this.sort = sort;
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> sortBy(Sort sort) {
+            return new ExampleQuery<>(example, resultType, this.sort.and(sort));
+        }
+
+        @Override
+        public <P> FluentQuery.FetchableFluentQuery<P> as(Class<P> resultType) {
+            return new ExampleQuery<>(example, resultType, sort);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> project(Collection<String> properties) {
+            return this;
+        }
+
+        @Override
+        public R oneValue() {
+            List<R> results = all();
+
+            if (results.size() > 1) {
+                throw new IncorrectResultSizeDataAccessException(1, results.size());
+            }
+
+            return results.isEmpty() ? null : results.get(0);
+        }
+
+        @Override
+        public R firstValue() {
+            List<R> results = all();
+            return results.isEmpty() ? null : results.get(0);
+        }
+
+        @Override
+        public List<R> all() {
+            return stream().toList();
+        }
+
+        @Override
+        public Page<R> page(Pageable pageable) {
+            List<BankAccount> bankAccounts = sorted(scan(new ExamplePredicate(example)), sort.and(pageable.getSort()));
+            return new PageImpl<>(InMemoryBankAccountRepository.page(bankAccounts, pageable), pageable, bankAccounts.size()).map(this::convert);
+        }
+
+        @Override
+        public Stream<R> stream() {
+            return sorted(scan(new ExamplePredicate(example)), sort).stream().map(this::convert);
+        }
+
+        @Override
+        public long count() {
+            return InMemoryBankAccountRepository.this.count(example);
+        }
+
+        @Override
+        public boolean exists() {
+            return InMemoryBankAccountRepository.this.exists(example);
+        }
+
+        private R convert(BankAccount bankAccount) {
+            return resultType.isInstance(bankAccount) ? resultType.cast(bankAccount) : PROJECTIONS.createProjection(resultType, bankAccount);
+        }
+    }
+
+    // One slot per account ever inserted, in id order; a deleted slot keeps its id (so the ids stay
+    // sorted for binary search) with version DELETED until the next compaction.
+    private static class Columns {
+
+        private static final long DELETED = -1;
+
+        private final long[] ids;
+        private final byte[][] numbers;
+        private final int[] numberHashes;
+        private final double[] balances;
+        private final long[] versions;
+        private int used;
+
+        private Columns(int capacity) {
+            this.ids = new long[capacity];
+            this.numbers = new byte[capacity][];
+            this.numberHashes = new int[capacity];
+            this.balances = new double[capacity];
+            this.versions = new long[capacity];
+        }
+
+        private int capacity() {
+            return ids.length;
+        }
+
+        private void set(int slot, long id, byte[] number, Double balance, long version) {
+            ids[slot] = id;
+            numbers[slot] = number;
+            numberHashes[slot] = Arrays.hashCode(number);
+            balances[slot] = balance == null ? Double.NaN : balance;
+            versions[slot] = version;
+        }
+
+        private Row row(int slot) {
+            double balance = balances[slot];
+            byte[] number = numbers[slot];
+            return new Row(ids[slot], number == null ? null : new String(number, StandardCharsets.UTF_8),
+                    Double.isNaN(balance) ? null : balance, versions[slot]);
+        }
+
+        private BankAccount toBankAccount(int slot) {
+            if (slot < 0 || slot >= used || versions[slot] == DELETED) {
+                return null;
+            }
+
+            Row row = row(slot);
+            return new BankAccount(row.id, row.number, row.balance, row.version);
+        }
+    }
+
+    // Linear probing over ids, removed entries are backward-shifted so lookups never see tombstones.
+    private static class IdTable {
+
+        private final long[] keys;
+        private final int[] slots;
+        private final int mask;
+        private int size;
+
+        private IdTable(int capacity) {
+            int tableSize = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+            this.keys = new long[tableSize];
+            this.slots = new int[tableSize];
+            this.mask = tableSize - 1;
+        }
+
+        private int get(long id) {
+            for (int i = index(id), probes = 0; keys[i] != 0 && probes <= mask; i = (i + 1) & mask, probes++) {
+                if (keys[i] == id) {
+                    return slots[i];
+                }
+            }
+
+            return -1;
+        }
+
+        private IdTable put(long id, int slot) {
+            if ((size + 1) * 2 > keys.length) {
+                IdTable resized = new IdTable(keys.length * 2);
+
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] != 0) {
+                        resized.put(keys[i], slots[i]);
+                    }
+                }
+
+                return resized.put(id, slot);
+            }
+
+            int i = index(id);
+
+            while (keys[i] != 0 && keys[i] != id) {
+                i = (i + 1) & mask;
+            }
+
+            if (keys[i] == 0) {
+                size++;
+            }
+
+            keys[i] = id;
+            slots[i] = slot;
+            return this;
+        }
+
+        private void remove(long id) {
+            int i = index(id);
+
+            while (keys[i] != id) {
+                if (keys[i] == 0) {
+                    return;
+                }
+
+                i = (i + 1) & mask;
+            }
+
+            for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                int home = index(keys[j]);
+
+                if (i <= j ? (i < home && home <= j) : (i < home || home <= j)) {
+                    continue;
+                }
+
+                keys[i] = keys[j];
+                slots[i] = slots[j];
+                i = j;
+            }
+
+            keys[i] = 0;
+            size--;
+        }
+
+        private int index(long id) {
+            return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+
+    // Linear probing over the number column: entries are slot + 1, compared by hash and then bytes.
+    private static class NumberTable {
+
+        private final int[] entries;
+        private final int mask;
+        private int size;
+
+        private NumberTable(int capacity) {
+            int tableSize = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+            this.entries = new int[tableSize];
+            this.mask = tableSize - 1;
+        }
+
+        private int get(Columns columns, byte[] number) {
+            int hash = Arrays.hashCode(number);
+
+            for (int i = hash & mask, probes = 0; entries[i] != 0 && probes <= mask; i = (i + 1) & mask, probes++) {
+                int slot = entries[i] - 1;
+
+                if (columns.numberHashes[slot] == hash && Arrays.equals(columns.numbers[slot], number)) {
+                    return slot;
+                }
+            }
+
+            return -1;
+        }
+
+        private NumberTable put(Columns columns, int slot) {
+            if ((size + 1) * 2 > entries.length) {
+                NumberTable resized = new NumberTable(entries.length * 2);
+
+                for (int entry : entries) {
+                    if (entry != 0) {
+                        resized.put(columns, entry - 1);
+                    }
+                }
+
+                return resized.put(columns, slot);
+            }
+
+            int i = columns.numberHashes[slot] & mask;
+
+            while (entries[i] != 0) {
+                i = (i + 1) & mask;
+            }
+
+            entries[i] = slot + 1;
+            size++;
+            return this;
+        }
+
+        private void remove(Columns columns, int slot) {
+            int i = columns.numberHashes[slot] & mask;
+
+            while (entries[i] != slot + 1) {
+                if (entries[i] == 0) {
+                    return;
+                }
+
+                i = (i + 1) & mask;
+            }
+
+            for (int j = (i + 1) & mask; entries[j] != 0; j = (j + 1) & mask) {
+                int home = columns.numberHashes[entries[j] - 1] & mask;
+
+                if (i <= j ? (i < home && home <= j) : (i < home || home <= j)) {
+                    continue;
+                }
+
+                entries[i] = entries[j];
+                i = j;
+            }
+
+            entries[i] = 0;
+            size--;
+        }
+    }
+}
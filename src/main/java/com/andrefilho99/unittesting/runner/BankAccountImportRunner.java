@@ -0,0 +1,76 @@
+package com.andrefilho99.unittesting.runner;
+
+import com.andrefilho99.unittesting.dto.BankAccountFileFormat;
+import com.andrefilho99.unittesting.dto.BankAccountImportReport;
+import com.andrefilho99.unittesting.service.BankAccountImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "bank-account.import.file")
+@Component
+public class BankAccountImportRunner implements ApplicationRunner {
+
+    private final BankAccountImportService bankAccountImportService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${bank-account.import.file}")
+    private Path file;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        String fileName = file.getFileName().toString();
+        boolean gzip = fileName.endsWith(".gz");
+        String baseName = gzip ? fileName.substring(0, fileName.length() - 3) : fileName;
+        BankAccountFileFormat format = BankAccountFileFormat.of(baseName.substring(baseName.lastIndexOf('.') + 1));
+
+        Path checkpointFile = file.resolveSibling(fileName + ".checkpoint");
+        Path reportFile = file.resolveSibling(fileName + ".report.json");
+        long resumeFrom = Files.exists(checkpointFile) ? Long.parseLong(Files.readString(checkpointFile).trim()) : 0;
+
+        if (resumeFrom > 0) {
+            log.info("Resuming import of {} after row {}", file, resumeFrom);
+        }
+
+        BankAccountImportReport report;
+
+        try (InputStream inputStream = gzip ? new GZIPInputStream(Files.newInputStream(file)) : Files.newInputStream(file)) {
+            report = bankAccountImportService.importAll(format, inputStream, resumeFrom, checkpoint -> saveCheckpoint(checkpointFile, checkpoint));
+        }
+
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+
+        if (!report.getCompleted()) {
+            throw new IllegalStateException(String.format("Import of %s stopped at row %d: %s See %s.",
+                    file, report.getCheckpoint(), report.getError(), reportFile));
+        }
+
+        Files.deleteIfExists(checkpointFile);
+        log.info("Import of {} finished, report written to {}", file, reportFile);
+    }
+
+    private void saveCheckpoint(Path checkpointFile, long checkpoint) {
+        try {
+            Path temporaryFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+            Files.writeString(temporaryFile, Long.toString(checkpoint));
+            Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.andrefilho99.unittesting.service;
+
+import com.andrefilho99.unittesting.cache.BankAccountAggregates;
+import com.andrefilho99.unittesting.cache.BankAccountBalanceIndex;
+import com.andrefilho99.unittesting.cache.BankAccountChangeCounter;
+import com.andrefilho99.unittesting.cache.BankAccountChangeFeed;
+import com.andrefilho99.unittesting.cache.BankAccountIdFilter;
+import com.andrefilho99.unittesting.cache.BankAccountNumberIndex;
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.dto.BankAccountBatchResult;
+import com.andrefilho99.unittesting.exceptions.DataIntegrityViolations;
+import com.andrefilho99.unittesting.repository.BankAccountRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Timed(value = "bank.account.service", histogram = true)
+@Service
+public class BankAccountBatchService {
+
+    private final BankAccountRepository bankAccountRepository;
+    private final BankAccountChangeCounter bankAccountChangeCounter;
+    private final BankAccountChangeFeed bankAccountChangeFeed;
+    private final BankAccountAggregates bankAccountAggregates;
+    private final BankAccountBalanceIndex bankAccountBalanceIndex;
+    private final BankAccountNumberIndex bankAccountNumberIndex;
+    private final BankAccountIdFilter bankAccountIdFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public BankAccountBatchService(BankAccountRepository bankAccountRepository,
+                                   BankAccountChangeCounter bankAccountChangeCounter,
+                                   BankAccountChangeFeed bankAccountChangeFeed,
+                                   BankAccountAggregates bankAccountAggregates,
+                                   BankAccountBalanceIndex bankAccountBalanceIndex,
+                                   BankAccountNumberIndex bankAccountNumberIndex,
+                                   BankAccountIdFilter bankAccountIdFilter,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${bank-account.batch.chunk-size:500}") int chunkSize) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.bankAccountChangeCounter = bankAccountChangeCounter;
+        this.bankAccountChangeFeed = bankAccountChangeFeed;
+        this.bankAccountAggregates = bankAccountAggregates;
+        this.bankAccountBalanceIndex = bankAccountBalanceIndex;
+        this.bankAccountNumberIndex = bankAccountNumberIndex;
+        this.bankAccountIdFilter = bankAccountIdFilter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public List<BankAccountBatchResult> createAll(Stream<BankAccount> bankAccounts) {
+        List<BankAccountBatchResult> results = new ArrayList<>();
+        List<BankAccount> chunk = new ArrayList<>(chunkSize);
+
+        bankAccounts.forEachOrdered(bankAccount -> {
+            chunk.add(bankAccount);
+
+            if (chunk.size() == chunkSize) {
+                results.addAll(saveChunk(chunk, results.size()));
+                chunk.clear();
+            }
+        });
+
+        if (!chunk.isEmpty()) {
+            results.addAll(saveChunk(chunk, results.size()));
+        }
+
+        return results;
+    }
+
+    public List<BankAccountBatchResult> saveChunk(List<BankAccount> chunk, int firstIndex) {
+        List<BankAccountBatchResult> results = new ArrayList<>(chunk.size());
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                bankAccountRepository.saveAll(chunk);
+                bankAccountRepository.flush();
+                chunk.forEach(this::created);
+                bankAccountChangeCounter.changed();
+            });
+
+            for (BankAccount bankAccount : chunk) {
+                results.add(created(firstIndex + results.size(), bankAccount));
+            }
+        } catch (DataIntegrityViolationException e) {
+            for (BankAccount bankAccount : chunk) {
+                results.add(saveOne(firstIndex + results.size(), bankAccount));
+            }
+        }
+
+        return results;
+    }
+
+    private BankAccountBatchResult saveOne(int index, BankAccount bankAccount) {
+        bankAccount.setId(null);
+        bankAccount.setVersion(null);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                bankAccountRepository.saveAndFlush(bankAccount);
+                created(bankAccount);
+                bankAccountChangeCounter.changed();
+            });
+            return created(index, bankAccount);
+        } catch (DataIntegrityViolationException e) {
+            if (!DataIntegrityViolations.isDuplicateNumber(e)) {
+                return BankAccountBatchResult
+                        .builder()
+                        .index((long) index)
+                        .status(HttpStatus.BAD_REQUEST.value())
+                        .error("Bank account violates a data constraint.")
+                        .build();
+            }
+
+            return BankAccountBatchResult
+                    .builder()
+                    .index((long) index)
+                    .status(HttpStatus.CONFLICT.value())
+                    .error(String.format("Bank account with number %s already exists.", bankAccount.getNumber()))
+                    .build();
+        }
+    }
+
+    private void created(BankAccount bankAccount) {
+        bankAccountAggregates.created(bankAccount.getBalance());
+        bankAccountBalanceIndex.updated(bankAccount.getId(), bankAccount.getBalance(), bankAccount.getVersion());
+        bankAccountNumberIndex.updated(bankAccount.getId(), null, bankAccount.getNumber(), bankAccount.getVersion());
+        bankAccountIdFilter.created(bankAccount.getId());
+        bankAccountChangeFeed.created(bankAccount.getId(), bankAccount.getNumber(), bankAccount.getBalance(), bankAccount.getVersion());
+    }
+
+    private BankAccountBatchResult created(int index, BankAccount bankAccount) {
+        return BankAccountBatchResult
+                .builder()
+                .index((long) index)
+                .id(bankAccount.getId())
+                .status(HttpStatus.CREATED.value())
+                .build();
+    }
+}
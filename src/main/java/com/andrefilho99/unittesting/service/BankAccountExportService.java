@@ -0,0 +1,102 @@
+package com.andrefilho99.unittesting.service;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.dto.BankAccountFileFormat;
+import com.andrefilho99.unittesting.dto.BankAccountResponse;
+import com.andrefilho99.unittesting.mapper.BankAccountMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@RequiredArgsConstructor
+@Timed(value = "bank.account.service", histogram = true)
+@Service
+public class BankAccountExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BankAccountService bankAccountService;
+    private final BankAccountMapper bankAccountMapper;
+    private final ObjectMapper objectMapper;
+
+    public void export(BankAccountFileFormat format, OutputStream outputStream) throws IOException {
+        switch (format) {
+            case CSV -> exportCsv(outputStream);
+            case NDJSON -> exportNdjson(outputStream);
+        }
+    }
+
+    private void exportCsv(OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write("id,number,balance\n");
+
+        try {
+            bankAccountService.streamAll(bankAccount -> writeCsvRow(writer, bankAccount));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+    }
+
+    private void writeCsvRow(Writer writer, BankAccount bankAccount) {
+        try {
+            writer.write(String.valueOf(bankAccount.getId()));
+            writer.write(',');
+            writeCsvValue(writer, bankAccount.getNumber());
+            writer.write(',');
+
+            if (bankAccount.getBalance() != null) {
+                writer.write(bankAccount.getBalance().toString());
+            }
+
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private void exportNdjson(OutputStream outputStream) throws IOException {
+        try (SequenceWriter writer = objectMapper
+                .writerFor(BankAccountResponse.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(outputStream)) {
+            bankAccountService.streamAll(bankAccount -> {
+                try {
+                    writer.write(bankAccountMapper.toBankAccountResponse(bankAccount));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.andrefilho99.unittesting.service;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.dto.BankAccountBatchResult;
+import com.andrefilho99.unittesting.dto.BankAccountFileFormat;
+import com.andrefilho99.unittesting.dto.BankAccountImportReport;
+import com.andrefilho99.unittesting.dto.BankAccountRequest;
+import com.andrefilho99.unittesting.exceptions.InvalidBankAccountOperationException;
+import com.andrefilho99.unittesting.mapper.BankAccountMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+@Slf4j
+@Timed(value = "bank.account.service", histogram = true)
+@Service
+public class BankAccountImportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BankAccountBatchService bankAccountBatchService;
+    private final BankAccountMapper bankAccountMapper;
+    private final ObjectMapper objectMapper;
+    private final int maxPendingChunks;
+    private final int maxRejections;
+
+    public BankAccountImportService(BankAccountBatchService bankAccountBatchService,
+                                    BankAccountMapper bankAccountMapper,
+                                    ObjectMapper objectMapper,
+                                    @Value("${bank-account.import.max-pending-chunks:4}") int maxPendingChunks,
+                                    @Value("${bank-account.import.max-rejections:1000}") int maxRejections) {
+        this.bankAccountBatchService = bankAccountBatchService;
+        this.bankAccountMapper = bankAccountMapper;
+        this.objectMapper = objectMapper;
+        this.maxPendingChunks = maxPendingChunks;
+        this.maxRejections = maxRejections;
+    }
+
+    public BankAccountImportReport importAll(BankAccountFileFormat format, InputStream inputStream, long resumeFrom) throws IOException {
+        return importAll(format, inputStream, resumeFrom, checkpoint -> {
+        });
+    }
+
+    public BankAccountImportReport importAll(BankAccountFileFormat format, InputStream inputStream, long resumeFrom,
+                                             LongConsumer checkpointListener) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        Function<String, BankAccount> parser = format == BankAccountFileFormat.CSV ? csvParser(reader.readLine()) : this::parseNdjson;
+
+        ImportRun run = new ImportRun(resumeFrom, checkpointListener);
+        ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "bank-account-import"));
+        Semaphore pendingChunks = new Semaphore(maxPendingChunks);
+        int chunkSize = bankAccountBatchService.getChunkSize();
+        long startTime = System.nanoTime();
+        long row = 0;
+        String error = null;
+
+        try {
+            ImportChunk chunk = new ImportChunk(chunkSize);
+            String line;
+
+            while (run.failure == null && (line = reader.readLine()) != null) {
+                if (line.isBlank() || ++row <= resumeFrom) {
+                    continue;
+                }
+
+                try {
+                    chunk.add(row, parser.apply(line));
+                } catch (IllegalArgumentException e) {
+                    chunk.reject(row, e.getMessage());
+                }
+
+                if (chunk.size() == chunkSize) {
+                    submit(writer, pendingChunks, run, chunk, row);
+                    chunk = new ImportChunk(chunkSize);
+                }
+            }
+
+            if (run.failure == null && row > resumeFrom) {
+                submit(writer, pendingChunks, run, chunk, row);
+            }
+        } catch (IOException | InterruptedException e) {
+            error = e.getMessage();
+        } finally {
+            writer.shutdown();
+            awaitTermination(writer);
+        }
+
+        if (run.failure != null) {
+            error = run.failure.getMessage();
+        }
+
+        long elapsedNanos = System.nanoTime() - startTime;
+        long rows = run.checkpoint - resumeFrom;
+        BankAccountImportReport report = BankAccountImportReport
+                .builder()
+                .completed(error == null)
+                .rows(rows)
+                .imported(run.imported)
+                .rejected(run.rejected)
+                .checkpoint(run.checkpoint)
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .rowsPerSecond(elapsedNanos == 0 ? 0.0 : rows * 1e9 / elapsedNanos)
+                .error(error)
+                .rejections(run.rejections)
+                .build();
+
+        log.info("Imported {} of {} rows ({} rejected) in {} ms, {} rows/s, checkpoint {}",
+                report.getImported(), report.getRows(), report.getRejected(), report.getElapsedMillis(),
+                Math.round(report.getRowsPerSecond()), report.getCheckpoint());
+
+        return report;
+    }
+
+    private void submit(ExecutorService writer, Semaphore pendingChunks, ImportRun run, ImportChunk chunk, long lastRow) throws InterruptedException {
+        chunk.lastRow = lastRow;
+        pendingChunks.acquire();
+        writer.execute(() -> {
+            try {
+                if (run.failure == null) {
+                    run.write(chunk);
+                }
+            } catch (RuntimeException e) {
+                run.failure = e;
+            } finally {
+                pendingChunks.release();
+            }
+        });
+    }
+
+    private void awaitTermination(ExecutorService writer) {
+        try {
+            while (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("Waiting for pending import chunks to be written");
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Function<String, BankAccount> csvParser(String header) {
+        List<String> columns = header == null ? List.of() : parseCsvLine(header);
+        int numberColumn = indexOf(columns, "number");
+        int balanceColumn = indexOf(columns, "balance");
+
+        if (header != null && (numberColumn < 0 || balanceColumn < 0)) {
+            throw new InvalidBankAccountOperationException("CSV header must contain number and balance columns.");
+        }
+
+        return line -> {
+            List<String> values = parseCsvLine(line);
+
+            if (values.size() != columns.size()) {
+                throw new IllegalArgumentException(String.format("Expected %d columns but found %d.", columns.size(), values.size()));
+            }
+
+            return validated(new BankAccount(null, values.get(numberColumn), parseBalance(values.get(balanceColumn))));
+        };
+    }
+
+    private BankAccount parseNdjson(String line) {
+        try {
+            return validated(bankAccountMapper.toBankAccount(objectMapper.readValue(line, BankAccountRequest.class)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON.");
+        }
+    }
+
+    private BankAccount validated(BankAccount bankAccount) {
+        if (bankAccount.getNumber() == null || bankAccount.getNumber().isBlank()) {
+            throw new IllegalArgumentException("Number is required.");
+        }
+
+        if (bankAccount.getBalance() == null) {
+            throw new IllegalArgumentException("Balance is required.");
+        }
+
+        return bankAccount;
+    }
+
+    private Double parseBalance(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid balance %s.", value));
+        }
+    }
+
+    private int indexOf(List<String> columns, String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).trim().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted value.");
+        }
+
+        values.add(value.toString());
+
+        return values;
+    }
+
+    private static class ImportChunk {
+
+        private final List<BankAccount> bankAccounts;
+        private final List<Long> rows;
+        private final List<BankAccountBatchResult> rejections = new ArrayList<>();
+        private long lastRow;
+
+        private ImportChunk(int chunkSize) {
+            this.bankAccounts = new ArrayList<>(chunkSize);
+            this.rows = new ArrayList<>(chunkSize);
+        }
+
+        private void add(long row, BankAccount bankAccount) {
+            bankAccounts.add(bankAccount);
+            rows.add(row);
+        }
+
+        private void reject(long row, String error) {
+            rejections.add(BankAccountBatchResult
+                    .builder()
+                    .index(row)
+                    .status(HttpStatus.BAD_REQUEST.value())
+                    .error(error)
+                    .build());
+        }
+
+        private int size() {
+            return bankAccounts.size() + rejections.size();
+        }
+    }
+
+    private class ImportRun {
+
+        private final LongConsumer checkpointListener;
+        private final List<BankAccountBatchResult> rejections = new ArrayList<>();
+        private volatile RuntimeException failure;
+        private long checkpoint;
+        private long imported;
+        private long rejected;
+
+        private ImportRun(long checkpoint, LongConsumer checkpointListener) {
+            this.checkpoint = checkpoint;
+            this.checkpointListener = checkpointListener;
+        }
+
+        private void write(ImportChunk chunk) {
+            List<BankAccountBatchResult> chunkRejections = new ArrayList<>(chunk.rejections);
+
+            if (!chunk.bankAccounts.isEmpty()) {
+                List<BankAccountBatchResult> results = bankAccountBatchService.saveChunk(chunk.bankAccounts, 0);
+
+                for (BankAccountBatchResult result : results) {
+                    if (result.getStatus() == HttpStatus.CREATED.value()) {
+                        imported++;
+                    } else {
+                        result.setIndex(chunk.rows.get(result.getIndex().intValue()));
+                        chunkRejections.add(result);
+                    }
+                }
+            }
+
+            chunkRejections.sort(Comparator.comparing(BankAccountBatchResult::getIndex));
+
+            for (BankAccountBatchResult rejection : chunkRejections) {
+                rejected++;
+
+                if (rejections.size() < maxRejections) {
+                    rejections.add(rejection);
+                }
+            }
+
+            checkpoint = chunk.lastRow;
+            checkpointListener.accept(checkpoint);
+        }
+    }
+}
@@ -1,45 +1,471 @@
 package com.andrefilho99.unittesting.service;
 
+import com.andrefilho99.unittesting.cache.BankAccountAggregates;
+import com.andrefilho99.unittesting.cache.BankAccountBalanceIndex;
+import com.andrefilho99.unittesting.cache.BankAccountCache;
+import com.andrefilho99.unittesting.cache.BankAccountChangeCounter;
+import com.andrefilho99.unittesting.cache.BankAccountChangeFeed;
+import com.andrefilho99.unittesting.cache.BankAccountIdFilter;
+import com.andrefilho99.unittesting.cache.BankAccountNumberIndex;
 import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.dto.BankAccountChangeEvent;
+import com.andrefilho99.unittesting.dto.BankAccountStatsResponse;
 import com.andrefilho99.unittesting.exceptions.BankAccountNotFoundException;
+import com.andrefilho99.unittesting.exceptions.BankAccountVersionMismatchException;
+import com.andrefilho99.unittesting.exceptions.InsufficientFundsException;
+import com.andrefilho99.unittesting.exceptions.InvalidBankAccountOperationException;
+import com.andrefilho99.unittesting.repository.BankAccountBalance;
+import com.andrefilho99.unittesting.replica.ReplicaSession;
 import com.andrefilho99.unittesting.repository.BankAccountRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-@RequiredArgsConstructor
+@Timed(value = "bank.account.service", histogram = true)
 @Service
 public class BankAccountService {
 
+    private static final int MAX_IDS_PER_QUERY = 500;
+
     private final BankAccountRepository bankAccountRepository;
+    private final BankAccountCache bankAccountCache;
+    private final BankAccountChangeCounter bankAccountChangeCounter;
+    private final BankAccountChangeFeed bankAccountChangeFeed;
+    private final BankAccountAggregates bankAccountAggregates;
+    private final BankAccountBalanceIndex bankAccountBalanceIndex;
+    private final BankAccountNumberIndex bankAccountNumberIndex;
+    private final BankAccountIdFilter bankAccountIdFilter;
+    private final BankAccountWriteBehindQueue bankAccountWriteBehindQueue;
+    private final TransactionTemplate transactionTemplate;
+
+    public BankAccountService(BankAccountRepository bankAccountRepository,
+                              BankAccountCache bankAccountCache,
+                              BankAccountChangeCounter bankAccountChangeCounter,
+                              BankAccountChangeFeed bankAccountChangeFeed,
+                              BankAccountAggregates bankAccountAggregates,
+                              BankAccountBalanceIndex bankAccountBalanceIndex,
+                              BankAccountNumberIndex bankAccountNumberIndex,
+                              BankAccountIdFilter bankAccountIdFilter,
+                              BankAccountWriteBehindQueue bankAccountWriteBehindQueue,
+                              PlatformTransactionManager transactionManager) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.bankAccountCache = bankAccountCache;
+        this.bankAccountChangeCounter = bankAccountChangeCounter;
+        this.bankAccountChangeFeed = bankAccountChangeFeed;
+        this.bankAccountAggregates = bankAccountAggregates;
+        this.bankAccountBalanceIndex = bankAccountBalanceIndex;
+        this.bankAccountNumberIndex = bankAccountNumberIndex;
+        this.bankAccountIdFilter = bankAccountIdFilter;
+        this.bankAccountWriteBehindQueue = bankAccountWriteBehindQueue;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public String getChangeTag() {
+        return bankAccountChangeCounter.tag();
+    }
+
+    public long getLastChange() {
+        return bankAccountChangeFeed.last();
+    }
+
+    public List<BankAccountChangeEvent> getChanges(long after, int limit) {
+        return bankAccountChangeFeed.since(after, limit);
+    }
+
+    public List<BankAccountChangeEvent> awaitChanges(long after, int limit, Duration timeout) throws InterruptedException {
+        return bankAccountChangeFeed.await(after, limit, timeout);
+    }
+
+    public BankAccountStatsResponse getStats() {
+        return bankAccountAggregates.snapshot();
+    }
 
     public List<BankAccount> getAll() {
-        return bankAccountRepository.findAll();
+        return view(bankAccountRepository.findAll());
+    }
+
+    @Transactional(readOnly = true)
+    public List<BankAccount> getPage(Long after, int limit) {
+        return view(bankAccountRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, limit)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<BankAccount> getByBalance(Double minBalance, Double maxBalance, boolean descending, int limit) {
+        double min = minBalance == null ? -Double.MAX_VALUE : minBalance;
+        double max = maxBalance == null ? Double.MAX_VALUE : maxBalance;
+
+        if (bankAccountBalanceIndex.isEnabled()) {
+            return List.copyOf(getByIds(bankAccountBalanceIndex.findIds(min, max, descending, limit)).values());
+        }
+
+        Sort sort = Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, "balance", "id");
+
+        if (bankAccountWriteBehindQueue.pending() == 0) {
+            return bankAccountRepository.findByBalanceBetween(min, max, PageRequest.of(0, limit, sort));
+        }
+
+        // Pending balances are not in the table yet. Each pending account can take at most one row out
+        // of the range, so reading that many more rows still covers the page; pending accounts that
+        // moved into the range are merged in, then the page is filtered and ordered by the view.
+        List<BankAccount> pendingBankAccounts = bankAccountWriteBehindQueue.pendingAccounts();
+        Map<Long, BankAccount> bankAccountsById = new HashMap<>();
+        pendingBankAccounts.forEach(bankAccount -> bankAccountsById.put(bankAccount.getId(), bankAccount));
+        bankAccountRepository.findByBalanceBetween(min, max, PageRequest.of(0, limit + pendingBankAccounts.size(), sort))
+                .forEach(bankAccount -> bankAccountsById.put(bankAccount.getId(), bankAccount));
+
+        Comparator<BankAccount> order = Comparator.comparing(BankAccount::getBalance).thenComparing(BankAccount::getId);
+
+        return bankAccountsById.values()
+                .stream()
+                .map(bankAccountWriteBehindQueue::view)
+                .filter(bankAccount -> bankAccount.getBalance() != null && bankAccount.getBalance() >= min && bankAccount.getBalance() <= max)
+                .sorted(descending ? order.reversed() : order)
+                .limit(limit)
+                .toList();
+    }
+
+    // The accounts found for the given ids, keyed in request order; ids are read in chunks of
+    // MAX_IDS_PER_QUERY with one IN query each.
+    public Map<Long, BankAccount> getByIds(List<Long> ids) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(bankAccountIdFilter::mightExist)
+                .toList();
+        Map<Long, BankAccount> bankAccountsById = new HashMap<>();
+
+        for (int from = 0; from < distinctIds.size(); from += MAX_IDS_PER_QUERY) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + MAX_IDS_PER_QUERY, distinctIds.size()));
+            view(bankAccountRepository.findAllById(chunk)).forEach(bankAccount -> bankAccountsById.put(bankAccount.getId(), bankAccount));
+        }
+
+        Map<Long, BankAccount> bankAccounts = new LinkedHashMap<>();
+
+        for (Long id : distinctIds) {
+            BankAccount bankAccount = bankAccountsById.get(id);
+
+            if (bankAccount != null) {
+                bankAccounts.put(id, bankAccount);
+            }
+        }
+
+        return bankAccounts;
+    }
+
+    @Transactional(readOnly = true)
+    public List<BankAccount> search(String numberPrefix, int limit) {
+        if (!bankAccountNumberIndex.isEnabled()) {
+            return view(bankAccountRepository.findByNumberStartingWithOrderByNumberAsc(numberPrefix, PageRequest.of(0, limit)));
+        }
+
+        List<BankAccount> bankAccounts = new ArrayList<>();
+        String after = null;
+
+        while (bankAccounts.size() < limit) {
+            Map<String, Long> ids = bankAccountNumberIndex.find(numberPrefix, after, limit - bankAccounts.size());
+
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            Map<Long, BankAccount> bankAccountsById = view(bankAccountRepository.findAllById(List.copyOf(ids.values())))
+                    .stream()
+                    .collect(Collectors.toMap(BankAccount::getId, Function.identity()));
+
+            for (Map.Entry<String, Long> entry : ids.entrySet()) {
+                BankAccount bankAccount = bankAccountsById.get(entry.getValue());
+                after = entry.getKey();
+
+                if (bankAccount != null && after.equals(bankAccount.getNumber())) {
+                    bankAccounts.add(bankAccount);
+                } else {
+                    bankAccountNumberIndex.evict(after, entry.getValue());
+                }
+            }
+        }
+
+        return bankAccounts;
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<BankAccount> consumer) {
+        try (Stream<BankAccount> bankAccounts = bankAccountRepository.streamAll()) {
+            bankAccounts.forEach(bankAccount -> consumer.accept(bankAccountWriteBehindQueue.view(bankAccount)));
+        }
     }
 
     public BankAccount getById(Long id) {
-        return bankAccountRepository.findById(id).orElseThrow(
-                () -> new BankAccountNotFoundException(String.format("Bank account with id %d not found.", id))
-        );
+        if (!bankAccountIdFilter.mightExist(id)) {
+            throw notFound(id);
+        }
+
+        BankAccount bankAccount = findById(id);
+
+        if (bankAccount == null) {
+            throw notFound(id);
+        }
+
+        return bankAccount;
+    }
+
+    @Transactional(readOnly = true)
+    public BankAccount getByNumber(String number) {
+        Long id = bankAccountCache.getId(number, key -> {
+            BankAccount bankAccount = shared(() -> bankAccountRepository.findByNumber(key));
+            return bankAccount == null ? null : bankAccount.getId();
+        });
+
+        if (id != null) {
+            BankAccount bankAccount = findById(id);
+
+            if (bankAccount != null && number.equals(bankAccount.getNumber())) {
+                return bankAccount;
+            }
+
+            bankAccountCache.evictNumber(number);
+
+            bankAccount = bankAccountRepository.findByNumber(number);
+
+            if (bankAccount != null) {
+                return bankAccount;
+            }
+        }
+
+        throw new BankAccountNotFoundException(String.format("Bank account with number %s not found.", number));
     }
 
     public BankAccount create(BankAccount bankAccount) {
-        return bankAccountRepository.save(bankAccount);
+        BankAccount savedBankAccount = bankAccountRepository.save(bankAccount);
+        bankAccountAggregates.created(savedBankAccount.getBalance());
+        bankAccountBalanceIndex.updated(savedBankAccount.getId(), savedBankAccount.getBalance(), savedBankAccount.getVersion());
+        bankAccountNumberIndex.updated(savedBankAccount.getId(), null, savedBankAccount.getNumber(), savedBankAccount.getVersion());
+        bankAccountIdFilter.created(savedBankAccount.getId());
+        bankAccountChangeFeed.created(savedBankAccount.getId(), savedBankAccount.getNumber(), savedBankAccount.getBalance(), savedBankAccount.getVersion());
+        bankAccountChangeCounter.changed();
+        return savedBankAccount;
     }
 
     public BankAccount update(Long id, BankAccount bankAccount) {
-        BankAccount updatedBankAccount = getById(id);
+        return update(id, bankAccount, null);
+    }
+
+    public BankAccount update(Long id, BankAccount bankAccount, Long expectedVersion) {
+        if (expectedVersion == null) {
+            BankAccount deferred = bankAccountWriteBehindQueue.update(id, bankAccount, this::loadById);
+
+            if (deferred != null) {
+                bankAccountBalanceIndex.updated(id, deferred.getBalance(), deferred.getVersion());
+                bankAccountChangeFeed.updated(id, deferred.getNumber(), deferred.getBalance(), deferred.getVersion());
+                bankAccountChangeCounter.changed();
+                return deferred;
+            }
+        }
+
+        return transactionTemplate.execute(status -> {
+            bankAccountWriteBehindQueue.lock(id);
+
+            if (expectedVersion == null) {
+                BankAccountBalance previous = bankAccountRepository.update(id, bankAccount.getNumber(), bankAccount.getBalance())
+                        .orElseThrow(() -> notFound(id));
 
-        updatedBankAccount.setNumber(bankAccount.getNumber());
-        updatedBankAccount.setBalance(bankAccount.getBalance());
+                changed(id);
+                updated(previous, bankAccount.getNumber(), bankAccount.getBalance());
 
-        return bankAccountRepository.save(updatedBankAccount);
+                return new BankAccount(id, bankAccount.getNumber(), bankAccount.getBalance(), previous.getVersion() + 1);
+            }
+
+            BankAccountBalance previous = bankAccountRepository.updateIfVersion(id, bankAccount.getNumber(), bankAccount.getBalance(), expectedVersion)
+                    .orElseThrow(() -> versionMismatchOrNotFound(id, expectedVersion));
+
+            changed(id);
+            updated(previous, bankAccount.getNumber(), bankAccount.getBalance());
+
+            return new BankAccount(id, bankAccount.getNumber(), bankAccount.getBalance(), expectedVersion + 1);
+        });
+    }
+
+    @Transactional
+    public BankAccount patch(Long id, BankAccount bankAccount) {
+        bankAccountWriteBehindQueue.lock(id);
+
+        BankAccountBalance previous = bankAccountRepository.patch(id, bankAccount.getNumber(), bankAccount.getBalance())
+                .orElseThrow(() -> notFound(id));
+
+        changed(id);
+        updated(previous,
+                bankAccount.getNumber() != null ? bankAccount.getNumber() : previous.getNumber(),
+                bankAccount.getBalance() != null ? bankAccount.getBalance() : previous.getBalance());
+
+        return bankAccountRepository.findById(id).orElseThrow(() -> notFound(id));
     }
 
+    @Transactional
     public void delete(Long id) {
-        BankAccount bankAccount = getById(id);
+        bankAccountWriteBehindQueue.lock(id);
+
+        BankAccountBalance previous = bankAccountRepository.deleteBankAccountById(id)
+                .orElseThrow(() -> notFound(id));
+
+        changed(id);
+        deleted(previous);
+    }
+
+    @Transactional
+    public void delete(Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            delete(id);
+            return;
+        }
+
+        bankAccountWriteBehindQueue.lock(id);
+
+        BankAccountBalance previous = bankAccountRepository.deleteBankAccountByIdIfVersion(id, expectedVersion)
+                .orElseThrow(() -> versionMismatchOrNotFound(id, expectedVersion));
+
+        changed(id);
+        deleted(previous);
+    }
+
+    @Transactional
+    public BankAccount credit(Long id, Double amount) {
+        requirePositive(amount);
+        bankAccountWriteBehindQueue.lock(id);
+        applyCredit(id, amount);
+
+        return bankAccountRepository.findById(id).orElseThrow(() -> notFound(id));
+    }
+
+    @Transactional
+    public BankAccount debit(Long id, Double amount) {
+        requirePositive(amount);
+        bankAccountWriteBehindQueue.lock(id);
+        applyDebit(id, amount);
+
+        return bankAccountRepository.findById(id).orElseThrow(() -> notFound(id));
+    }
+
+    @Transactional
+    public void transfer(Long fromId, Long toId, Double amount) {
+        requirePositive(amount);
+
+        if (fromId == null || toId == null) {
+            throw new InvalidBankAccountOperationException("Transfer requires both fromId and toId.");
+        }
+
+        if (fromId.equals(toId)) {
+            throw new InvalidBankAccountOperationException("Cannot transfer to the same bank account.");
+        }
+
+        bankAccountWriteBehindQueue.lock(fromId, toId);
+
+        if (fromId < toId) {
+            applyDebit(fromId, amount);
+            applyCredit(toId, amount);
+        } else {
+            applyCredit(toId, amount);
+            applyDebit(fromId, amount);
+        }
+    }
+
+    private void applyCredit(Long id, Double amount) {
+        changed(id);
+
+        BankAccountBalance previous = bankAccountRepository.credit(id, amount)
+                .orElseThrow(() -> notFound(id));
+
+        updated(previous, previous.getNumber(), previous.getBalance() + amount);
+    }
+
+    private void applyDebit(Long id, Double amount) {
+        changed(id);
+
+        BankAccountBalance previous = bankAccountRepository.debit(id, amount).orElseThrow(() -> {
+            if (!bankAccountRepository.existsById(id)) {
+                return notFound(id);
+            }
+
+            return new InsufficientFundsException(String.format("Bank account with id %d has insufficient funds.", id));
+        });
+
+        updated(previous, previous.getNumber(), previous.getBalance() - amount);
+    }
+
+    private void requirePositive(Double amount) {
+        if (amount == null || amount <= 0) {
+            throw new InvalidBankAccountOperationException("Amount must be greater than zero.");
+        }
+    }
+
+    private BankAccount findById(Long id) {
+        BankAccount pendingBankAccount = bankAccountWriteBehindQueue.get(id);
+        return pendingBankAccount != null ? pendingBankAccount : loadById(id);
+    }
+
+    private BankAccount loadById(Long id) {
+        return bankAccountCache.get(id, key -> shared(() -> bankAccountRepository.findById(key).orElse(null)));
+    }
+
+    // A cache load is handed to every caller that asks while it runs and kept for later ones, so it
+    // may only read from the replica once that has every committed write, not just the caller's.
+    private <T> T shared(Supplier<T> reader) {
+        return ReplicaSession.requiring(bankAccountChangeFeed.last(), reader);
+    }
+
+    private List<BankAccount> view(List<BankAccount> bankAccounts) {
+        if (bankAccountWriteBehindQueue.pending() == 0) {
+            return bankAccounts;
+        }
+
+        return bankAccounts.stream().map(bankAccountWriteBehindQueue::view).toList();
+    }
+
+    private void updated(BankAccountBalance previous, String number, Double balance) {
+        bankAccountAggregates.updated(previous.getBalance(), balance);
+        bankAccountBalanceIndex.updated(previous.getId(), balance, previous.getVersion() + 1);
+        bankAccountNumberIndex.updated(previous.getId(), previous.getNumber(), number, previous.getVersion() + 1);
+        bankAccountChangeFeed.updated(previous.getId(), number, balance, previous.getVersion() + 1);
+    }
+
+    private void deleted(BankAccountBalance previous) {
+        bankAccountAggregates.deleted(previous.getBalance());
+        bankAccountBalanceIndex.deleted(previous.getId());
+        bankAccountNumberIndex.deleted(previous.getId(), previous.getNumber());
+        bankAccountIdFilter.deleted(previous.getId());
+        bankAccountChangeFeed.deleted(previous.getId(), previous.getNumber());
+    }
+
+    private void changed(Long id) {
+        bankAccountCache.evict(id);
+        bankAccountChangeCounter.changed();
+    }
+
+    private RuntimeException versionMismatchOrNotFound(Long id, Long expectedVersion) {
+        if (!bankAccountRepository.existsById(id)) {
+            return notFound(id);
+        }
+
+        return new BankAccountVersionMismatchException(String.format("Bank account with id %d is no longer at version %d.", id, expectedVersion));
+    }
 
-        bankAccountRepository.delete(bankAccount);
+    private BankAccountNotFoundException notFound(Long id) {
+        return new BankAccountNotFoundException("Bank account with id " + id + " not found.");
     }
 }
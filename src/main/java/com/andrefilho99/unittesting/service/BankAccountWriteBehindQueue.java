@@ -0,0 +1,327 @@
+package com.andrefilho99.unittesting.service;
+
+import com.andrefilho99.unittesting.cache.BankAccountAggregates;
+import com.andrefilho99.unittesting.cache.BankAccountCache;
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.repository.BankAccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+@Slf4j
+public class BankAccountWriteBehindQueue implements AutoCloseable {
+
+    private static final int STRIPES = 16;
+
+    private final BankAccountRepository bankAccountRepository;
+    private final BankAccountCache bankAccountCache;
+    private final BankAccountAggregates bankAccountAggregates;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPending;
+    private final Stripe[] stripes;
+    private final ScheduledExecutorService flusher;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+
+    public BankAccountWriteBehindQueue(BankAccountRepository bankAccountRepository,
+                                       BankAccountCache bankAccountCache,
+                                       BankAccountAggregates bankAccountAggregates,
+                                       PlatformTransactionManager transactionManager,
+                                       int maxPending,
+                                       Duration flushInterval) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.bankAccountCache = bankAccountCache;
+        this.bankAccountAggregates = bankAccountAggregates;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxPending = maxPending;
+        this.stripes = new Stripe[STRIPES];
+
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "bank-account-write-behind"));
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private BankAccountWriteBehindQueue() {
+        this.bankAccountRepository = null;
+        this.bankAccountCache = null;
+        this.bankAccountAggregates = null;
+        this.transactionTemplate = null;
+        this.maxPending = 0;
+        this.stripes = null;
+        this.flusher = null;
+    }
+
+    public static BankAccountWriteBehindQueue disabled() {
+        return new BankAccountWriteBehindQueue();
+    }
+
+    public boolean isEnabled() {
+        return stripes != null;
+    }
+
+    public int pending() {
+        return pending.get();
+    }
+
+    public long coalesced() {
+        return coalesced.get();
+    }
+
+    public long flushed() {
+        return flushed.get();
+    }
+
+    public BankAccount get(Long id) {
+        return stripes == null ? null : stripe(id).bankAccounts.get(id);
+    }
+
+    // A snapshot: entries may be flushed or replaced while the caller reads them.
+    public List<BankAccount> pendingAccounts() {
+        List<BankAccount> bankAccounts = new ArrayList<>();
+
+        if (stripes != null) {
+            for (Stripe stripe : stripes) {
+                bankAccounts.addAll(stripe.bankAccounts.values());
+            }
+        }
+
+        return bankAccounts;
+    }
+
+    public BankAccount view(BankAccount bankAccount) {
+        BankAccount pendingBankAccount = get(bankAccount.getId());
+        return pendingBankAccount == null ? bankAccount : pendingBankAccount;
+    }
+
+    // Returns null when the update cannot be deferred: the account is missing, the number changes
+    // (the unique index has to be checked now), a direct write of it is in progress or max-pending
+    // other accounts are already waiting. The stripe is only locked to read and to replace the pending
+    // entry; an account that is not pending is loaded in between, and the update starts over when
+    // the entry or a direct write changed it meanwhile.
+    public BankAccount update(Long id, BankAccount bankAccount, Function<Long, BankAccount> loader) {
+        if (stripes == null) {
+            return null;
+        }
+
+        Stripe stripe = stripe(id);
+
+        while (true) {
+            BankAccount pendingBankAccount;
+            int directWrites;
+
+            stripe.lock.lock();
+            try {
+                pendingBankAccount = stripe.bankAccounts.get(id);
+                directWrites = stripe.directWritesCompleted;
+
+                if (stripe.directWrites.containsKey(id) || pendingBankAccount == null && pending.get() >= maxPending) {
+                    return null;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+
+            BankAccount current = pendingBankAccount != null ? pendingBankAccount : loader.apply(id);
+
+            if (current == null || !Objects.equals(current.getNumber(), bankAccount.getNumber())) {
+                return null;
+            }
+
+            long version = current.getVersion() == null ? 0 : current.getVersion();
+            BankAccount updated = new BankAccount(id, current.getNumber(), bankAccount.getBalance(), version + 1);
+
+            stripe.lock.lock();
+            try {
+                if (stripe.directWrites.containsKey(id)) {
+                    return null;
+                }
+
+                if (stripe.bankAccounts.get(id) != pendingBankAccount || stripe.directWritesCompleted != directWrites) {
+                    continue;
+                }
+
+                if (stripe.bankAccounts.put(id, updated) == null) {
+                    pending.incrementAndGet();
+                } else {
+                    coalesced.incrementAndGet();
+                }
+
+                bankAccountAggregates.updated(current.getBalance(), updated.getBalance());
+            } finally {
+                stripe.lock.unlock();
+            }
+
+            if (pending.get() >= maxPending) {
+                flush();
+            }
+
+            return updated;
+        }
+    }
+
+    // Writes the pending updates of the given accounts in the current transaction and keeps
+    // deferred updates of them out until it completes, so that direct writes see the latest view.
+    // The accounts are only marked under their stripe's lock, which is never held across JDBC.
+    public void lock(Long... ids) {
+        if (stripes == null) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Locking bank accounts for a direct write requires a transaction.");
+        }
+
+        for (Long id : ids) {
+            lock(id);
+        }
+    }
+
+    private void lock(Long id) {
+        Stripe stripe = stripe(id);
+        BankAccount pendingBankAccount;
+
+        stripe.lock.lock();
+        try {
+            stripe.directWrites.merge(id, 1, Integer::sum);
+            pendingBankAccount = stripe.bankAccounts.get(id);
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                stripe.lock.lock();
+                try {
+                    stripe.directWrites.computeIfPresent(id, (key, count) -> count == 1 ? null : count - 1);
+                    stripe.directWritesCompleted++;
+
+                    if (pendingBankAccount != null && status == STATUS_COMMITTED && stripe.bankAccounts.remove(id, pendingBankAccount)) {
+                        pending.decrementAndGet();
+                        flushed.incrementAndGet();
+                    }
+                } finally {
+                    stripe.lock.unlock();
+                }
+
+                bankAccountCache.evict(id);
+            }
+        });
+
+        if (pendingBankAccount != null) {
+            bankAccountRepository.writeBalance(id, pendingBankAccount.getBalance(), pendingBankAccount.getVersion());
+        }
+    }
+
+    public void flush() {
+        if (stripes == null) {
+            return;
+        }
+
+        for (Stripe stripe : stripes) {
+            flush(stripe);
+        }
+    }
+
+    // Pending entries stay in the view until their write has committed and are then removed unless a
+    // later update replaced them. writeBalance never lowers the stored version, so a flush that races
+    // another flush or a direct write of the same account cannot undo it.
+    private void flush(Stripe stripe) {
+        List<BankAccount> bankAccounts;
+
+        stripe.lock.lock();
+        try {
+            if (stripe.bankAccounts.isEmpty()) {
+                return;
+            }
+
+            bankAccounts = new ArrayList<>(stripe.bankAccounts.values());
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        transactionTemplate.executeWithoutResult(status -> bankAccounts.forEach(bankAccount ->
+                bankAccountRepository.writeBalance(bankAccount.getId(), bankAccount.getBalance(), bankAccount.getVersion())));
+
+        int removed = 0;
+
+        stripe.lock.lock();
+        try {
+            for (BankAccount bankAccount : bankAccounts) {
+                if (stripe.bankAccounts.remove(bankAccount.getId(), bankAccount)) {
+                    removed++;
+                }
+            }
+
+            pending.addAndGet(-removed);
+            flushed.addAndGet(removed);
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        bankAccounts.forEach(bankAccount -> bankAccountCache.evict(bankAccount.getId()));
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush failed, {} accounts still pending", pending.get(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (flusher == null) {
+            return;
+        }
+
+        flusher.shutdown();
+
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush on shutdown failed, {} account updates lost", pending.get(), e);
+        }
+    }
+
+    private Stripe stripe(Long id) {
+        return stripes[(int) Math.floorMod(id, (long) STRIPES)];
+    }
+
+    private static class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, BankAccount> bankAccounts = new ConcurrentHashMap<>();
+        // guarded by lock: ids with a direct write in an open transaction, and how many have completed
+        private final Map<Long, Integer> directWrites = new HashMap<>();
+        private int directWritesCompleted;
+    }
+}
@@ -0,0 +1,8 @@
+create table if not exists bank_account (
+    id bigint generated by default as identity primary key,
+    number varchar(255),
+    balance double precision,
+    version bigint not null default 0
+);
+
+create unique index if not exists ux_bank_account_number on bank_account (number);
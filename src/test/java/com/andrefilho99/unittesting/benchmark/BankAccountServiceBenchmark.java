@@ -0,0 +1,55 @@
+package com.andrefilho99.unittesting.benchmark;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.service.BankAccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BankAccountServiceBenchmark {
+
+    @Param({"true", "false"})
+    private boolean cacheEnabled;
+
+    private final AtomicLong numbers = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private BankAccountService bankAccountService;
+    private Long id;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, "bank-account.cache.enabled=" + cacheEnabled);
+        bankAccountService = context.getBean(BankAccountService.class);
+        id = bankAccountService.create(new BankAccount(null, "1-1234", 1000.00)).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BankAccount getById() {
+        return bankAccountService.getById(id);
+    }
+
+    @Benchmark
+    public BankAccount create() {
+        return bankAccountService.create(new BankAccount(null, "2-" + numbers.incrementAndGet(), 1000.00));
+    }
+
+    @Benchmark
+    public BankAccount update() {
+        return bankAccountService.update(id, new BankAccount(null, "1-1234", (double) numbers.incrementAndGet()));
+    }
+}
@@ -0,0 +1,29 @@
+package com.andrefilho99.unittesting.benchmark;
+
+import com.andrefilho99.unittesting.UnitTestingApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    // Passed as command line arguments: default properties would lose to application.properties.
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        return new SpringApplicationBuilder(UnitTestingApplication.class)
+                .web(webApplicationType)
+                .run(Stream.concat(Stream.of(
+                                "server.port=0",
+                                "spring.devtools.restart.enabled=false",
+                                "spring.jpa.open-in-view=false",
+                                "logging.level.root=WARN"
+                        ), Arrays.stream(properties))
+                        .map(property -> "--" + property)
+                        .toArray(String[]::new));
+    }
+}
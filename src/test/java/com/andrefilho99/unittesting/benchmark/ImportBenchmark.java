@@ -0,0 +1,62 @@
+package com.andrefilho99.unittesting.benchmark;
+
+import com.andrefilho99.unittesting.dto.BankAccountFileFormat;
+import com.andrefilho99.unittesting.dto.BankAccountImportReport;
+import com.andrefilho99.unittesting.repository.BankAccountRepository;
+import com.andrefilho99.unittesting.service.BankAccountImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ImportBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"100", "500", "2000"})
+    private int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private BankAccountImportService bankAccountImportService;
+    private BankAccountRepository bankAccountRepository;
+    private byte[] csv;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, "bank-account.batch.chunk-size=" + chunkSize);
+        bankAccountImportService = context.getBean(BankAccountImportService.class);
+        bankAccountRepository = context.getBean(BankAccountRepository.class);
+
+        StringBuilder builder = new StringBuilder("number,balance\n");
+        for (int i = 0; i < ROWS; i++) {
+            builder.append(String.format("%07d,1000.0%n", i));
+        }
+        csv = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Setup(Level.Invocation)
+    public void clear() {
+        bankAccountRepository.deleteAllInBatch();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public BankAccountImportReport importCsv() throws IOException {
+        return bankAccountImportService.importAll(BankAccountFileFormat.CSV, new ByteArrayInputStream(csv), 0);
+    }
+}
@@ -0,0 +1,43 @@
+package com.andrefilho99.unittesting.benchmark;
+
+import com.andrefilho99.unittesting.dto.BankAccountResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private ObjectWriter objectWriter;
+    private List<BankAccountResponse> bankAccountResponseList;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        objectWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, BankAccountResponse.class));
+        bankAccountResponseList = new ArrayList<>(size);
+
+        for (long id = 1; id <= size; id++) {
+            bankAccountResponseList.add(new BankAccountResponse(id, "1-" + id, 1000.00 + id));
+        }
+    }
+
+    @Benchmark
+    public byte[] writeBankAccountResponseList() throws JsonProcessingException {
+        return objectWriter.writeValueAsBytes(bankAccountResponseList);
+    }
+}
@@ -0,0 +1,52 @@
+package com.andrefilho99.unittesting.benchmark;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.dto.BankAccountRequest;
+import com.andrefilho99.unittesting.dto.BankAccountResponse;
+import com.andrefilho99.unittesting.mapper.BankAccountMapper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private ModelMapper modelMapper;
+    private BankAccountMapper bankAccountMapper;
+    private BankAccountRequest bankAccountRequest;
+    private BankAccount bankAccount;
+
+    @Setup
+    public void setup() {
+        modelMapper = new ModelMapper();
+        bankAccountMapper = new BankAccountMapper();
+        bankAccountRequest = new BankAccountRequest("1-1234", 1000.00);
+        bankAccount = new BankAccount(1L, "1-1234", 1000.00);
+    }
+
+    @Benchmark
+    public BankAccount modelMapperToBankAccount() {
+        return modelMapper.map(bankAccountRequest, BankAccount.class);
+    }
+
+    @Benchmark
+    public BankAccount bankAccountMapperToBankAccount() {
+        return bankAccountMapper.toBankAccount(bankAccountRequest);
+    }
+
+    @Benchmark
+    public BankAccountResponse modelMapperToBankAccountResponse() {
+        return modelMapper.map(bankAccount, BankAccountResponse.class);
+    }
+
+    @Benchmark
+    public BankAccountResponse bankAccountMapperToBankAccountResponse() {
+        return bankAccountMapper.toBankAccountResponse(bankAccount);
+    }
+}
@@ -0,0 +1,66 @@
+package com.andrefilho99.unittesting.benchmark;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.service.BankAccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    @Param({"true", "false"})
+    private boolean metricsEnabled;
+
+    private ConfigurableApplicationContext context;
+    private BankAccountService bankAccountService;
+    private MockMvc mockMvc;
+    private Long id;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                "bank-account.metrics.enabled=" + metricsEnabled,
+                "management.metrics.enable.all=" + metricsEnabled,
+                "spring.jpa.properties.hibernate.generate_statistics=" + metricsEnabled);
+        bankAccountService = context.getBean(BankAccountService.class);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        id = bankAccountService.create(new BankAccount(null, "1-1234", 1000.00)).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BankAccount serviceGetById() {
+        return bankAccountService.getById(id);
+    }
+
+    @Benchmark
+    public BankAccount serviceCredit() {
+        return bankAccountService.credit(id, 1.00);
+    }
+
+    @Benchmark
+    public MvcResult mockMvcGetById() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders
+                        .get("/bankAccounts/{id}", id)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+    }
+}
@@ -0,0 +1,61 @@
+package com.andrefilho99.unittesting.benchmark;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.service.BankAccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MockMvcRoundTripBenchmark {
+
+    private final AtomicLong numbers = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private Long id;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        id = context.getBean(BankAccountService.class).create(new BankAccount(null, "1-1234", 1000.00)).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult getById() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders
+                        .get("/bankAccounts/{id}", id)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+    }
+
+    @Benchmark
+    public MvcResult create() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders
+                        .post("/bankAccounts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"number\":\"2-" + numbers.incrementAndGet() + "\",\"balance\":1000.0}")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+    }
+}
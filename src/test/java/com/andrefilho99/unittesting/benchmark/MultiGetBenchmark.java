@@ -0,0 +1,76 @@
+package com.andrefilho99.unittesting.benchmark;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.service.BankAccountService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Resolving n ids with one GET /bankAccounts?ids=... against n GET /bankAccounts/{id}, cache off
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultiGetBenchmark {
+
+    @Param({"50", "500"})
+    private int ids;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private List<Long> accountIds;
+    private String idsParameter;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET, "bank-account.cache.enabled=false");
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+
+        BankAccountService bankAccountService = context.getBean(BankAccountService.class);
+        accountIds = new ArrayList<>();
+
+        for (int i = 0; i < ids; i++) {
+            accountIds.add(bankAccountService.create(new BankAccount(null, "1-" + i, 1000.00)).getId());
+        }
+
+        idsParameter = accountIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult multiGet() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders
+                        .get("/bankAccounts")
+                        .param("ids", idsParameter)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+    }
+
+    @Benchmark
+    public void singleGets(Blackhole blackhole) throws Exception {
+        for (Long id : accountIds) {
+            blackhole.consume(mockMvc.perform(MockMvcRequestBuilders
+                            .get("/bankAccounts/{id}", id)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andReturn());
+        }
+    }
+}
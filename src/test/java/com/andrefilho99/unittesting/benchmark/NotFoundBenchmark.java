@@ -0,0 +1,62 @@
+package com.andrefilho99.unittesting.benchmark;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.service.BankAccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// GET /bankAccounts/{id} where half of the ids do not exist, with and without the id filter
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotFoundBenchmark {
+
+    private static final int ACCOUNTS = 1000;
+
+    @Param({"true", "false"})
+    private boolean idFilter;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private long firstId;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                "bank-account.id-filter.enabled=" + idFilter, "bank-account.cache.maximum-size=" + ACCOUNTS);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+
+        BankAccountService bankAccountService = context.getBean(BankAccountService.class);
+        firstId = bankAccountService.create(new BankAccount(null, "1-0", 1000.00)).getId();
+
+        for (int i = 1; i < ACCOUNTS; i++) {
+            bankAccountService.create(new BankAccount(null, "1-" + i, 1000.00));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult getByIdHalfMissing() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders
+                        .get("/bankAccounts/{id}", firstId + ThreadLocalRandom.current().nextInt(2 * ACCOUNTS))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+    }
+}
@@ -0,0 +1,64 @@
+package com.andrefilho99.unittesting.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NumberLookupBenchmark {
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"true", "false"})
+    private boolean indexed;
+
+    private Connection connection;
+    private PreparedStatement findByNumber;
+
+    @Setup
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:number_lookup_" + indexed, "sa", "");
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table bank_account (id bigint primary key, number varchar(255), balance float(53))");
+            if (indexed) {
+                statement.execute("create unique index ux_bank_account_number on bank_account (number)");
+            }
+        }
+
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into bank_account select x, concat('1-', x), 1000.00 from system_range(1, ?)")) {
+            insert.setInt(1, rows);
+            insert.executeUpdate();
+        }
+
+        findByNumber = connection.prepareStatement("select id, number, balance from bank_account where number = ?");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long findByNumber() throws SQLException {
+        findByNumber.setString(1, "1-" + ThreadLocalRandom.current().nextInt(1, rows + 1));
+
+        try (ResultSet resultSet = findByNumber.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : -1;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.andrefilho99.unittesting.benchmark;
+
+import com.andrefilho99.unittesting.cache.BankAccountNumberIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Slf4j
+public class NumberSearchBenchmark {
+
+    private static final int LIMIT = 100;
+
+    @Param({"1000000"})
+    private int accounts;
+
+    private BankAccountNumberIndex bankAccountNumberIndex;
+
+    @Setup
+    public void setup() {
+        long heapBefore = usedHeapAfterGc();
+
+        bankAccountNumberIndex = new BankAccountNumberIndex();
+
+        for (long id = 1; id <= accounts; id++) {
+            bankAccountNumberIndex.updated(id, null, "1-" + id, 0L);
+        }
+
+        long bytes = usedHeapAfterGc() - heapBefore;
+
+        log.info("Number index: {} accounts, {} bytes per account, {} MB per million accounts",
+                bankAccountNumberIndex.size(), bytes / accounts, String.format("%.1f", bytes * (1_000_000.0 / accounts) / (1024 * 1024)));
+    }
+
+    // A full number: at most one match
+    @Benchmark
+    public Map<String, Long> searchExactNumber() {
+        return bankAccountNumberIndex.find("1-" + ThreadLocalRandom.current().nextInt(1, accounts + 1), null, LIMIT);
+    }
+
+    // A short prefix: a full page of LIMIT matches
+    @Benchmark
+    public Map<String, Long> searchShortPrefix() {
+        return bankAccountNumberIndex.find("1-" + ThreadLocalRandom.current().nextInt(1, 100), null, LIMIT);
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,71 @@
+package com.andrefilho99.unittesting.benchmark;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.replica.BankAccountReplicator;
+import com.andrefilho99.unittesting.service.BankAccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Read throughput from 16 threads with the cache off, against the primary alone and with reads
+// routed to the replica. Each pool is capped at 4 connections, so the primary's pool is the limit.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class ReplicaReadBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+
+    @Param({"false", "true"})
+    private boolean replicaEnabled;
+
+    private ConfigurableApplicationContext context;
+    private BankAccountService bankAccountService;
+    private List<Long> ids;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        context = BenchmarkApplication.start(WebApplicationType.NONE,
+                "bank-account.cache.enabled=false",
+                "bank-account.replica.enabled=" + replicaEnabled,
+                "spring.datasource.hikari.maximum-pool-size=4");
+        bankAccountService = context.getBean(BankAccountService.class);
+        ids = new ArrayList<>(ACCOUNTS);
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            ids.add(bankAccountService.create(new BankAccount(null, "1-" + i, 1000.00)).getId());
+        }
+
+        if (replicaEnabled) {
+            BankAccountReplicator bankAccountReplicator = context.getBean(BankAccountReplicator.class);
+
+            while (!bankAccountReplicator.isCaughtUp()) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BankAccount getById() {
+        return bankAccountService.getById(ids.get(ThreadLocalRandom.current().nextInt(ACCOUNTS)));
+    }
+
+    @Benchmark
+    public List<BankAccount> getPage() {
+        return bankAccountService.getPage(ids.get(ThreadLocalRandom.current().nextInt(ACCOUNTS)), 100);
+    }
+}
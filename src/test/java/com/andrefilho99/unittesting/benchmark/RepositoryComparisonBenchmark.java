@@ -0,0 +1,81 @@
+package com.andrefilho99.unittesting.benchmark;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.repository.BankAccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Slf4j
+public class RepositoryComparisonBenchmark {
+
+    @Param({"1000000"})
+    private int accounts;
+
+    @Param({"jpa", "in-memory"})
+    private String repository;
+
+    private ConfigurableApplicationContext context;
+    private BankAccountRepository bankAccountRepository;
+    private long firstId;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, "spring.profiles.active=" + ("jpa".equals(repository) ? "default" : repository));
+        bankAccountRepository = context.getBean(BankAccountRepository.class);
+
+        long heapBefore = usedHeapAfterGc();
+
+        if ("jpa".equals(repository)) {
+            context.getBean(JdbcTemplate.class).update("insert into bank_account (id, number, balance, version) "
+                    + "select x, concat('1-', x), 1000.00, 0 from system_range(1, ?)", accounts);
+        } else {
+            for (int i = 1; i <= accounts; i++) {
+                bankAccountRepository.save(new BankAccount(null, "1-" + i, 1000.00));
+            }
+        }
+
+        long bytes = usedHeapAfterGc() - heapBefore;
+        firstId = bankAccountRepository.findByNumber("1-1").getId();
+
+        log.info("{} repository: {} accounts, {} bytes per account, {} MB per million accounts",
+                repository, bankAccountRepository.count(), bytes / accounts, String.format("%.1f", bytes * (1_000_000.0 / accounts) / (1024 * 1024)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<BankAccount> findById() {
+        return bankAccountRepository.findById(firstId + ThreadLocalRandom.current().nextInt(accounts));
+    }
+
+    @Benchmark
+    public BankAccount findByNumber() {
+        return bankAccountRepository.findByNumber("1-" + ThreadLocalRandom.current().nextInt(1, accounts + 1));
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,76 @@
+package com.andrefilho99.unittesting.cache;
+
+import com.andrefilho99.unittesting.dto.BankAccountStatsBucket;
+import com.andrefilho99.unittesting.dto.BankAccountStatsResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BankAccountAggregatesTest {
+
+    @Test
+    public void rebuild_BalancesAcrossBuckets_CountTotalAndHistogram() {
+        BankAccountAggregates bankAccountAggregates = new BankAccountAggregates();
+
+        bankAccountAggregates.rebuild(Stream.of(-5.00, 0.00, 9.99, 10.00, 1000.00, 2500000.00));
+
+        BankAccountStatsResponse stats = bankAccountAggregates.snapshot();
+        List<BankAccountStatsBucket> histogram = stats.getHistogram();
+
+        assertEquals(6L, stats.getCount());
+        assertEquals(2501014.99, stats.getTotalBalance());
+        assertEquals(8, histogram.size());
+        assertNull(histogram.get(0).getFrom());
+        assertEquals(0.00, histogram.get(0).getTo());
+        assertEquals(1L, histogram.get(0).getCount());
+        assertEquals(2L, histogram.get(1).getCount());
+        assertEquals(1L, histogram.get(2).getCount());
+        assertEquals(0L, histogram.get(3).getCount());
+        assertEquals(1L, histogram.get(4).getCount());
+        assertEquals(1000000.00, histogram.get(7).getFrom());
+        assertNull(histogram.get(7).getTo());
+        assertEquals(1L, histogram.get(7).getCount());
+    }
+
+    @Test
+    public void updated_BalanceCrossesBucket_MoveAccountBetweenBuckets() {
+        BankAccountAggregates bankAccountAggregates = new BankAccountAggregates();
+        bankAccountAggregates.created(50.00);
+
+        bankAccountAggregates.updated(50.00, 150.00);
+
+        BankAccountStatsResponse stats = bankAccountAggregates.snapshot();
+
+        assertEquals(1L, stats.getCount());
+        assertEquals(150.00, stats.getTotalBalance());
+        assertEquals(0L, stats.getHistogram().get(2).getCount());
+        assertEquals(1L, stats.getHistogram().get(3).getCount());
+    }
+
+    @Test
+    public void deleted_InsideRolledBackTransaction_KeepAggregates() {
+        BankAccountAggregates bankAccountAggregates = new BankAccountAggregates();
+        bankAccountAggregates.created(50.00);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bankAccountAggregates.deleted(50.00);
+
+            assertEquals(1L, bankAccountAggregates.snapshot().getCount());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1L, bankAccountAggregates.snapshot().getCount());
+        assertEquals(50.00, bankAccountAggregates.snapshot().getTotalBalance());
+    }
+}
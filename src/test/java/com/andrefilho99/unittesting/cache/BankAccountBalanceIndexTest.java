@@ -0,0 +1,66 @@
+package com.andrefilho99.unittesting.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BankAccountBalanceIndexTest {
+
+    @Test
+    public void findIds_AccountsInAndOutOfRange_ReturnIdsInRangeOrderedByBalance() {
+        BankAccountBalanceIndex bankAccountBalanceIndex = new BankAccountBalanceIndex();
+        bankAccountBalanceIndex.updated(1L, 500.00, 0L);
+        bankAccountBalanceIndex.updated(2L, 50.00, 0L);
+        bankAccountBalanceIndex.updated(3L, 5000.00, 0L);
+        bankAccountBalanceIndex.updated(4L, 500.00, 0L);
+
+        assertEquals(List.of(2L, 1L, 4L), bankAccountBalanceIndex.findIds(50.00, 500.00, false, 10));
+        assertEquals(List.of(3L, 4L), bankAccountBalanceIndex.findIds(-Double.MAX_VALUE, Double.MAX_VALUE, true, 2));
+        assertEquals(List.of(), bankAccountBalanceIndex.findIds(600.00, 100.00, false, 10));
+    }
+
+    @Test
+    public void updated_OlderVersionAppliedLate_KeepNewerBalance() {
+        BankAccountBalanceIndex bankAccountBalanceIndex = new BankAccountBalanceIndex();
+        bankAccountBalanceIndex.updated(1L, 100.00, 0L);
+
+        bankAccountBalanceIndex.updated(1L, 300.00, 2L);
+        bankAccountBalanceIndex.updated(1L, 200.00, 1L);
+
+        assertEquals(1, bankAccountBalanceIndex.size());
+        assertEquals(List.of(1L), bankAccountBalanceIndex.findIds(300.00, 300.00, false, 10));
+    }
+
+    @Test
+    public void deleted_UpdateAppliedAfterDelete_KeepAccountOutOfIndex() {
+        BankAccountBalanceIndex bankAccountBalanceIndex = new BankAccountBalanceIndex();
+        bankAccountBalanceIndex.updated(1L, 100.00, 0L);
+
+        bankAccountBalanceIndex.deleted(1L);
+        bankAccountBalanceIndex.updated(1L, 200.00, 1L);
+
+        assertEquals(0, bankAccountBalanceIndex.size());
+    }
+
+    @Test
+    public void updated_InsideRolledBackTransaction_KeepPreviousBalance() {
+        BankAccountBalanceIndex bankAccountBalanceIndex = new BankAccountBalanceIndex();
+        bankAccountBalanceIndex.updated(1L, 100.00, 0L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bankAccountBalanceIndex.updated(1L, 200.00, 1L);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of(1L), bankAccountBalanceIndex.findIds(100.00, 100.00, false, 10));
+    }
+}
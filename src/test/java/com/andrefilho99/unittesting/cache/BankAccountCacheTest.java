@@ -0,0 +1,238 @@
+package com.andrefilho99.unittesting.cache;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BankAccountCacheTest {
+
+    @Test
+    public void get_SameIdTwice_RecordOneMissAndOneHit() {
+        BankAccountCache bankAccountCache = new BankAccountCache(100, Duration.ofMinutes(1));
+
+        bankAccountCache.get(1L, id -> new BankAccount(id, "1-1234", 1000.00));
+        BankAccount bankAccount = bankAccountCache.get(1L, id -> new BankAccount(id, "2-1234", 2000.00));
+
+        assertEquals("1-1234", bankAccount.getNumber());
+        assertEquals(1, bankAccountCache.stats().missCount());
+        assertEquals(1, bankAccountCache.stats().hitCount());
+    }
+
+    @Test
+    public void get_LoaderReturnsNull_DoNotCacheMiss() {
+        BankAccountCache bankAccountCache = new BankAccountCache(100, Duration.ofMinutes(1));
+
+        assertNull(bankAccountCache.get(1L, id -> null));
+        BankAccount bankAccount = bankAccountCache.get(1L, id -> new BankAccount(id, "1-1234", 1000.00));
+
+        assertEquals("1-1234", bankAccount.getNumber());
+    }
+
+    @Test
+    public void evict_IdCached_LoadAgainOnNextGet() {
+        BankAccountCache bankAccountCache = new BankAccountCache(100, Duration.ofMinutes(1));
+
+        bankAccountCache.get(1L, id -> new BankAccount(id, "1-1234", 1000.00));
+        bankAccountCache.evict(1L);
+        BankAccount bankAccount = bankAccountCache.get(1L, id -> new BankAccount(id, "2-1234", 2000.00));
+
+        assertEquals("2-1234", bankAccount.getNumber());
+    }
+
+    @Test
+    public void evict_DuringLoadOfStaleValue_StaleValueDoesNotSurvive() throws Exception {
+        BankAccountCache bankAccountCache = new BankAccountCache(100, Duration.ofMinutes(1));
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+
+        CompletableFuture<BankAccount> staleRead = CompletableFuture.supplyAsync(() -> bankAccountCache.get(1L, id -> {
+            loadStarted.countDown();
+            await(releaseLoad);
+            return new BankAccount(id, "1-1234", 1000.00);
+        }));
+
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        bankAccountCache.evict(1L);
+
+        releaseLoad.countDown();
+        assertEquals("1-1234", staleRead.get(5, TimeUnit.SECONDS).getNumber());
+
+        BankAccount bankAccount = bankAccountCache.get(1L, id -> new BankAccount(id, "2-1234", 2000.00));
+
+        assertEquals("2-1234", bankAccount.getNumber());
+    }
+
+    @Test
+    public void get_ConcurrentMissesForSameId_LoadOnceOutsideTheCacheLock() throws Exception {
+        BankAccountCache bankAccountCache = new BankAccountCache(100, Duration.ofMinutes(1));
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<BankAccount> first = CompletableFuture.supplyAsync(() -> bankAccountCache.get(1L, id -> {
+            loads.incrementAndGet();
+            loadStarted.countDown();
+            await(releaseLoad);
+            return new BankAccount(id, "1-1234", 1000.00);
+        }));
+
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<BankAccount> second = CompletableFuture.supplyAsync(() -> bankAccountCache.get(1L, id -> {
+            loads.incrementAndGet();
+            return new BankAccount(id, "2-1234", 2000.00);
+        }));
+        BankAccount other = bankAccountCache.get(2L, id -> new BankAccount(id, "3-1234", 3000.00));
+
+        releaseLoad.countDown();
+
+        assertEquals("3-1234", other.getNumber());
+        assertEquals("1-1234", first.get(5, TimeUnit.SECONDS).getNumber());
+        assertEquals("1-1234", second.get(5, TimeUnit.SECONDS).getNumber());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void get_LoaderThrows_PropagateAndDoNotCache() {
+        BankAccountCache bankAccountCache = new BankAccountCache(100, Duration.ofMinutes(1));
+
+        assertThrows(IllegalStateException.class, () -> bankAccountCache.get(1L, id -> {
+            throw new IllegalStateException("down");
+        }));
+        BankAccount bankAccount = bankAccountCache.get(1L, id -> new BankAccount(id, "1-1234", 1000.00));
+
+        assertEquals("1-1234", bankAccount.getNumber());
+    }
+
+    @Test
+    public void maximumSizeExceeded_EvictEntriesAndCountEvictions() {
+        BankAccountCache bankAccountCache = new BankAccountCache(10, Duration.ofMinutes(1));
+
+        for (long id = 1; id <= 100; id++) {
+            bankAccountCache.get(id, key -> new BankAccount(key, "1-1234", 1000.00));
+        }
+        bankAccountCache.cleanUp();
+
+        assertTrue(bankAccountCache.stats().evictionCount() >= 90);
+    }
+
+    @Test
+    public void disabled_SameIdTwice_AlwaysCallLoader() {
+        BankAccountCache bankAccountCache = BankAccountCache.disabled();
+
+        bankAccountCache.get(1L, id -> new BankAccount(id, "1-1234", 1000.00));
+        BankAccount bankAccount = bankAccountCache.get(1L, id -> new BankAccount(id, "2-1234", 2000.00));
+
+        assertFalse(bankAccountCache.isEnabled());
+        assertEquals("2-1234", bankAccount.getNumber());
+        assertEquals(0, bankAccountCache.stats().hitCount());
+    }
+
+    @Test
+    public void disabled_ConcurrentMissesForSameId_LoadOnceAndShareResult() throws Exception {
+        BankAccountCache bankAccountCache = BankAccountCache.disabled();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<BankAccount> first = CompletableFuture.supplyAsync(() -> bankAccountCache.get(1L, id -> {
+            loads.incrementAndGet();
+            loadStarted.countDown();
+            await(releaseLoad);
+            return new BankAccount(id, "1-1234", 1000.00);
+        }));
+
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<BankAccount>> waiters = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            waiters.add(CompletableFuture.supplyAsync(() -> bankAccountCache.get(1L, id -> {
+                loads.incrementAndGet();
+                return new BankAccount(id, "2-1234", 2000.00);
+            }), Executors.newVirtualThreadPerTaskExecutor()));
+        }
+
+        Thread.sleep(200);
+        releaseLoad.countDown();
+
+        assertEquals("1-1234", first.get(5, TimeUnit.SECONDS).getNumber());
+        for (CompletableFuture<BankAccount> waiter : waiters) {
+            assertEquals("1-1234", waiter.get(5, TimeUnit.SECONDS).getNumber());
+        }
+        assertEquals(1, loads.get());
+        assertEquals("2-1234", bankAccountCache.get(1L, id -> new BankAccount(id, "2-1234", 2000.00)).getNumber());
+    }
+
+    @Test
+    public void disabled_LoaderThrowsWhileOthersWait_PropagateSameExceptionToWaiters() throws Exception {
+        BankAccountCache bankAccountCache = BankAccountCache.disabled();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("down");
+
+        CompletableFuture<BankAccount> first = CompletableFuture.supplyAsync(() -> bankAccountCache.get(1L, id -> {
+            loadStarted.countDown();
+            await(releaseLoad);
+            throw failure;
+        }));
+
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Throwable> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                bankAccountCache.get(1L, id -> new BankAccount(id, "2-1234", 2000.00));
+                return null;
+            } catch (RuntimeException e) {
+                return e;
+            }
+        }, Executors.newVirtualThreadPerTaskExecutor());
+
+        Thread.sleep(200);
+        releaseLoad.countDown();
+
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertSame(failure, waiter.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void get_SharedLoadSlowerThanLoadTimeout_WaiterLoadsOnItsOwn() throws Exception {
+        BankAccountCache bankAccountCache = new BankAccountCache(100, Duration.ofMinutes(1), Duration.ofMillis(50));
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+
+        CompletableFuture<BankAccount> first = CompletableFuture.supplyAsync(() -> bankAccountCache.get(1L, id -> {
+            loadStarted.countDown();
+            await(releaseLoad);
+            return new BankAccount(id, "1-1234", 1000.00);
+        }));
+
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        BankAccount bankAccount = bankAccountCache.get(1L, id -> new BankAccount(id, "2-1234", 2000.00));
+        releaseLoad.countDown();
+
+        assertEquals("2-1234", bankAccount.getNumber());
+        assertEquals("1-1234", first.get(5, TimeUnit.SECONDS).getNumber());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.andrefilho99.unittesting.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class BankAccountChangeCounterTest {
+
+    @Test
+    public void changed_NoTransaction_MoveTagImmediately() {
+        BankAccountChangeCounter bankAccountChangeCounter = new BankAccountChangeCounter();
+        String tag = bankAccountChangeCounter.tag();
+
+        bankAccountChangeCounter.changed();
+
+        assertNotEquals(tag, bankAccountChangeCounter.tag());
+    }
+
+    @Test
+    public void changed_InsideTransaction_MoveTagAfterCompletion() {
+        BankAccountChangeCounter bankAccountChangeCounter = new BankAccountChangeCounter();
+        String tag = bankAccountChangeCounter.tag();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bankAccountChangeCounter.changed();
+
+            assertEquals(tag, bankAccountChangeCounter.tag());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNotEquals(tag, bankAccountChangeCounter.tag());
+    }
+}
@@ -0,0 +1,94 @@
+package com.andrefilho99.unittesting.cache;
+
+import com.andrefilho99.unittesting.dto.BankAccountChangeEvent;
+import com.andrefilho99.unittesting.dto.BankAccountChangeType;
+import com.andrefilho99.unittesting.exceptions.BankAccountChangesExpiredException;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BankAccountChangeFeedTest {
+
+    @Test
+    public void since_ChangesPublished_ReturnChangesAfterSequenceUpToLimit() {
+        BankAccountChangeFeed bankAccountChangeFeed = new BankAccountChangeFeed(4);
+        bankAccountChangeFeed.created(1L, "1-1234", 1000.00, 0L);
+        bankAccountChangeFeed.updated(1L, "1-1234", 1250.00, 1L);
+        bankAccountChangeFeed.deleted(1L, "1-1234");
+
+        List<BankAccountChangeEvent> changes = bankAccountChangeFeed.since(1L, 1);
+
+        assertEquals(3L, bankAccountChangeFeed.last());
+        assertEquals(1, changes.size());
+        assertEquals(2L, changes.get(0).getSequence());
+        assertEquals(BankAccountChangeType.UPDATED, changes.get(0).getType());
+        assertEquals(1250.00, changes.get(0).getBalance());
+        assertTrue(bankAccountChangeFeed.since(3L, 10).isEmpty());
+    }
+
+    @Test
+    public void since_SequenceOverwrittenOrFromAnotherRun_ThrowBankAccountChangesExpiredException() {
+        BankAccountChangeFeed bankAccountChangeFeed = new BankAccountChangeFeed(2);
+
+        for (long id = 1; id <= 3; id++) {
+            bankAccountChangeFeed.created(id, "1-" + id, 1000.00, 0L);
+        }
+
+        assertEquals(List.of(2L, 3L), bankAccountChangeFeed.since(1L, 10).stream().map(BankAccountChangeEvent::getSequence).toList());
+        assertThrows(BankAccountChangesExpiredException.class, () -> bankAccountChangeFeed.since(0L, 10));
+        assertThrows(BankAccountChangesExpiredException.class, () -> bankAccountChangeFeed.since(4L, 10));
+    }
+
+    @Test
+    public void await_ChangePublishedWhileWaiting_ReturnChange() throws Exception {
+        BankAccountChangeFeed bankAccountChangeFeed = new BankAccountChangeFeed(4);
+
+        CompletableFuture<List<BankAccountChangeEvent>> changes = CompletableFuture.supplyAsync(() -> {
+            try {
+                return bankAccountChangeFeed.await(0L, 10, Duration.ofSeconds(10));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        Thread.sleep(100);
+        assertFalse(changes.isDone());
+        bankAccountChangeFeed.created(1L, "1-1234", 1000.00, 0L);
+
+        assertEquals(1L, changes.get(5, TimeUnit.SECONDS).get(0).getSequence());
+    }
+
+    @Test
+    public void await_NoChanges_ReturnEmptyListAfterTimeout() throws InterruptedException {
+        BankAccountChangeFeed bankAccountChangeFeed = new BankAccountChangeFeed(4);
+
+        assertTrue(bankAccountChangeFeed.await(0L, 10, Duration.ofMillis(50)).isEmpty());
+    }
+
+    @Test
+    public void updated_TransactionRolledBack_PublishNothing() {
+        BankAccountChangeFeed bankAccountChangeFeed = new BankAccountChangeFeed(4);
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            bankAccountChangeFeed.updated(1L, "1-1234", 1250.00, 1L);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(0L, bankAccountChangeFeed.last());
+    }
+}
@@ -0,0 +1,75 @@
+package com.andrefilho99.unittesting.cache;
+
+import com.andrefilho99.unittesting.repository.BankAccountBalance;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BankAccountIdFilterTest {
+
+    @Test
+    public void mightExist_IdsCreatedAndDeleted_ReturnTrueOnlyForExistingIds() {
+        BankAccountIdFilter bankAccountIdFilter = new BankAccountIdFilter();
+        bankAccountIdFilter.created(1L);
+        bankAccountIdFilter.created(64L);
+        bankAccountIdFilter.created(70_000L);
+
+        bankAccountIdFilter.deleted(64L);
+
+        assertTrue(bankAccountIdFilter.mightExist(1L));
+        assertFalse(bankAccountIdFilter.mightExist(64L));
+        assertTrue(bankAccountIdFilter.mightExist(70_000L));
+        assertFalse(bankAccountIdFilter.mightExist(2L));
+        assertFalse(bankAccountIdFilter.mightExist(1L + (1L << 16)));
+        assertEquals(2, bankAccountIdFilter.size());
+    }
+
+    @Test
+    public void rebuild_ExistingIds_ReplaceFilterContent() {
+        BankAccountIdFilter bankAccountIdFilter = new BankAccountIdFilter();
+        bankAccountIdFilter.created(5L);
+
+        bankAccountIdFilter.rebuild(Stream.of(bankAccount(1L), bankAccount(2L)));
+
+        assertTrue(bankAccountIdFilter.mightExist(2L));
+        assertFalse(bankAccountIdFilter.mightExist(5L));
+        assertEquals(2, bankAccountIdFilter.size());
+    }
+
+    @Test
+    public void mightExist_Disabled_AlwaysReturnTrue() {
+        BankAccountIdFilter bankAccountIdFilter = BankAccountIdFilter.disabled();
+
+        bankAccountIdFilter.deleted(1L);
+
+        assertTrue(bankAccountIdFilter.mightExist(1L));
+    }
+
+    private static BankAccountBalance bankAccount(Long id) {
+        return new BankAccountBalance() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getNumber() {
+                return "1-" + id;
+            }
+
+            @Override
+            public Double getBalance() {
+                return 1000.00;
+            }
+
+            @Override
+            public Long getVersion() {
+                return 0L;
+            }
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package com.andrefilho99.unittesting.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BankAccountNumberIndexTest {
+
+    @Test
+    public void find_NumbersWithAndWithoutPrefix_ReturnMatchesInNumberOrderAfterCursor() {
+        BankAccountNumberIndex bankAccountNumberIndex = new BankAccountNumberIndex();
+        bankAccountNumberIndex.updated(1L, null, "1-2345", 0L);
+        bankAccountNumberIndex.updated(2L, null, "1-23", 0L);
+        bankAccountNumberIndex.updated(3L, null, "1-3", 0L);
+        bankAccountNumberIndex.updated(4L, null, "1-2399", 0L);
+
+        assertEquals(List.of(2L, 1L, 4L), List.copyOf(bankAccountNumberIndex.find("1-23", null, 10).values()));
+        assertEquals(Map.of("1-2345", 1L), bankAccountNumberIndex.find("1-23", "1-23", 1));
+    }
+
+    @Test
+    public void updated_NumberChanged_MoveIdToNewNumber() {
+        BankAccountNumberIndex bankAccountNumberIndex = new BankAccountNumberIndex();
+        bankAccountNumberIndex.updated(1L, null, "1-2345", 0L);
+
+        bankAccountNumberIndex.updated(1L, "1-2345", "2-2345", 1L);
+
+        assertEquals(Map.of(), bankAccountNumberIndex.find("1-", null, 10));
+        assertEquals(Map.of("2-2345", 1L), bankAccountNumberIndex.find("2-", null, 10));
+    }
+
+    @Test
+    public void updated_RenameBackAppliedBeforeRename_KeepCurrentNumber() {
+        BankAccountNumberIndex bankAccountNumberIndex = new BankAccountNumberIndex();
+        bankAccountNumberIndex.updated(1L, null, "1-2345", 0L);
+
+        bankAccountNumberIndex.updated(1L, "2-2345", "1-2345", 2L);
+        bankAccountNumberIndex.updated(1L, "1-2345", "2-2345", 1L);
+
+        assertEquals(Map.of("1-2345", 1L), bankAccountNumberIndex.find("1-", null, 10));
+    }
+
+    @Test
+    public void evict_NumberNowOwnedByAnotherAccount_KeepOwner() {
+        BankAccountNumberIndex bankAccountNumberIndex = new BankAccountNumberIndex();
+        bankAccountNumberIndex.updated(2L, null, "1-2345", 0L);
+
+        bankAccountNumberIndex.evict("1-2345", 1L);
+        bankAccountNumberIndex.deleted(1L, "1-2345");
+
+        assertEquals(Map.of("1-2345", 2L), bankAccountNumberIndex.find("1-", null, 10));
+    }
+}
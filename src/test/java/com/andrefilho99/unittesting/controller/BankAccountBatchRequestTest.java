@@ -0,0 +1,55 @@
+package com.andrefilho99.unittesting.controller;
+
+import com.andrefilho99.unittesting.cache.BankAccountChangeCounter;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:batch-request", "bank-account.batch.chunk-size=10"})
+@AutoConfigureMockMvc
+public class BankAccountBatchRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @SpyBean
+    private BankAccountChangeCounter bankAccountChangeCounter;
+
+    @Test
+    public void createAll_ThreeChunksInOneRequest_KeepOnlyCurrentChunkManaged() throws Exception {
+        List<Integer> managedPerChunk = new ArrayList<>();
+
+        doAnswer(invocation -> {
+            managedPerChunk.add(entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+            return invocation.callRealMethod();
+        }).when(bankAccountChangeCounter).changed();
+
+        String body = IntStream.rangeClosed(1, 30)
+                .mapToObj(i -> String.format("{\"number\":\"8-%d\",\"balance\":1000.00}", i))
+                .collect(Collectors.joining(",", "[", "]"));
+
+        mockMvc.perform(post("/bankAccounts/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+
+        assertEquals(List.of(10, 10, 10), managedPerChunk);
+    }
+}
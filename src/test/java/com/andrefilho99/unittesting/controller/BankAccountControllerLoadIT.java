@@ -0,0 +1,143 @@
+package com.andrefilho99.unittesting.controller;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.dto.BankAccountRequest;
+import com.andrefilho99.unittesting.dto.BankAccountResponse;
+import com.andrefilho99.unittesting.load.LoadGenerator;
+import com.andrefilho99.unittesting.load.LoadReport;
+import com.andrefilho99.unittesting.repository.BankAccountRepository;
+import com.andrefilho99.unittesting.service.BankAccountService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:loadtest"
+)
+public class BankAccountControllerLoadIT {
+
+    private static final int ACCOUNTS = 100;
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 8);
+    private static final int RATE = Integer.getInteger("load.rate", 50);
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("load.warmup-seconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.duration-seconds", 10));
+    private static final double GET_BY_ID_P99_BUDGET_MILLIS = Double.parseDouble(System.getProperty("load.budget.get-by-id.p99-millis", "100"));
+    private static final double WRITE_P99_BUDGET_MILLIS = Double.parseDouble(System.getProperty("load.budget.write.p99-millis", "250"));
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    private final AtomicLong numbers = new AtomicLong();
+    private final Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+    private List<BankAccount> bankAccounts;
+
+    @BeforeEach
+    public void before() {
+        bankAccountRepository.deleteAll();
+        bankAccounts = new ArrayList<>();
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            bankAccounts.add(bankAccountService.create(new BankAccount(null, String.format("8-%04d", i), 1000.00)));
+        }
+    }
+
+    @Test
+    public void mixedWorkload_ConcurrentClientsAtTargetRate_StayWithinLatencyBudgets() throws Exception {
+        LoadReport report = new LoadGenerator(CLIENTS, WARMUP, DURATION, RATE)
+                .operation("getById", 70, this::getById)
+                .operation("create", 15, this::create)
+                .operation("update", 10, this::update)
+                .operation("delete", 5, this::delete)
+                .run();
+
+        log.info("Load test against /bankAccounts:\n{}", report.summary());
+
+        for (String operation : List.of("getById", "create", "update", "delete")) {
+            assertEquals(0, report.operation(operation).errors(), operation + " errors");
+        }
+
+        assertTrue(report.operation("getById").percentileMillis(99) < GET_BY_ID_P99_BUDGET_MILLIS,
+                String.format("p99 getById %.3f ms exceeds budget of %.3f ms", report.operation("getById").percentileMillis(99), GET_BY_ID_P99_BUDGET_MILLIS));
+
+        for (String operation : List.of("create", "update", "delete")) {
+            assertTrue(report.operation(operation).percentileMillis(99) < WRITE_P99_BUDGET_MILLIS,
+                    String.format("p99 %s %.3f ms exceeds budget of %.3f ms", operation, report.operation(operation).percentileMillis(99), WRITE_P99_BUDGET_MILLIS));
+        }
+    }
+
+    private boolean getById() {
+        ResponseEntity<BankAccountResponse> response = restTemplate.getForEntity(
+                "/bankAccounts/{id}", BankAccountResponse.class, randomBankAccount().getId());
+
+        return response.getStatusCode() == HttpStatus.OK;
+    }
+
+    private boolean create() {
+        ResponseEntity<BankAccountResponse> response = restTemplate.postForEntity(
+                "/bankAccounts", new BankAccountRequest("7-" + numbers.incrementAndGet(), 1000.00), BankAccountResponse.class);
+
+        if (response.getStatusCode() != HttpStatus.CREATED) {
+            return false;
+        }
+
+        createdIds.add(response.getBody().getId());
+        return true;
+    }
+
+    private boolean update() {
+        BankAccount bankAccount = randomBankAccount();
+
+        ResponseEntity<BankAccountResponse> response = restTemplate.exchange(
+                "/bankAccounts/{id}",
+                HttpMethod.PUT,
+                new HttpEntity<>(new BankAccountRequest(bankAccount.getNumber(), ThreadLocalRandom.current().nextDouble(10000))),
+                BankAccountResponse.class,
+                bankAccount.getId()
+        );
+
+        return response.getStatusCode() == HttpStatus.OK || response.getStatusCode() == HttpStatus.CONFLICT;
+    }
+
+    private boolean delete() {
+        Long id = createdIds.poll();
+
+        if (id == null) {
+            return true;
+        }
+
+        ResponseEntity<Void> response = restTemplate.exchange("/bankAccounts/{id}", HttpMethod.DELETE, null, Void.class, id);
+
+        return response.getStatusCode() == HttpStatus.NO_CONTENT;
+    }
+
+    private BankAccount randomBankAccount() {
+        return bankAccounts.get(ThreadLocalRandom.current().nextInt(bankAccounts.size()));
+    }
+}
@@ -1,33 +1,66 @@
 package com.andrefilho99.unittesting.controller;
 
 import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.dto.BankAccountChangeEvent;
+import com.andrefilho99.unittesting.dto.BankAccountChangeType;
+import com.andrefilho99.unittesting.dto.BankAccountAmountRequest;
+import com.andrefilho99.unittesting.dto.BankAccountBatchResult;
+import com.andrefilho99.unittesting.dto.BankAccountFileFormat;
+import com.andrefilho99.unittesting.dto.BankAccountImportReport;
 import com.andrefilho99.unittesting.dto.BankAccountRequest;
-import com.andrefilho99.unittesting.dto.BankAccountResponse;
+import com.andrefilho99.unittesting.dto.BankAccountStatsBucket;
+import com.andrefilho99.unittesting.dto.BankAccountStatsResponse;
+import com.andrefilho99.unittesting.dto.BankAccountTransferRequest;
+import com.andrefilho99.unittesting.exceptions.BankAccountChangesExpiredException;
 import com.andrefilho99.unittesting.exceptions.BankAccountNotFoundException;
+import com.andrefilho99.unittesting.exceptions.BankAccountVersionMismatchException;
+import com.andrefilho99.unittesting.exceptions.InsufficientFundsException;
+import com.andrefilho99.unittesting.mapper.BankAccountMapper;
+import com.andrefilho99.unittesting.service.BankAccountBatchService;
+import com.andrefilho99.unittesting.service.BankAccountExportService;
+import com.andrefilho99.unittesting.service.BankAccountImportService;
 import com.andrefilho99.unittesting.service.BankAccountService;
 import com.google.gson.Gson;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(BankAccountController.class)
+@Import({BankAccountMapper.class, BankAccountExportService.class})
 public class BankAccountControllerTest {
 
     @Autowired
@@ -37,17 +70,20 @@ public class BankAccountControllerTest {
     private BankAccountService bankAccountService;
 
     @MockBean
-    private ModelMapper modelMapper;
+    private BankAccountBatchService bankAccountBatchService;
+
+    @MockBean
+    private BankAccountImportService bankAccountImportService;
 
     private BankAccountRequest bankAccountRequest;
     private BankAccount bankAccount;
-    private BankAccountResponse bankAccountResponse;
+    private BankAccount savedBankAccount;
 
     @BeforeEach
     public void before() {
         bankAccountRequest = new BankAccountRequest("1-1234", 1000.00);
         bankAccount = new BankAccount(null, "1-1234", 1000.00);
-        bankAccountResponse = new BankAccountResponse(1L, "1-1234", 1000.00);
+        savedBankAccount = new BankAccount(1L, "1-1234", 1000.00);
     }
 
     @Test
@@ -64,10 +100,7 @@ public class BankAccountControllerTest {
     @Test
     public void getAll_OneBankAccountCreated_ReturnAccountInArrayAndStatus200() throws Exception {
         when(bankAccountService.getAll())
-                .thenReturn(Arrays.asList(bankAccount));
-
-        when(modelMapper.map(bankAccount, BankAccountResponse.class))
-                .thenReturn(bankAccountResponse);
+                .thenReturn(Arrays.asList(savedBankAccount));
 
         RequestBuilder request = MockMvcRequestBuilders
                 .get("/bankAccounts")
@@ -81,11 +114,381 @@ public class BankAccountControllerTest {
     }
 
     @Test
-    public void getById_BankAccountWithId1Created_ReturnAccountWithId1AndStatus200() throws Exception {
-        when(bankAccountService.getById(1L)).thenReturn(bankAccount);
+    public void getAll_IfNoneMatchesChangeTag_ReturnStatus304WithoutLoadingAccounts() throws Exception {
+        when(bankAccountService.getChangeTag()).thenReturn("abc-7");
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts")
+                .header("If-None-Match", "\"abc-7\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(304))
+                .andExpect(header().string("ETag", "\"abc-7\""))
+                .andExpect(content().string(""));
+
+        verify(bankAccountService, never()).getAll();
+    }
+
+    @Test
+    public void getAll_ChangeTagMoved_ReturnAccountsWithNewETagAndStatus200() throws Exception {
+        when(bankAccountService.getChangeTag()).thenReturn("abc-8");
+        when(bankAccountService.getAll()).thenReturn(Arrays.asList(savedBankAccount));
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts")
+                .header("If-None-Match", "\"abc-7\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(header().string("ETag", "\"abc-8\""))
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
+    @Test
+    public void getByBalance_SortByBalanceDescending_ReturnTopAccountsAndStatus200() throws Exception {
+        when(bankAccountService.getChangeTag()).thenReturn("abc-7");
+        when(bankAccountService.getByBalance(100.00, null, true, 1000)).thenReturn(Arrays.asList(savedBankAccount));
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts?minBalance=100&sort=balance,desc&limit=5000")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(header().string("ETag", "\"abc-7\""))
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
+    @Test
+    public void getByBalance_RangeWithoutSort_ReturnAccountsInAscendingBalanceOrder() throws Exception {
+        when(bankAccountService.getChangeTag()).thenReturn("abc-7");
+        when(bankAccountService.getByBalance(100.00, 2000.00, false, 10)).thenReturn(Arrays.asList(savedBankAccount));
+        when(bankAccountService.getByBalance(null, 2000.00, false, 100)).thenReturn(Arrays.asList(savedBankAccount));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/bankAccounts?minBalance=100&maxBalance=2000&limit=10").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().is(200))
+                .andExpect(jsonPath("$[0].id").value(1L));
+        mockMvc.perform(MockMvcRequestBuilders.get("/bankAccounts?maxBalance=2000").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().is(200))
+                .andExpect(jsonPath("$[0].id").value(1L));
+
+        verify(bankAccountService, never()).getAll();
+        verify(bankAccountService, never()).getPage(any(), anyInt());
+    }
+
+    @Test
+    public void getByBalance_UnsupportedSort_ReturnStatus400() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts?sort=number&limit=10")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(400));
+
+        verify(bankAccountService, never()).getByBalance(any(), any(), anyBoolean(), anyInt());
+    }
+
+    @Test
+    public void search_NumberPrefix_ReturnMatchingAccountsAndStatus200() throws Exception {
+        when(bankAccountService.getChangeTag()).thenReturn("abc-7");
+        when(bankAccountService.search("1-23", 100)).thenReturn(Arrays.asList(savedBankAccount));
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts/search?numberPrefix=1-23")
+                .accept(MediaType.APPLICATION_JSON);
 
-        when(modelMapper.map(bankAccount, BankAccountResponse.class))
-                .thenReturn(bankAccountResponse);
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
+    @Test
+    public void getByIds_SomeIdsMissing_ReturnFoundAccountsInRequestOrderAndMissingIds() throws Exception {
+        Map<Long, BankAccount> bankAccounts = new LinkedHashMap<>();
+        bankAccounts.put(3L, new BankAccount(3L, "3-1234", 500.00));
+        bankAccounts.put(1L, savedBankAccount);
+        when(bankAccountService.getByIds(List.of(3L, 2L, 1L))).thenReturn(bankAccounts);
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts?ids=3,2,1")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(jsonPath("$.bankAccounts[0].id").value(3L))
+                .andExpect(jsonPath("$.bankAccounts[1].id").value(1L))
+                .andExpect(jsonPath("$.missingIds[0]").value(2L));
+    }
+
+    @Test
+    public void getByIds_IdsWithSort_ReturnStatus400() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/bankAccounts?ids=1,2&sort=balance"))
+                .andExpect(status().is(400))
+                .andExpect(jsonPath("$.error").value("ids cannot be combined with sort, minBalance or maxBalance."));
+
+        verify(bankAccountService, never()).getByIds(any());
+    }
+
+    @Test
+    public void getByIds_IdsWithMinBalance_ReturnStatus400() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/bankAccounts?ids=1,2&minBalance=500"))
+                .andExpect(status().is(400))
+                .andExpect(jsonPath("$.error").value("ids cannot be combined with sort, minBalance or maxBalance."));
+
+        verify(bankAccountService, never()).getByIds(any());
+    }
+
+    @Test
+    public void postByIds_IdsInBody_ReturnFoundAccountsAndStatus200() throws Exception {
+        when(bankAccountService.getByIds(List.of(1L, 2L))).thenReturn(Map.of(1L, savedBankAccount));
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/bankAccounts/by-ids")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1,2]")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(jsonPath("$.bankAccounts[0].number").value("1-1234"))
+                .andExpect(jsonPath("$.missingIds[0]").value(2L));
+    }
+
+    @Test
+    public void postByIds_MoreThanMaxIds_ReturnStatus400() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/bankAccounts/by-ids")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(LongStream.rangeClosed(1, 1001).mapToObj(Long::toString).collect(Collectors.joining(",", "[", "]")))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(400));
+
+        verify(bankAccountService, never()).getByIds(any());
+    }
+
+    @Test
+    public void search_BlankNumberPrefix_ReturnStatus400() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts/search?numberPrefix= ")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(400));
+
+        verify(bankAccountService, never()).search(any(), anyInt());
+    }
+
+    @Test
+    public void getStats_AccountsCreated_ReturnAggregatesAndStatus200() throws Exception {
+        when(bankAccountService.getChangeTag()).thenReturn("abc-7");
+        when(bankAccountService.getStats()).thenReturn(BankAccountStatsResponse
+                .builder()
+                .count(2L)
+                .totalBalance(3000.00)
+                .histogram(List.of(new BankAccountStatsBucket(1000.00, 10000.00, 2L)))
+                .build());
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts/stats")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(header().string("ETag", "\"abc-7\""))
+                .andExpect(jsonPath("$.count").value(2L))
+                .andExpect(jsonPath("$.totalBalance").value(3000.00))
+                .andExpect(jsonPath("$.histogram[0].from").value(1000.00))
+                .andExpect(jsonPath("$.histogram[0].count").value(2L));
+    }
+
+    @Test
+    public void getStats_IfNoneMatchesCurrentTag_ReturnStatus304() throws Exception {
+        when(bankAccountService.getChangeTag()).thenReturn("abc-7");
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts/stats")
+                .header("If-None-Match", "\"abc-7\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(304));
+
+        verify(bankAccountService, never()).getStats();
+    }
+
+    @Test
+    public void getPage_AfterId0WithLimit1_ReturnFirstAccountInArrayAndStatus200() throws Exception {
+        when(bankAccountService.getPage(0L, 1))
+                .thenReturn(Arrays.asList(savedBankAccount));
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts?after=0&limit=1")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].number").value("1-1234"));
+    }
+
+    @Test
+    public void getPage_LimitAboveMaximum_QueryWithMaximumPageSize() throws Exception {
+        when(bankAccountService.getPage(10L, 1000))
+                .thenReturn(Arrays.asList());
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts?after=10&limit=5000")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(content().string("[]"));
+    }
+
+    @Test
+    public void stream_TwoBankAccountsCreated_ReturnOneJsonObjectPerLineAndStatus200() throws Exception {
+        BankAccount otherBankAccount = new BankAccount(2L, "2-1234", 500.00);
+
+        doAnswer(invocation -> {
+            Consumer<BankAccount> consumer = invocation.getArgument(0);
+            consumer.accept(savedBankAccount);
+            consumer.accept(otherBankAccount);
+            return null;
+        }).when(bankAccountService).streamAll(any());
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts")
+                .accept(MediaType.APPLICATION_NDJSON);
+
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(Duration.ofMinutes(10).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().is(200))
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"id\":1,\"number\":\"1-1234\",\"balance\":1000.0}\n" +
+                        "{\"id\":2,\"number\":\"2-1234\",\"balance\":500.0}"));
+    }
+
+    @Test
+    public void getChanges_ChangesAfterSequence_ReturnChangesAndNextSequence() throws Exception {
+        BankAccountChangeEvent change = new BankAccountChangeEvent(6L, BankAccountChangeType.UPDATED, 1L, "1-1234", 1250.00, 2L);
+        when(bankAccountService.awaitChanges(5L, 100, Duration.ofSeconds(30))).thenReturn(List.of(change));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/bankAccounts/changes?after=5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(Duration.ofSeconds(35).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().is(200))
+                .andExpect(jsonPath("$.changes[0].sequence").value(6L))
+                .andExpect(jsonPath("$.changes[0].type").value("UPDATED"))
+                .andExpect(jsonPath("$.next").value(6L));
+    }
+
+    @Test
+    public void getChanges_SequenceNoLongerBuffered_ReturnStatus410() throws Exception {
+        when(bankAccountService.awaitChanges(eq(5L), anyInt(), any()))
+                .thenThrow(new BankAccountChangesExpiredException("Changes after 5 are no longer available."));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/bankAccounts/changes?after=5&timeoutSeconds=1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().is(410));
+    }
+
+    @Test
+    public void streamChanges_LastEventIdSent_StreamChangesAfterItAsServerSentEvents() throws Exception {
+        BankAccountChangeEvent change = new BankAccountChangeEvent(8L, BankAccountChangeType.DELETED, 1L, "1-1234", null, null);
+        when(bankAccountService.awaitChanges(eq(7L), anyInt(), any())).thenReturn(List.of(change));
+        when(bankAccountService.awaitChanges(eq(8L), anyInt(), any())).thenThrow(new InterruptedException());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/bankAccounts/changes")
+                        .header("Last-Event-ID", "7")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().is(200))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string(
+                        "id:8\n" +
+                        "data:{\"sequence\":8,\"type\":\"DELETED\",\"id\":1,\"number\":\"1-1234\",\"balance\":null,\"version\":null}\n\n"));
+    }
+
+    @Test
+    public void export_FormatCsv_ReturnHeaderAndOneRowPerAccountAsAttachment() throws Exception {
+        BankAccount otherBankAccount = new BankAccount(2L, "2,\"1234\"", 500.00);
+
+        doAnswer(invocation -> {
+            Consumer<BankAccount> consumer = invocation.getArgument(0);
+            consumer.accept(savedBankAccount);
+            consumer.accept(otherBankAccount);
+            return null;
+        }).when(bankAccountService).streamAll(any());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/bankAccounts/export?format=csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().is(200))
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"bank-accounts.csv\""))
+                .andExpect(content().string(
+                        "id,number,balance\n" +
+                        "1,1-1234,1000.0\n" +
+                        "2,\"2,\"\"1234\"\"\",500.0\n"));
+    }
+
+    @Test
+    public void export_FormatNdjsonWithGzip_ReturnGzipEncodedBody() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<BankAccount> consumer = invocation.getArgument(0);
+            consumer.accept(savedBankAccount);
+            return null;
+        }).when(bankAccountService).streamAll(any());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/bankAccounts/export?format=ndjson&gzip=true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().is(200))
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("{\"id\":1,\"number\":\"1-1234\",\"balance\":1000.0}", new String(inputStream.readAllBytes()));
+        }
+    }
+
+    @Test
+    public void export_UnknownFormat_ReturnStatus400() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/bankAccounts/export?format=xml"))
+                .andExpect(status().is(400))
+                .andExpect(jsonPath("$.error").value("Unsupported file format xml."));
+    }
+
+    @Test
+    public void getById_BankAccountWithId1Created_ReturnAccountWithId1AndStatus200() throws Exception {
+        when(bankAccountService.getById(1L)).thenReturn(savedBankAccount);
 
         RequestBuilder request = MockMvcRequestBuilders
                 .get("/bankAccounts/1")
@@ -98,6 +501,36 @@ public class BankAccountControllerTest {
                 .andExpect(jsonPath("$.balance").value(BigDecimal.valueOf(1000.00)));
     }
 
+    @Test
+    public void getById_IfNoneMatchesVersion_ReturnStatus304WithEmptyBody() throws Exception {
+        when(bankAccountService.getById(1L)).thenReturn(new BankAccount(1L, "1-1234", 1000.00, 5L));
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts/1")
+                .header("If-None-Match", "\"4\", \"5\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(304))
+                .andExpect(header().string("ETag", "\"5\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void getById_VersionChanged_ReturnAccountWithETagAndStatus200() throws Exception {
+        when(bankAccountService.getById(1L)).thenReturn(new BankAccount(1L, "1-1234", 1000.00, 6L));
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts/1")
+                .header("If-None-Match", "\"5\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(header().string("ETag", "\"6\""))
+                .andExpect(jsonPath("$.id").value(1L));
+    }
+
     @Test
     public void getById_BankAccountWithId1NotPresent_ReturnErrorMessageAndStatus404() throws Exception {
         when(bankAccountService.getById(1L)).thenThrow(
@@ -114,17 +547,42 @@ public class BankAccountControllerTest {
                 .andExpect(result -> assertEquals("Bank account with id 1 not found.", result.getResolvedException().getMessage()));
     }
 
+    @Test
+    public void getByNumber_BankAccountWithNumber11234Created_ReturnAccountWithId1AndStatus200() throws Exception {
+        when(bankAccountService.getByNumber("1-1234")).thenReturn(savedBankAccount);
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts/by-number/1-1234")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(jsonPath("$.id").value(1L))
+                .andExpect(jsonPath("$.number").value("1-1234"))
+                .andExpect(jsonPath("$.balance").value(BigDecimal.valueOf(1000.00)));
+    }
+
+    @Test
+    public void getByNumber_BankAccountWithNumber11234NotPresent_ReturnErrorMessageAndStatus404() throws Exception {
+        when(bankAccountService.getByNumber("1-1234")).thenThrow(
+                new BankAccountNotFoundException("Bank account with number 1-1234 not found.")
+        );
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/bankAccounts/by-number/1-1234")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(404))
+                .andExpect(result -> assertEquals("Bank account with number 1-1234 not found.", result.getResolvedException().getMessage()));
+    }
+
     @Test
     public void create_CreateBankAccount_ReturnAccountWithId1AndStatus201() throws Exception {
         when(bankAccountService.create(bankAccount)).thenReturn(
                 new BankAccount(1L, "1-1234", 1000.00)
         );
 
-        when(modelMapper.map(any(), any()))
-                .thenReturn(bankAccount)
-                .thenReturn(bankAccountResponse);
-
-
         RequestBuilder request = MockMvcRequestBuilders
                 .post("/bankAccounts")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -138,20 +596,126 @@ public class BankAccountControllerTest {
                 .andExpect(jsonPath("$.balance").value(BigDecimal.valueOf(1000.00)));
     }
 
+    @Test
+    public void create_NumberIndexViolated_ReturnStatus409() throws Exception {
+        when(bankAccountService.create(bankAccount)).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new SQLException("Unique index or primary key violation: \"PUBLIC.UX_BANK_ACCOUNT_NUMBER ON PUBLIC.BANK_ACCOUNT(NUMBER)\"")));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/bankAccounts").contentType(MediaType.APPLICATION_JSON).content(new Gson().toJson(bankAccountRequest)))
+                .andExpect(status().is(409))
+                .andExpect(jsonPath("$.error").value("Bank account number is already in use."));
+    }
+
+    @Test
+    public void create_OtherConstraintViolated_ReturnStatus400() throws Exception {
+        when(bankAccountService.create(bankAccount)).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new SQLException("Value too long for column \"NUMBER CHARACTER VARYING(255)\"")));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/bankAccounts").contentType(MediaType.APPLICATION_JSON).content(new Gson().toJson(bankAccountRequest)))
+                .andExpect(status().is(400))
+                .andExpect(jsonPath("$.error").value("Bank account violates a data constraint."));
+    }
+
+    @Test
+    public void createAll_JsonArrayOfTwoBankAccounts_ReturnResultPerItemAndStatus200() throws Exception {
+        when(bankAccountBatchService.createAll(any())).thenAnswer(invocation -> {
+            Stream<BankAccount> bankAccounts = invocation.getArgument(0);
+            List<BankAccount> bankAccountList = bankAccounts.collect(Collectors.toList());
+
+            assertEquals(Arrays.asList(bankAccount, new BankAccount(null, "2-1234", 500.00)), bankAccountList);
+
+            return Arrays.asList(
+                    new BankAccountBatchResult(0L, 1L, 201, null),
+                    new BankAccountBatchResult(1L, null, 409, "Bank account with number 2-1234 already exists.")
+            );
+        });
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/bankAccounts/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new Gson().toJson(Arrays.asList(bankAccountRequest, new BankAccountRequest("2-1234", 500.00))))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value(409))
+                .andExpect(jsonPath("$[1].error").value("Bank account with number 2-1234 already exists."));
+    }
+
+    @Test
+    public void createAll_NdjsonOfTwoBankAccounts_ReturnResultPerItemAndStatus200() throws Exception {
+        when(bankAccountBatchService.createAll(any())).thenAnswer(invocation -> {
+            Stream<BankAccount> bankAccounts = invocation.getArgument(0);
+            List<BankAccount> bankAccountList = bankAccounts.collect(Collectors.toList());
+
+            assertEquals(Arrays.asList(bankAccount, new BankAccount(null, "2-1234", 500.00)), bankAccountList);
+
+            return Arrays.asList(
+                    new BankAccountBatchResult(0L, 1L, 201, null),
+                    new BankAccountBatchResult(1L, 2L, 201, null)
+            );
+        });
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/bankAccounts/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(new Gson().toJson(bankAccountRequest) + "\n" + new Gson().toJson(new BankAccountRequest("2-1234", 500.00)) + "\n")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].id").value(2L))
+                .andExpect(jsonPath("$[1].status").value(201));
+    }
+
+    @Test
+    public void importAll_CsvBodyResumedFromRow100_ReturnImportReportAndStatus200() throws Exception {
+        when(bankAccountImportService.importAll(eq(BankAccountFileFormat.CSV), any(), eq(100L))).thenReturn(
+                BankAccountImportReport.builder().completed(true).rows(2L).imported(2L).rejected(0L).checkpoint(102L).build()
+        );
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/bankAccounts/import?resumeFrom=100")
+                .contentType("text/csv")
+                .content("number,balance\n1-1234,1000.0\n2-1234,2000.0\n");
+
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.checkpoint").value(102));
+    }
+
+    @Test
+    public void importAll_WriterFailed_ReturnReportWithCheckpointAndStatus500() throws Exception {
+        when(bankAccountImportService.importAll(eq(BankAccountFileFormat.NDJSON), any(), eq(0L))).thenReturn(
+                BankAccountImportReport.builder().completed(false).checkpoint(500L).error("Connection refused").build()
+        );
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/bankAccounts/import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"number\":\"1-1234\",\"balance\":1000.0}\n");
+
+        mockMvc.perform(request)
+                .andExpect(status().is(500))
+                .andExpect(jsonPath("$.checkpoint").value(500))
+                .andExpect(jsonPath("$.error").value("Connection refused"));
+    }
+
     @Test
     public void update_BankAccountWithId1UpdateNumberAndBalance_ReturnAccountWithId1AndUpdatedNumberAndBalanceAndStatus200() throws Exception {
         bankAccountRequest = new BankAccountRequest("2-1234", 1250.00);
-        bankAccount = new BankAccount(null, "2-1234", 1000.00);
-        bankAccountResponse = new BankAccountResponse(1L, "2-1234", 1250.00);
+        bankAccount = new BankAccount(null, "2-1234", 1250.00);
 
-        when(bankAccountService.update(1L, bankAccount)).thenReturn(
+        when(bankAccountService.update(1L, bankAccount, null)).thenReturn(
                 new BankAccount(1L, "2-1234", 1250.00)
         );
 
-        when(modelMapper.map(any(), any()))
-                .thenReturn(bankAccount)
-                .thenReturn(bankAccountResponse);
-
         RequestBuilder request = MockMvcRequestBuilders
                 .put("/bankAccounts/1")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -168,14 +732,11 @@ public class BankAccountControllerTest {
     @Test
     public void update_AccountWithId1NotPresent_ReturnStatus404() throws Exception {
         bankAccountRequest = new BankAccountRequest("2-1234", 1250.00);
-        bankAccount = new BankAccount(null, "2-1234", 1000.00);
+        bankAccount = new BankAccount(null, "2-1234", 1250.00);
 
-        when(bankAccountService.update(1L, bankAccount))
+        when(bankAccountService.update(1L, bankAccount, null))
                 .thenThrow(new BankAccountNotFoundException(String.format("Bank account with id %d not found.", 1)));
 
-        when(modelMapper.map(bankAccountRequest, BankAccount.class))
-                .thenReturn(bankAccount);
-
         RequestBuilder request = MockMvcRequestBuilders
                 .put("/bankAccounts/1")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -187,16 +748,143 @@ public class BankAccountControllerTest {
                 .andExpect(result -> assertEquals("Bank account with id 1 not found.", result.getResolvedException().getMessage()));
     }
 
+    @Test
+    public void update_IfMatchVersion3_UpdateAtVersion3AndReturnETagOfNewVersion() throws Exception {
+        bankAccountRequest = new BankAccountRequest("2-1234", 1250.00);
+        bankAccount = new BankAccount(null, "2-1234", 1250.00);
+
+        when(bankAccountService.update(1L, bankAccount, 3L)).thenReturn(
+                new BankAccount(1L, "2-1234", 1250.00, 4L)
+        );
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .put("/bankAccounts/1")
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new Gson().toJson(bankAccountRequest));
+
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    public void update_IfMatchStaleVersion_ReturnStatus412() throws Exception {
+        bankAccountRequest = new BankAccountRequest("2-1234", 1250.00);
+        bankAccount = new BankAccount(null, "2-1234", 1250.00);
+
+        when(bankAccountService.update(1L, bankAccount, 3L))
+                .thenThrow(new BankAccountVersionMismatchException("Bank account with id 1 is no longer at version 3."));
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .put("/bankAccounts/1")
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new Gson().toJson(bankAccountRequest));
+
+        mockMvc.perform(request)
+                .andExpect(status().is(412))
+                .andExpect(jsonPath("$.error").value("Bank account with id 1 is no longer at version 3."));
+    }
+
+    @Test
+    public void update_IfMatchWeakETag_ReturnStatus412() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .put("/bankAccounts/1")
+                .header("If-Match", "W/\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new Gson().toJson(bankAccountRequest));
+
+        mockMvc.perform(request).andExpect(status().is(412));
+
+        verify(bankAccountService, never()).update(any(), any(), any());
+    }
+
+    @Test
+    public void patch_BankAccountWithId1PatchBalance_ReturnAccountWithId1AndUpdatedBalanceAndStatus200() throws Exception {
+        when(bankAccountService.patch(1L, new BankAccount(null, null, 1250.00))).thenReturn(
+                new BankAccount(1L, "1-1234", 1250.00)
+        );
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .patch("/bankAccounts/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"balance\":1250.0}")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(jsonPath("$.id").value(1L))
+                .andExpect(jsonPath("$.number").value("1-1234"))
+                .andExpect(jsonPath("$.balance").value(BigDecimal.valueOf(1250.00)));
+    }
+
+    @Test
+    public void credit_BankAccountWithId1Credited250_ReturnAccountWithNewBalanceAndStatus200() throws Exception {
+        when(bankAccountService.credit(1L, 250.00)).thenReturn(new BankAccount(1L, "1-1234", 1250.00));
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/bankAccounts/1/credit")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new Gson().toJson(new BankAccountAmountRequest(250.00)))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(200))
+                .andExpect(jsonPath("$.id").value(1L))
+                .andExpect(jsonPath("$.balance").value(BigDecimal.valueOf(1250.00)));
+    }
+
+    @Test
+    public void debit_BalanceLowerThanAmount_ReturnErrorMessageAndStatus422() throws Exception {
+        when(bankAccountService.debit(1L, 2000.00)).thenThrow(
+                new InsufficientFundsException("Bank account with id 1 has insufficient funds.")
+        );
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/bankAccounts/1/debit")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new Gson().toJson(new BankAccountAmountRequest(2000.00)))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().is(422))
+                .andExpect(jsonPath("$.error").value("Bank account with id 1 has insufficient funds."));
+    }
+
+    @Test
+    public void transfer_TransferFromId1ToId2_ReturnStatus204() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/bankAccounts/transfers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new Gson().toJson(new BankAccountTransferRequest(1L, 2L, 100.00)));
+
+        mockMvc.perform(request).andExpect(status().is(204));
+
+        verify(bankAccountService).transfer(1L, 2L, 100.00);
+    }
+
     @Test
     public void delete_DeleteAccountWithId1_ReturnStatus204() throws Exception {
         RequestBuilder request = MockMvcRequestBuilders.delete("/bankAccounts/1");
         mockMvc.perform(request).andExpect(status().is(204));
     }
 
+    @Test
+    public void delete_IfMatchVersion2_DeleteAtVersion2() throws Exception {
+        RequestBuilder request = MockMvcRequestBuilders
+                .delete("/bankAccounts/1")
+                .header("If-Match", "\"2\"");
+
+        mockMvc.perform(request).andExpect(status().is(204));
+
+        verify(bankAccountService).delete(1L, 2L);
+    }
+
     @Test
     public void delete_AccountWithId1NotPresent_ReturnStatus404() throws Exception {
         doThrow(new BankAccountNotFoundException(String.format("Bank account with id %d not found.", 1)))
-                .when(bankAccountService).delete(1L);
+                .when(bankAccountService).delete(1L, null);
 
         RequestBuilder request = MockMvcRequestBuilders.delete("/bankAccounts/1");
 
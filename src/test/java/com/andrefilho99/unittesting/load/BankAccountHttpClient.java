@@ -0,0 +1,106 @@
+package com.andrefilho99.unittesting.load;
+
+import com.andrefilho99.unittesting.dto.BankAccountResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BankAccountHttpClient {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private final URI baseUri;
+    private final List<Long> ids = new ArrayList<>();
+    private final AtomicLong numbers = new AtomicLong();
+    private final Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+
+    public BankAccountHttpClient(URI baseUri) {
+        this.baseUri = baseUri;
+    }
+
+    public URI getBaseUri() {
+        return baseUri;
+    }
+
+    public void seed(int accounts) throws Exception {
+        for (int i = 0; i < accounts; i++) {
+            HttpResponse<String> response = send(post(String.format("8-%04d", i)));
+            ids.add(objectMapper.readValue(response.body(), BankAccountResponse.class).getId());
+        }
+    }
+
+    public LoadGenerator operations(LoadGenerator loadGenerator) {
+        return loadGenerator
+                .operation("getById", 70, this::getById)
+                .operation("create", 15, this::create)
+                .operation("update", 10, this::update)
+                .operation("delete", 5, this::delete);
+    }
+
+    public boolean getById() throws Exception {
+        return send(request(randomId()).GET().build()).statusCode() == 200;
+    }
+
+    public boolean create() throws Exception {
+        HttpResponse<String> response = send(post("7-" + numbers.incrementAndGet()));
+
+        if (response.statusCode() != 201) {
+            return false;
+        }
+
+        createdIds.add(objectMapper.readValue(response.body(), BankAccountResponse.class).getId());
+        return true;
+    }
+
+    public boolean update() throws Exception {
+        HttpResponse<String> response = send(request(randomId())
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(String.format("{\"balance\":%.2f}", ThreadLocalRandom.current().nextDouble(10000))))
+                .build());
+
+        return response.statusCode() == 200;
+    }
+
+    public boolean delete() throws Exception {
+        Long id = createdIds.poll();
+
+        if (id == null) {
+            return true;
+        }
+
+        return send(request(id).DELETE().build()).statusCode() == 204;
+    }
+
+    private HttpRequest post(String number) {
+        return HttpRequest.newBuilder(baseUri.resolve("/bankAccounts"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(String.format("{\"number\":\"%s\",\"balance\":1000.0}", number)))
+                .build();
+    }
+
+    private HttpRequest.Builder request(long id) {
+        return HttpRequest.newBuilder(baseUri.resolve("/bankAccounts/" + id));
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
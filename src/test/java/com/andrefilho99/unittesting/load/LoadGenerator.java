@@ -0,0 +1,153 @@
+package com.andrefilho99.unittesting.load;
+
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class LoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int clients;
+    private final Duration warmup;
+    private final Duration duration;
+    private final int targetRate;
+    private final List<Operation> operations = new ArrayList<>();
+    private int totalWeight;
+
+    public LoadGenerator(int clients, Duration warmup, Duration duration, int targetRate) {
+        this.clients = clients;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.targetRate = targetRate;
+    }
+
+    public LoadGenerator operation(String name, int weight, Request request) {
+        operations.add(new Operation(name, weight, request));
+        totalWeight += weight;
+        return this;
+    }
+
+    public LoadReport run() throws Exception {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        try {
+            runPhase(executor, warmup);
+            operations.forEach(Operation::reset);
+
+            long elapsedNanos = runPhase(executor, duration);
+
+            Map<String, LoadReport.OperationReport> reports = new LinkedHashMap<>();
+            for (Operation operation : operations) {
+                reports.put(operation.name, new LoadReport.OperationReport(
+                        operation.recorder.getIntervalHistogram(),
+                        operation.errors.get()
+                ));
+            }
+
+            return new LoadReport(clients, targetRate, elapsedNanos, reports);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long runPhase(ExecutorService executor, Duration phase) throws Exception {
+        long start = System.nanoTime();
+        long end = start + phase.toNanos();
+        long intervalNanos = targetRate > 0 ? TimeUnit.SECONDS.toNanos(clients) / targetRate : 0;
+        List<Future<?>> futures = new ArrayList<>(clients);
+
+        for (int client = 0; client < clients; client++) {
+            long offset = intervalNanos * client / clients;
+            futures.add(executor.submit(() -> runClient(start + offset, end, intervalNanos)));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private void runClient(long firstStart, long end, long intervalNanos) {
+        long intendedStart = firstStart;
+
+        while (intendedStart < end && !Thread.currentThread().isInterrupted()) {
+            if (intervalNanos > 0) {
+                long wait = intendedStart - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                intendedStart = System.nanoTime();
+            }
+
+            Operation operation = pick();
+            boolean success;
+
+            try {
+                success = operation.request.execute();
+            } catch (Exception e) {
+                success = false;
+            }
+
+            // Latency is measured from the intended start so that a stalled server is not hidden
+            // by the client backing off (coordinated omission).
+            long latency = System.nanoTime() - intendedStart;
+            operation.recorder.recordValue(Math.min(latency, HIGHEST_TRACKABLE_NANOS));
+            if (!success) {
+                operation.errors.incrementAndGet();
+            }
+
+            intendedStart += intervalNanos;
+        }
+    }
+
+    private Operation pick() {
+        int value = ThreadLocalRandom.current().nextInt(totalWeight);
+
+        for (Operation operation : operations) {
+            value -= operation.weight;
+            if (value < 0) {
+                return operation;
+            }
+        }
+
+        return operations.get(operations.size() - 1);
+    }
+
+    @FunctionalInterface
+    public interface Request {
+        boolean execute() throws Exception;
+    }
+
+    private static class Operation {
+        private final String name;
+        private final int weight;
+        private final Request request;
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+        private final AtomicLong errors = new AtomicLong();
+
+        private Operation(String name, int weight, Request request) {
+            this.name = name;
+            this.weight = weight;
+            this.request = request;
+        }
+
+        private void reset() {
+            recorder.reset();
+            errors.set(0);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.andrefilho99.unittesting.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class LoadReport {
+
+    private final int clients;
+    private final int targetRate;
+    private final long elapsedNanos;
+    private final Map<String, OperationReport> operations;
+
+    LoadReport(int clients, int targetRate, long elapsedNanos, Map<String, OperationReport> operations) {
+        this.clients = clients;
+        this.targetRate = targetRate;
+        this.elapsedNanos = elapsedNanos;
+        this.operations = operations;
+    }
+
+    public OperationReport operation(String name) {
+        return operations.get(name);
+    }
+
+    public long totalCount() {
+        return operations.values().stream().mapToLong(OperationReport::count).sum();
+    }
+
+    public double throughput() {
+        return totalCount() / (elapsedNanos / 1e9);
+    }
+
+    public String summary() {
+        StringBuilder summary = new StringBuilder(String.format(
+                "%d clients, target %s, %.0f req/s over %d ms%n",
+                clients, targetRate > 0 ? targetRate + " req/s" : "unbounded", throughput(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+        summary.append(String.format("%-10s %8s %8s %9s %9s %9s %9s%n", "operation", "count", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+
+        operations.forEach((name, report) -> summary.append(String.format("%-10s %8d %8d %9.3f %9.3f %9.3f %9.3f%n",
+                name, report.count(), report.errors(),
+                report.percentileMillis(50), report.percentileMillis(95), report.percentileMillis(99), report.maxMillis())));
+
+        return summary.toString();
+    }
+
+    public static class OperationReport {
+
+        private final Histogram histogram;
+        private final long errors;
+
+        OperationReport(Histogram histogram, long errors) {
+            this.histogram = histogram;
+            this.errors = errors;
+        }
+
+        public long count() {
+            return histogram.getTotalCount();
+        }
+
+        public long errors() {
+            return errors;
+        }
+
+        public double percentileMillis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1e6;
+        }
+
+        public double maxMillis() {
+            return histogram.getMaxValue() / 1e6;
+        }
+    }
+}
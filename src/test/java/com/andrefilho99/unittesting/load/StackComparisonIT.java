@@ -0,0 +1,194 @@
+package com.andrefilho99.unittesting.load;
+
+import com.andrefilho99.unittesting.UnitTestingApplication;
+import com.andrefilho99.unittesting.reactive.ReactiveUnitTestingApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Slf4j
+public class StackComparisonIT {
+
+    private static final int ACCOUNTS = 100;
+
+    private static final int CLIENTS = Integer.getInteger("compare.clients", 64);
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("compare.warmup-seconds", 3));
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("compare.duration-seconds", 5));
+    private static final int PENDING_REQUESTS = Integer.getInteger("compare.pending-requests", 150);
+
+    // Headers complete and the body cut short, so the request is dispatched to the controller, which
+    // then waits for the rest of the body: a blocked Tomcat thread on MVC, a pending subscription on
+    // WebFlux.
+    private static final String SLOW_UPLOAD = "POST /bankAccounts HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\n"
+            + "Content-Length: 64\r\n\r\n{\"number\":";
+    // Answered by a DeferredResult when a change comes or the timeout is up, so it holds no thread.
+    private static final int LONG_POLL_TIMEOUT_SECONDS = 3;
+    private static final String LONG_POLL = "GET /bankAccounts/changes?timeoutSeconds=" + LONG_POLL_TIMEOUT_SECONDS + " HTTP/1.1\r\nHost: localhost\r\nAccept: application/json\r\n\r\n";
+
+    private static final Pattern NMT_THREAD_STACKS = Pattern.compile("\\(stack: reserved=\\d+KB, committed=(\\d+)KB\\)");
+
+    @Test
+    public void mixedWorkload_BlockingAndReactiveStacks_ReportThroughputAndMemoryPerPendingRequest() throws Exception {
+        List<StackResult> results = new ArrayList<>();
+        results.addAll(measure("mvc+jpa", "http-nio-", new SpringApplicationBuilder(UnitTestingApplication.class),
+                Map.of("slow upload", SLOW_UPLOAD, "long poll", LONG_POLL), "--spring.datasource.url=jdbc:h2:mem:compare"));
+        results.addAll(measure("webflux+r2dbc", "reactor-http-", new SpringApplicationBuilder(ReactiveUnitTestingApplication.class).profiles("reactive"),
+                Map.of("slow upload", SLOW_UPLOAD), "--spring.r2dbc.url=r2dbc:h2:mem:///compare;DB_CLOSE_DELAY=-1"));
+
+        StringBuilder summary = new StringBuilder(String.format("%d clients, %d pending requests%s%n", CLIENTS, PENDING_REQUESTS,
+                threadStacks() == null ? ", thread stacks n/a (run with -XX:NativeMemoryTracking=summary)" : ""));
+        summary.append(String.format("%-14s %-12s %9s %9s %9s %9s %10s %10s%n",
+                "stack", "pending", "req/s", "p99 ms", "threads", "threads*", "heap KB*", "stack KB*"));
+
+        for (StackResult result : results) {
+            summary.append(String.format("%-14s %-12s %9.0f %9.3f %9d %9d %10.1f %10s%n",
+                    result.name, result.pending, result.report.throughput(), result.report.operation("getById").percentileMillis(99),
+                    result.serverThreadsUnderLoad, result.serverThreadsPending, result.heapBytesPerRequest / 1024.0,
+                    result.stackBytesPerRequest == null ? "n/a" : String.format("%.1f", result.stackBytesPerRequest / 1024.0)));
+        }
+
+        summary.append("* while the pending requests are open; memory is the growth per pending request, thread stacks are\n"
+                + "  committed native memory of platform threads (virtual thread stacks are on the heap)");
+        log.info("Blocking vs reactive stack:\n{}", summary);
+
+        for (StackResult result : results) {
+            for (String operation : List.of("getById", "create", "update", "delete")) {
+                assertEquals(0, result.report.operation(operation).errors(), result.name + " " + operation + " errors");
+            }
+        }
+    }
+
+    private List<StackResult> measure(String name, String serverThreadPrefix, SpringApplicationBuilder builder,
+                                      Map<String, String> pendingRequests, String dataSourceUrl) throws Exception {
+        try (ConfigurableApplicationContext context = builder.run(dataSourceUrl, "--server.port=0", "--spring.devtools.restart.enabled=false",
+                "--logging.level.root=WARN", "--logging.level.com.andrefilho99.unittesting.load=INFO",
+                // closing the sockets cuts the pending requests short, which both stacks log as an error
+                "--logging.level.org.springframework.web=OFF")) {
+            BankAccountHttpClient client = new BankAccountHttpClient(URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")));
+            client.seed(ACCOUNTS);
+
+            LoadReport report = client.operations(new LoadGenerator(CLIENTS, WARMUP, DURATION, 0)).run();
+            int serverThreadsUnderLoad = countThreads(serverThreadPrefix);
+            List<StackResult> results = new ArrayList<>();
+
+            for (Map.Entry<String, String> pendingRequest : new TreeMap<>(pendingRequests).entrySet()) {
+                results.add(measurePending(name, pendingRequest.getKey(), pendingRequest.getValue(), serverThreadPrefix, client.getBaseUri(), report, serverThreadsUnderLoad));
+            }
+
+            return results;
+        }
+    }
+
+    private StackResult measurePending(String name, String pending, String request, String serverThreadPrefix, URI baseUri,
+                                       LoadReport report, int serverThreadsUnderLoad) throws Exception {
+        long heapBefore = usedHeapAfterGc();
+        Long threadStacksBefore = threadStacks();
+        List<Socket> connections = new ArrayList<>(PENDING_REQUESTS);
+
+        try {
+            for (int i = 0; i < PENDING_REQUESTS; i++) {
+                connections.add(openPendingRequest(baseUri, request));
+            }
+
+            TimeUnit.SECONDS.sleep(1);
+            long heapBytesPerRequest = (usedHeapAfterGc() - heapBefore) / PENDING_REQUESTS;
+            Long threadStacksAfter = threadStacks();
+            int serverThreadsPending = countThreads(serverThreadPrefix);
+
+            return new StackResult(name, pending, report, serverThreadsUnderLoad, serverThreadsPending, heapBytesPerRequest,
+                    threadStacksBefore == null || threadStacksAfter == null ? null : (threadStacksAfter - threadStacksBefore) / PENDING_REQUESTS);
+        } finally {
+            for (Socket connection : connections) {
+                connection.close();
+            }
+
+            // Tomcat only lets go of an abandoned long poll when it times out, and one that times out
+            // after the context has closed fails to dispatch.
+            TimeUnit.SECONDS.sleep(LONG_POLL_TIMEOUT_SECONDS + 1);
+        }
+    }
+
+    private Socket openPendingRequest(URI baseUri, String request) throws IOException {
+        Socket socket = new Socket(baseUri.getHost(), baseUri.getPort());
+        OutputStream outputStream = socket.getOutputStream();
+        outputStream.write(request.getBytes(StandardCharsets.US_ASCII));
+        outputStream.flush();
+        return socket;
+    }
+
+    private long usedHeapAfterGc() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        for (int i = 0; i < 3; i++) {
+            memory.gc();
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    // Committed thread stack memory from Native Memory Tracking, which failsafe turns on; null when it
+    // is off. Only platform thread stacks are native, those of virtual threads live on the heap.
+    private static Long threadStacks() {
+        String summary;
+
+        try {
+            summary = (String) ManagementFactory.getPlatformMBeanServer().invoke(new ObjectName("com.sun.management:type=DiagnosticCommand"),
+                    "vmNativeMemory", new Object[]{new String[]{"summary"}}, new String[]{String[].class.getName()});
+        } catch (JMException e) {
+            return null;
+        }
+
+        Matcher threadStacks = NMT_THREAD_STACKS.matcher(summary);
+        return threadStacks.find() ? Long.parseLong(threadStacks.group(1)) * 1024 : null;
+    }
+
+    private int countThreads(String prefix) {
+        return (int) Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith(prefix))
+                .count();
+    }
+
+    private static class StackResult {
+
+        private final String name;
+        private final String pending;
+        private final LoadReport report;
+        private final int serverThreadsUnderLoad;
+        private final int serverThreadsPending;
+        private final long heapBytesPerRequest;
+        private final Long stackBytesPerRequest;
+
+        private StackResult(String name, String pending, LoadReport report, int serverThreadsUnderLoad, int serverThreadsPending,
+                            long heapBytesPerRequest, Long stackBytesPerRequest) {
+            this.name = name;
+            this.pending = pending;
+            this.report = report;
+            this.serverThreadsUnderLoad = serverThreadsUnderLoad;
+            this.serverThreadsPending = serverThreadsPending;
+            this.heapBytesPerRequest = heapBytesPerRequest;
+            this.stackBytesPerRequest = stackBytesPerRequest;
+        }
+    }
+}
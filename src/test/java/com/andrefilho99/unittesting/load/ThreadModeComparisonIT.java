@@ -0,0 +1,96 @@
+package com.andrefilho99.unittesting.load;
+
+import com.andrefilho99.unittesting.UnitTestingApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Slf4j
+public class ThreadModeComparisonIT {
+
+    private static final int ACCOUNTS = 100;
+
+    private static final List<Integer> CLIENTS = Arrays.stream(System.getProperty("compare.thread-mode.clients", "1000,5000").split(","))
+            .map(String::trim)
+            .map(Integer::valueOf)
+            .toList();
+    private static final int RATE = Integer.getInteger("compare.rate", 0);
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("compare.warmup-seconds", 3));
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("compare.duration-seconds", 5));
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Test
+    public void mixedWorkload_PlatformAndVirtualThreads_ReportThroughputAndThreadsPerClientCount() throws Exception {
+        List<ModeResult> results = new ArrayList<>();
+
+        for (int clients : CLIENTS) {
+            results.add(measure("platform", false, clients));
+            results.add(measure("virtual", true, clients));
+        }
+
+        StringBuilder summary = new StringBuilder(String.format("%-9s %8s %9s %9s %9s %8s %15s%n",
+                "mode", "clients", "req/s", "p50 ms", "p99 ms", "errors", "peak threads"));
+
+        for (ModeResult result : results) {
+            LoadReport.OperationReport getById = result.report.operation("getById");
+            summary.append(String.format("%-9s %8d %9.0f %9.3f %9.3f %8d %15d%n",
+                    result.mode, result.clients, result.report.throughput(), getById.percentileMillis(50), getById.percentileMillis(99),
+                    errors(result.report), result.peakThreads));
+        }
+
+        log.info("Platform vs virtual threads:\n{}", summary);
+
+        for (ModeResult result : results) {
+            assertEquals(0, errors(result.report), result.mode + " with " + result.clients + " clients errors");
+        }
+    }
+
+    private ModeResult measure(String mode, boolean virtualThreads, int clients) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UnitTestingApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:threads-" + mode + "-" + clients,
+                "--bank-account.virtual-threads.enabled=" + virtualThreads,
+                "--server.port=0", "--spring.devtools.restart.enabled=false",
+                "--logging.level.root=WARN", "--logging.level.com.andrefilho99.unittesting.load=INFO")) {
+            BankAccountHttpClient client = new BankAccountHttpClient(URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")));
+            client.seed(ACCOUNTS);
+
+            threads.resetPeakThreadCount();
+            LoadReport report = client.operations(new LoadGenerator(clients, WARMUP, DURATION, RATE)).run();
+
+            return new ModeResult(mode, clients, report, threads.getPeakThreadCount());
+        }
+    }
+
+    private long errors(LoadReport report) {
+        return List.of("getById", "create", "update", "delete").stream()
+                .mapToLong(operation -> report.operation(operation).errors())
+                .sum();
+    }
+
+    private static class ModeResult {
+
+        private final String mode;
+        private final int clients;
+        private final LoadReport report;
+        private final int peakThreads;
+
+        private ModeResult(String mode, int clients, LoadReport report, int peakThreads) {
+            this.mode = mode;
+            this.clients = clients;
+            this.report = report;
+            this.peakThreads = peakThreads;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.andrefilho99.unittesting.mapper;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.dto.BankAccountRequest;
+import com.andrefilho99.unittesting.dto.BankAccountResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BankAccountMapperTest {
+
+    private final BankAccountMapper bankAccountMapper = new BankAccountMapper();
+
+    @Test
+    public void toBankAccount_RequestWithNumberAndBalance_ReturnAccountWithoutId() {
+        BankAccount bankAccount = bankAccountMapper.toBankAccount(new BankAccountRequest("1-1234", 1000.00));
+
+        assertNull(bankAccount.getId());
+        assertEquals("1-1234", bankAccount.getNumber());
+        assertEquals(1000.00, bankAccount.getBalance());
+    }
+
+    @Test
+    public void toBankAccountResponse_AccountWithId1_ReturnResponseWithSameFields() {
+        BankAccountResponse bankAccountResponse = bankAccountMapper.toBankAccountResponse(new BankAccount(1L, "1-1234", 1000.00));
+
+        assertEquals(1L, bankAccountResponse.getId());
+        assertEquals("1-1234", bankAccountResponse.getNumber());
+        assertEquals(1000.00, bankAccountResponse.getBalance());
+    }
+}
@@ -0,0 +1,93 @@
+package com.andrefilho99.unittesting.metrics;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.service.BankAccountService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:metrics")
+@AutoConfigureMockMvc
+public class MetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    @Test
+    public void getById_BankAccountReadTwice_RecordServiceTimerStatementsPerRequestAndCacheGets() throws Exception {
+        Long id = bankAccountService.create(new BankAccount(null, "6-1234", 1000.00)).getId();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/bankAccounts/{id}", id)).andExpect(status().is(200));
+        mockMvc.perform(MockMvcRequestBuilders.get("/bankAccounts/{id}", id)).andExpect(status().is(200));
+
+        assertEquals(2, meterRegistry.get("bank.account.service").tag("method", "getById").timer().count());
+        assertEquals(2, meterRegistry.get("bank.account.sql.statements.per.request").tag("uri", "/bankAccounts/{id}").summary().count());
+        assertEquals(1.0, meterRegistry.get("bank.account.sql.statements.per.request").tag("uri", "/bankAccounts/{id}").summary().totalAmount());
+        assertEquals(1.0, meterRegistry.get("bank.account.cache.gets").tag("result", "hit").functionCounter().count());
+        assertNotNull(meterRegistry.find("hibernate.statements").functionCounter());
+        assertNotNull(meterRegistry.find("hikaricp.connections.pending").gauge());
+    }
+
+    @Test
+    public void export_StreamedAfterHandlerReturns_RecordStatementsOfStreamingBody() throws Exception {
+        bankAccountService.create(new BankAccount(null, "7-1234", 1000.00));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/bankAccounts/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult();
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result)).andExpect(status().is(200));
+
+        assertEquals(1, meterRegistry.get("bank.account.sql.statements.per.request").tag("uri", "/bankAccounts/export").summary().count());
+        assertEquals(1.0, meterRegistry.get("bank.account.sql.statements.per.request").tag("uri", "/bankAccounts/export").summary().totalAmount());
+    }
+
+    @Nested
+    @TestPropertySource(properties = {"spring.datasource.url=jdbc:h2:mem:metrics-balance-index", "bank-account.balance-index.enabled=true"})
+    public class BalanceIndex {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Autowired
+        private BankAccountService bankAccountService;
+
+        @Test
+        public void getByBalance_IdsFromIndex_ReadAccountsInOneStatement() throws Exception {
+            bankAccountService.create(new BankAccount(null, "8-1234", 5000.00));
+            bankAccountService.create(new BankAccount(null, "8-1235", 6000.00));
+            bankAccountService.create(new BankAccount(null, "8-1236", 7000.00));
+
+            double statements = meterRegistry.get("bank.account.sql.statements").counter().count();
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/bankAccounts").param("minBalance", "5000").param("sort", "balance,desc"))
+                    .andExpect(status().is(200))
+                    .andExpect(jsonPath("$[*].number").value(contains("8-1236", "8-1235", "8-1234")));
+
+            assertEquals(statements + 1, meterRegistry.get("bank.account.sql.statements").counter().count());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.andrefilho99.unittesting.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SqlStatementCounterTest {
+
+    @Test
+    public void endScope_TwoStatementsInspected_ReturnTwoAndIncrementGlobalCounter() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SqlStatementCounter sqlStatementCounter = new SqlStatementCounter(meterRegistry);
+
+        sqlStatementCounter.inspect("select 1");
+        sqlStatementCounter.startScope();
+        sqlStatementCounter.inspect("select 2");
+        sqlStatementCounter.inspect("select 3");
+
+        assertEquals(2, sqlStatementCounter.endScope());
+        assertEquals(0, sqlStatementCounter.endScope());
+        assertEquals(3.0, meterRegistry.get("bank.account.sql.statements").counter().count());
+    }
+
+    @Test
+    public void propagate_TaskRunOnAnotherThread_CountInScopeOfCallingThread() throws InterruptedException {
+        SqlStatementCounter sqlStatementCounter = new SqlStatementCounter(new SimpleMeterRegistry());
+        AtomicInteger statements = sqlStatementCounter.startScope();
+
+        Thread thread = new Thread(sqlStatementCounter.propagate(() -> sqlStatementCounter.inspect("select 1")));
+        thread.start();
+        thread.join();
+
+        Thread unwrapped = new Thread(() -> sqlStatementCounter.inspect("select 2"));
+        unwrapped.start();
+        unwrapped.join();
+
+        assertEquals(1, statements.get());
+        assertEquals(1, sqlStatementCounter.endScope());
+    }
+}
@@ -0,0 +1,10 @@
+package com.andrefilho99.unittesting.reactive;
+
+import com.andrefilho99.unittesting.controller.AbstractBankAccountControllerIT;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("reactive")
+@SpringBootTest(classes = ReactiveUnitTestingApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ReactiveBankAccountControllerIT extends AbstractBankAccountControllerIT {
+}
@@ -0,0 +1,96 @@
+package com.andrefilho99.unittesting.reactive;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.exceptions.BankAccountNotFoundException;
+import com.andrefilho99.unittesting.exceptions.BankAccountVersionMismatchException;
+import com.andrefilho99.unittesting.exceptions.InsufficientFundsException;
+import com.andrefilho99.unittesting.exceptions.InvalidBankAccountOperationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveBankAccountServiceTest {
+
+    @InjectMocks
+    private ReactiveBankAccountService bankAccountService;
+
+    @Mock
+    private ReactiveBankAccountRepository bankAccountRepository;
+
+    @Test
+    public void getById_AccountWithId1NotPresent_ErrorWithBankAccountNotFoundException() {
+        when(bankAccountRepository.findById(1L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(bankAccountService.getById(1L))
+                .expectErrorMatches(e -> e instanceof BankAccountNotFoundException && e.getMessage().equals("Bank account with id 1 not found."))
+                .verify();
+    }
+
+    @Test
+    public void update_NoRowUpdated_ErrorWithBankAccountNotFoundException() {
+        when(bankAccountRepository.update(1L, "2-1234", 1250.00)).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(bankAccountService.update(1L, new BankAccount(null, "2-1234", 1250.00), null))
+                .expectError(BankAccountNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    public void update_NoExpectedVersion_ReturnStoredVersion() {
+        when(bankAccountRepository.update(1L, "2-1234", 1250.00)).thenReturn(Mono.just(1L));
+        when(bankAccountRepository.findById(1L)).thenReturn(Mono.just(new BankAccount(1L, "2-1234", 1250.00, 4L)));
+
+        StepVerifier.create(bankAccountService.update(1L, new BankAccount(null, "2-1234", 1250.00), null))
+                .expectNextMatches(bankAccount -> bankAccount.getVersion() == 4L)
+                .verifyComplete();
+    }
+
+    @Test
+    public void update_ExpectedVersionStale_ErrorWithBankAccountVersionMismatchException() {
+        when(bankAccountRepository.updateIfVersion(1L, "2-1234", 1250.00, 3L)).thenReturn(Mono.just(0L));
+        when(bankAccountRepository.existsById(1L)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(bankAccountService.update(1L, new BankAccount(null, "2-1234", 1250.00), 3L))
+                .expectError(BankAccountVersionMismatchException.class)
+                .verify();
+    }
+
+    @Test
+    public void debit_BalanceTooLow_ErrorWithInsufficientFundsException() {
+        when(bankAccountRepository.debit(1L, 2000.00)).thenReturn(Mono.just(0L));
+        when(bankAccountRepository.existsById(1L)).thenReturn(Mono.just(true));
+        when(bankAccountRepository.findById(1L)).thenReturn(Mono.just(new BankAccount(1L, "1-1234", 1000.00, 0L)));
+
+        StepVerifier.create(bankAccountService.debit(1L, 2000.00))
+                .expectError(InsufficientFundsException.class)
+                .verify();
+    }
+
+    @Test
+    public void transfer_FromHigherToLowerId_UpdateLowerIdFirst() {
+        when(bankAccountRepository.credit(1L, 100.00)).thenReturn(Mono.just(1L));
+        when(bankAccountRepository.debit(2L, 100.00)).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(bankAccountService.transfer(2L, 1L, 100.00)).verifyComplete();
+
+        InOrder inOrder = inOrder(bankAccountRepository);
+        inOrder.verify(bankAccountRepository).credit(1L, 100.00);
+        inOrder.verify(bankAccountRepository).debit(2L, 100.00);
+    }
+
+    @Test
+    public void transfer_NegativeAmount_ErrorWithInvalidBankAccountOperationException() {
+        StepVerifier.create(bankAccountService.transfer(1L, 2L, -1.00))
+                .expectError(InvalidBankAccountOperationException.class)
+                .verify();
+    }
+}
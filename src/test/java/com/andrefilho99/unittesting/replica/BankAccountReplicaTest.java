@@ -0,0 +1,209 @@
+package com.andrefilho99.unittesting.replica;
+
+import com.andrefilho99.unittesting.cache.BankAccountChangeFeed;
+import com.andrefilho99.unittesting.configuration.ReplicaConfig;
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.exceptions.BankAccountNotFoundException;
+import com.andrefilho99.unittesting.service.BankAccountService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-primary",
+        "bank-account.replica.enabled=true",
+        "bank-account.replica.url=jdbc:h2:mem:replica-test",
+        "bank-account.replica.delay=300ms",
+        "bank-account.cache.enabled=false"
+})
+@AutoConfigureMockMvc
+public class BankAccountReplicaTest {
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    @Autowired
+    private BankAccountReplicator bankAccountReplicator;
+
+    @Autowired
+    private BankAccountChangeFeed bankAccountChangeFeed;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private HikariDataSource replicaDataSource;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    public void before() {
+        replica = new JdbcTemplate(replicaDataSource);
+    }
+
+    @AfterEach
+    public void after() {
+        ReplicaSession.clear();
+    }
+
+    @Test
+    public void getByNumber_ReplicaCaughtUp_ReadFromReplica() throws InterruptedException {
+        BankAccount bankAccount = bankAccountService.create(new BankAccount(null, "7-1234", 1000.00));
+        awaitCaughtUp();
+
+        assertEquals(1000.00, replica.queryForObject("select balance from bank_account where id = ?", Double.class, bankAccount.getId()));
+
+        replica.update("update bank_account set balance = 42 where id = ?", bankAccount.getId());
+
+        assertEquals(42.00, bankAccountService.getByNumber("7-1234").getBalance());
+    }
+
+    @Test
+    public void getByNumber_ReplicaBehindAnUpdate_ReadOwnWriteFromPrimary() throws InterruptedException {
+        BankAccount bankAccount = bankAccountService.create(new BankAccount(null, "8-1234", 1000.00));
+        awaitCaughtUp();
+
+        bankAccountService.update(bankAccount.getId(), new BankAccount(null, "8-1234", 1250.00));
+
+        assertFalse(bankAccountReplicator.isCaughtUp());
+        assertEquals(1250.00, bankAccountService.getByNumber("8-1234").getBalance());
+        assertEquals(1000.00, replica.queryForObject("select balance from bank_account where id = ?", Double.class, bankAccount.getId()));
+
+        awaitCaughtUp();
+
+        assertEquals(1250.00, replica.queryForObject("select balance from bank_account where id = ?", Double.class, bankAccount.getId()));
+    }
+
+    @Test
+    public void getById_ReplicaCaughtUp_ReadFromReplica() throws InterruptedException {
+        BankAccount bankAccount = bankAccountService.create(new BankAccount(null, "9-1234", 1000.00));
+        awaitCaughtUp();
+
+        replica.update("update bank_account set balance = 42 where id = ?", bankAccount.getId());
+
+        assertEquals(42.00, bankAccountService.getById(bankAccount.getId()).getBalance());
+    }
+
+    @Test
+    public void getById_ReplicaBehindAnUpdate_ReadOwnWriteFromPrimary() throws InterruptedException {
+        BankAccount bankAccount = bankAccountService.create(new BankAccount(null, "10-1234", 1000.00));
+        awaitCaughtUp();
+
+        bankAccountService.update(bankAccount.getId(), new BankAccount(null, "10-1234", 1250.00));
+
+        assertEquals(1250.00, bankAccountService.getById(bankAccount.getId()).getBalance());
+        assertEquals(1000.00, replica.queryForObject("select balance from bank_account where id = ?", Double.class, bankAccount.getId()));
+    }
+
+    @Test
+    public void getAll_ReplicaBehindAnotherCallersUpdate_ReadFromReplica() throws Exception {
+        BankAccount bankAccount = bankAccountService.create(new BankAccount(null, "11-1234", 1000.00));
+        awaitCaughtUp();
+
+        CompletableFuture.runAsync(() -> bankAccountService.update(bankAccount.getId(), new BankAccount(null, "11-1234", 1250.00))).get();
+
+        assertFalse(bankAccountReplicator.isCaughtUp());
+        assertEquals(1000.00, balanceInList(bankAccount));
+
+        bankAccountService.update(bankAccount.getId(), new BankAccount(null, "11-1234", 1500.00));
+
+        assertEquals(1500.00, balanceInList(bankAccount));
+    }
+
+    @Test
+    public void delete_ReplicaBehind_OwnReadsNoLongerSeeAccount() throws InterruptedException {
+        BankAccount bankAccount = bankAccountService.create(new BankAccount(null, "12-1234", 1000.00));
+        awaitCaughtUp();
+
+        bankAccountService.delete(bankAccount.getId());
+
+        assertThrows(BankAccountNotFoundException.class, () -> bankAccountService.getById(bankAccount.getId()));
+        assertTrue(bankAccountService.getAll().stream().noneMatch(account -> account.getId().equals(bankAccount.getId())));
+        assertEquals(1, replica.queryForObject("select count(*) from bank_account where id = ?", Integer.class, bankAccount.getId()));
+    }
+
+    @Test
+    public void put_ReplicaBehind_ReturnSequenceThatReadsOwnWrite() throws Exception {
+        BankAccount bankAccount = bankAccountService.create(new BankAccount(null, "13-1234", 1000.00));
+        awaitCaughtUp();
+        ReplicaSession.clear();
+
+        String sequence = mockMvc.perform(put("/bankAccounts/{id}", bankAccount.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"number\":\"13-1234\",\"balance\":1250.00}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(ReplicaSession.SEQUENCE_HEADER);
+
+        assertEquals(String.valueOf(bankAccountChangeFeed.last()), sequence);
+
+        mockMvc.perform(get("/bankAccounts"))
+                .andExpect(jsonPath("$[?(@.number == '13-1234')].balance").value(1000.00));
+        mockMvc.perform(get("/bankAccounts").header(ReplicaSession.SEQUENCE_HEADER, sequence))
+                .andExpect(jsonPath("$[?(@.number == '13-1234')].balance").value(1250.00));
+    }
+
+    @Test
+    public void apply_UpdatePublishedAfterDelete_KeepReplicaRowDeleted() throws InterruptedException {
+        BankAccount bankAccount = bankAccountService.create(new BankAccount(null, "14-1234", 1000.00));
+        bankAccountService.delete(bankAccount.getId());
+
+        bankAccountChangeFeed.updated(bankAccount.getId(), "14-1234", 1250.00, 1L);
+        awaitCaughtUp();
+
+        assertEquals(0, replica.queryForObject("select count(*) from bank_account where id = ?", Integer.class, bankAccount.getId()));
+    }
+
+    // Without open-in-view each transaction of a request takes its own connection, so a write after a
+    // read from the replica goes to the primary.
+    @Test
+    public void patch_AfterReadFromReplicaOnSameThread_WriteToPrimary() throws InterruptedException {
+        BankAccount bankAccount = bankAccountService.create(new BankAccount(null, "15-1234", 1000.00));
+        awaitCaughtUp();
+        replica.update("update bank_account set balance = 42 where id = ?", bankAccount.getId());
+
+        assertEquals(42.00, bankAccountService.getByNumber("15-1234").getBalance());
+        assertEquals(1250.00, bankAccountService.patch(bankAccount.getId(), new BankAccount(null, null, 1250.00)).getBalance());
+        assertEquals(1250.00, new JdbcTemplate(primaryDataSource).queryForObject("select balance from bank_account where id = ?", Double.class, bankAccount.getId()));
+    }
+
+    @Test
+    public void dataSource_OpenInView_Throw() {
+        assertThrows(IllegalStateException.class,
+                () -> new ReplicaConfig().dataSource(primaryDataSource, replicaDataSource, bankAccountReplicator, true));
+    }
+
+    private Double balanceInList(BankAccount bankAccount) {
+        return bankAccountService.getAll().stream()
+                .filter(account -> account.getId().equals(bankAccount.getId()))
+                .findFirst().orElseThrow().getBalance();
+    }
+
+    private void awaitCaughtUp() throws InterruptedException {
+        for (int i = 0; i < 100 && !bankAccountReplicator.isCaughtUp(); i++) {
+            Thread.sleep(50);
+        }
+
+        assertTrue(bankAccountReplicator.isCaughtUp());
+    }
+}
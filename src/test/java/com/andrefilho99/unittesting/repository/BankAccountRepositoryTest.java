@@ -1,11 +1,25 @@
 package com.andrefilho99.unittesting.repository;
 
 import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.exceptions.DataIntegrityViolations;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @DataJpaTest
 public class BankAccountRepositoryTest {
@@ -13,6 +27,9 @@ public class BankAccountRepositoryTest {
     @Autowired
     private BankAccountRepository bankAccountRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     public void findByNumber_BankAccountCreated_ReturnBankAccountWithSpecifiedNumber() {
         BankAccount savedBankAccount =  bankAccountRepository.save(new BankAccount(null, "1-2345", 1000.00));
@@ -22,4 +39,159 @@ public class BankAccountRepositoryTest {
         assertEquals(savedBankAccount.getNumber(), bankAccount.getNumber());
         assertEquals(savedBankAccount.getBalance(), bankAccount.getBalance());
     }
+
+    @Test
+    public void save_BankAccountWithDuplicateNumber_ThrowDataIntegrityViolationException() {
+        bankAccountRepository.saveAndFlush(new BankAccount(null, "1-2345", 1000.00));
+
+        DataIntegrityViolationException ex = assertThrows(DataIntegrityViolationException.class,
+                () -> bankAccountRepository.saveAndFlush(new BankAccount(null, "1-2345", 2000.00)));
+        assertTrue(DataIntegrityViolations.isDuplicateNumber(ex));
+    }
+
+    @Test
+    public void findByIdGreaterThanOrderByIdAsc_ThreeBankAccountsCreated_ReturnPageAfterCursor() {
+        BankAccount first = bankAccountRepository.save(new BankAccount(null, "1-2345", 1000.00));
+        BankAccount second = bankAccountRepository.save(new BankAccount(null, "2-2345", 2000.00));
+        BankAccount third = bankAccountRepository.save(new BankAccount(null, "3-2345", 3000.00));
+
+        List<BankAccount> bankAccounts = bankAccountRepository.findByIdGreaterThanOrderByIdAsc(first.getId(), PageRequest.of(0, 1));
+
+        assertEquals(1, bankAccounts.size());
+        assertEquals(second.getId(), bankAccounts.get(0).getId());
+
+        bankAccounts = bankAccountRepository.findByIdGreaterThanOrderByIdAsc(second.getId(), PageRequest.of(0, 10));
+
+        assertEquals(1, bankAccounts.size());
+        assertEquals(third.getId(), bankAccounts.get(0).getId());
+    }
+
+    @Test
+    public void update_BankAccountCreated_UpdateNumberAndBalanceInOneStatement() {
+        BankAccount savedBankAccount = bankAccountRepository.save(new BankAccount(null, "1-2345", 1000.00));
+
+        assertEquals(Optional.of(1000.00), bankAccountRepository.update(savedBankAccount.getId(), "2-2345", 2000.00).map(BankAccountBalance::getBalance));
+        assertEquals(Optional.empty(), bankAccountRepository.update(savedBankAccount.getId() + 1, "3-2345", 3000.00).map(BankAccountBalance::getBalance));
+
+        entityManager.clear();
+        BankAccount bankAccount = bankAccountRepository.findById(savedBankAccount.getId()).get();
+
+        assertEquals("2-2345", bankAccount.getNumber());
+        assertEquals(2000.00, bankAccount.getBalance());
+        assertEquals(1L, bankAccount.getVersion());
+    }
+
+    @Test
+    public void updateIfVersion_VersionMatchesOnlyOnce_SecondUpdateAffectsNoRows() {
+        BankAccount savedBankAccount = bankAccountRepository.save(new BankAccount(null, "1-2345", 1000.00));
+
+        assertEquals(Optional.of(1000.00), bankAccountRepository.updateIfVersion(savedBankAccount.getId(), "2-2345", 2000.00, 0L).map(BankAccountBalance::getBalance));
+        assertEquals(Optional.empty(), bankAccountRepository.updateIfVersion(savedBankAccount.getId(), "3-2345", 3000.00, 0L).map(BankAccountBalance::getBalance));
+        assertEquals(Optional.empty(), bankAccountRepository.deleteBankAccountByIdIfVersion(savedBankAccount.getId(), 0L).map(BankAccountBalance::getBalance));
+        assertEquals(Optional.of(2000.00), bankAccountRepository.deleteBankAccountByIdIfVersion(savedBankAccount.getId(), 1L).map(BankAccountBalance::getBalance));
+    }
+
+    @Test
+    public void patch_OnlyBalanceSupplied_KeepNumber() {
+        BankAccount savedBankAccount = bankAccountRepository.save(new BankAccount(null, "1-2345", 1000.00));
+
+        assertEquals(Optional.of(1000.00), bankAccountRepository.patch(savedBankAccount.getId(), null, 2000.00).map(BankAccountBalance::getBalance));
+
+        entityManager.clear();
+        BankAccount bankAccount = bankAccountRepository.findById(savedBankAccount.getId()).get();
+
+        assertEquals("1-2345", bankAccount.getNumber());
+        assertEquals(2000.00, bankAccount.getBalance());
+    }
+
+    @Test
+    public void deleteBankAccountById_BankAccountCreated_ReturnPreviousBalance() {
+        BankAccount savedBankAccount = bankAccountRepository.save(new BankAccount(null, "1-2345", 1000.00));
+
+        assertEquals(Optional.of(1000.00), bankAccountRepository.deleteBankAccountById(savedBankAccount.getId()).map(BankAccountBalance::getBalance));
+        assertEquals(Optional.empty(), bankAccountRepository.deleteBankAccountById(savedBankAccount.getId()).map(BankAccountBalance::getBalance));
+        assertFalse(bankAccountRepository.existsById(savedBankAccount.getId()));
+    }
+
+    @Test
+    public void debit_BalanceLowerThanAmount_LeaveBalanceAndReturnEmpty() {
+        BankAccount savedBankAccount = bankAccountRepository.save(new BankAccount(null, "1-2345", 1000.00));
+
+        assertEquals(Optional.empty(), bankAccountRepository.debit(savedBankAccount.getId(), 2000.00).map(BankAccountBalance::getBalance));
+        assertEquals(Optional.of(1000.00), bankAccountRepository.debit(savedBankAccount.getId(), 250.00).map(BankAccountBalance::getBalance));
+        assertEquals(Optional.of(750.00), bankAccountRepository.credit(savedBankAccount.getId(), 50.00).map(BankAccountBalance::getBalance));
+
+        entityManager.clear();
+
+        assertEquals(800.00, bankAccountRepository.findById(savedBankAccount.getId()).get().getBalance());
+    }
+
+    @Test
+    public void update_BankAccountCreated_ReturnPreviousIdAndVersion() {
+        BankAccount savedBankAccount = bankAccountRepository.save(new BankAccount(null, "1-2345", 1000.00));
+
+        BankAccountBalance previous = bankAccountRepository.update(savedBankAccount.getId(), "1-2345", 2000.00).get();
+
+        assertEquals(savedBankAccount.getId(), previous.getId());
+        assertEquals(0L, previous.getVersion());
+        assertEquals(1L, bankAccountRepository.credit(savedBankAccount.getId(), 10.00).get().getVersion());
+    }
+
+    @Test
+    public void findByNumberStartingWithOrderByNumberAsc_PrefixWithWildcard_MatchLiterally() {
+        bankAccountRepository.save(new BankAccount(null, "1-23", 1000.00));
+        bankAccountRepository.save(new BankAccount(null, "1_234", 1000.00));
+        bankAccountRepository.save(new BankAccount(null, "1-2345", 1000.00));
+        bankAccountRepository.save(new BankAccount(null, "2-2345", 1000.00));
+
+        List<BankAccount> bankAccounts = bankAccountRepository.findByNumberStartingWithOrderByNumberAsc("1-2", PageRequest.of(0, 10));
+
+        assertEquals(List.of("1-23", "1-2345"), bankAccounts.stream().map(BankAccount::getNumber).toList());
+        assertEquals(List.of("1_234"), bankAccountRepository.findByNumberStartingWithOrderByNumberAsc("1_", PageRequest.of(0, 10))
+                .stream().map(BankAccount::getNumber).toList());
+    }
+
+    @Test
+    public void findByBalanceBetween_SortedByBalanceDescending_ReturnTopAccountsInRange() {
+        bankAccountRepository.save(new BankAccount(null, "1-2345", 50.00));
+        BankAccount second = bankAccountRepository.save(new BankAccount(null, "2-2345", 500.00));
+        BankAccount third = bankAccountRepository.save(new BankAccount(null, "3-2345", 5000.00));
+        bankAccountRepository.save(new BankAccount(null, "4-2345", 50000.00));
+
+        List<BankAccount> bankAccounts = bankAccountRepository.findByBalanceBetween(100.00, 10000.00,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "balance", "id")));
+
+        assertEquals(List.of(third.getId(), second.getId()), bankAccounts.stream().map(BankAccount::getId).toList());
+    }
+
+    @Test
+    public void findAll_ExampleWithNumberPrefixAndBalance_ReturnMatchingAccounts() {
+        bankAccountRepository.save(new BankAccount(null, "1-2345", 1000.00));
+        BankAccount second = bankAccountRepository.save(new BankAccount(null, "1-6789", 2000.00));
+        bankAccountRepository.save(new BankAccount(null, "2-2345", 2000.00));
+
+        Example<BankAccount> example = Example.of(new BankAccount(null, "1-", 2000.00),
+                ExampleMatcher.matching().withMatcher("number", ExampleMatcher.GenericPropertyMatchers.startsWith()));
+
+        assertEquals(List.of(second.getId()), bankAccountRepository.findAll(example).stream().map(BankAccount::getId).toList());
+        assertEquals(1, bankAccountRepository.count(example));
+        assertTrue(bankAccountRepository.exists(example));
+        assertEquals(Optional.of(second.getId()), bankAccountRepository.findOne(example).map(BankAccount::getId));
+        assertFalse(bankAccountRepository.exists(Example.of(new BankAccount(null, "3-2345", null))));
+    }
+
+    @Test
+    public void findBy_ExampleMatchingAny_ReturnSortedPage() {
+        BankAccount first = bankAccountRepository.save(new BankAccount(null, "1-2345", 1000.00));
+        bankAccountRepository.save(new BankAccount(null, "2-2345", 2000.00));
+        BankAccount third = bankAccountRepository.save(new BankAccount(null, "3-2345", 3000.00));
+
+        Example<BankAccount> example = Example.of(new BankAccount(null, "1-2345", 3000.00), ExampleMatcher.matchingAny());
+
+        List<Long> ids = bankAccountRepository.findBy(example, query -> query.sortBy(Sort.by(Sort.Direction.DESC, "balance")).page(PageRequest.of(0, 10)))
+                .map(BankAccount::getId).getContent();
+
+        assertEquals(List.of(third.getId(), first.getId()), ids);
+        assertEquals(Long.valueOf(2), bankAccountRepository.findBy(example, FluentQuery.FetchableFluentQuery::count));
+    }
 }
@@ -0,0 +1,80 @@
+package com.andrefilho99.unittesting.repository;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Import(InMemoryBankAccountRepository.class)
+@ActiveProfiles("in-memory")
+public class InMemoryBankAccountRepositoryTest extends BankAccountRepositoryTest {
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void findById_RowsWrittenByOpenTransaction_ReturnCommittedRowsUntilCommit() throws Exception {
+        bankAccountRepository.deleteAll();
+        BankAccount updated = bankAccountRepository.save(new BankAccount(null, "1-2345", 1000.00));
+        BankAccount deleted = bankAccountRepository.save(new BankAccount(null, "2-2345", 2000.00));
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        CompletableFuture<Long> writer = CompletableFuture.supplyAsync(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            bankAccountRepository.update(updated.getId(), "3-2345", 3000.00);
+            bankAccountRepository.deleteBankAccountById(deleted.getId());
+            Long inserted = bankAccountRepository.save(new BankAccount(null, "4-2345", 4000.00)).getId();
+            written.countDown();
+
+            try {
+                commit.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return inserted;
+        }));
+
+        assertTrue(written.await(10, TimeUnit.SECONDS));
+
+        assertEquals(1000.00, bankAccountRepository.findById(updated.getId()).orElseThrow().getBalance());
+        assertEquals(updated.getId(), bankAccountRepository.findByNumber("1-2345").getId());
+        assertNull(bankAccountRepository.findByNumber("3-2345"));
+        assertTrue(bankAccountRepository.existsById(deleted.getId()));
+        assertEquals(deleted.getId(), bankAccountRepository.findByNumber("2-2345").getId());
+        assertNull(bankAccountRepository.findByNumber("4-2345"));
+        assertEquals(List.of("1-2345", "2-2345"), bankAccountRepository.findAll().stream().map(BankAccount::getNumber).toList());
+        assertEquals(List.of("1-2345", "2-2345"), bankAccountRepository.streamAll().map(BankAccount::getNumber).toList());
+        assertEquals(2, bankAccountRepository.count());
+
+        commit.countDown();
+        Long inserted = writer.get(10, TimeUnit.SECONDS);
+
+        assertEquals(3000.00, bankAccountRepository.findById(updated.getId()).orElseThrow().getBalance());
+        assertFalse(bankAccountRepository.existsById(deleted.getId()));
+        assertEquals(inserted, bankAccountRepository.findByNumber("4-2345").getId());
+        assertEquals(List.of("3-2345", "4-2345"), bankAccountRepository.findAll().stream().map(BankAccount::getNumber).toList());
+        assertEquals(2, bankAccountRepository.count());
+
+        bankAccountRepository.deleteAll();
+    }
+}
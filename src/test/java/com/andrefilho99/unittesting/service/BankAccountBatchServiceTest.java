@@ -0,0 +1,86 @@
+package com.andrefilho99.unittesting.service;
+
+import com.andrefilho99.unittesting.cache.BankAccountAggregates;
+import com.andrefilho99.unittesting.cache.BankAccountBalanceIndex;
+import com.andrefilho99.unittesting.cache.BankAccountChangeCounter;
+import com.andrefilho99.unittesting.cache.BankAccountChangeFeed;
+import com.andrefilho99.unittesting.cache.BankAccountIdFilter;
+import com.andrefilho99.unittesting.cache.BankAccountNumberIndex;
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.dto.BankAccountBatchResult;
+import com.andrefilho99.unittesting.repository.BankAccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+@Import({BankAccountBatchService.class, BankAccountChangeCounter.class, BankAccountChangeFeed.class, BankAccountAggregates.class, BankAccountBalanceIndex.class, BankAccountNumberIndex.class, BankAccountIdFilter.class})
+@TestPropertySource(properties = "bank-account.batch.chunk-size=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BankAccountBatchServiceTest {
+
+    @Autowired
+    private BankAccountBatchService bankAccountBatchService;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @BeforeEach
+    public void before() {
+        bankAccountRepository.deleteAll();
+    }
+
+    @Test
+    public void createAll_FiveBankAccounts_PersistAllAcrossChunksInOrder() {
+        List<BankAccountBatchResult> results = bankAccountBatchService.createAll(Stream.of(
+                new BankAccount(null, "1-1234", 1000.00),
+                new BankAccount(null, "2-1234", 2000.00),
+                new BankAccount(null, "3-1234", 3000.00),
+                new BankAccount(null, "4-1234", 4000.00),
+                new BankAccount(null, "5-1234", 5000.00)
+        ));
+
+        assertEquals(5, results.size());
+        assertEquals(5, bankAccountRepository.count());
+
+        for (int index = 0; index < results.size(); index++) {
+            assertEquals((long) index, results.get(index).getIndex());
+            assertEquals(201, results.get(index).getStatus());
+            assertEquals(String.format("%d-1234", index + 1), bankAccountRepository.findById(results.get(index).getId()).get().getNumber());
+        }
+    }
+
+    @Test
+    public void createAll_DuplicateNumberInChunk_ReportConflictAndPersistTheRest() {
+        bankAccountRepository.save(new BankAccount(null, "3-1234", 3000.00));
+
+        List<BankAccountBatchResult> results = bankAccountBatchService.createAll(Stream.of(
+                new BankAccount(null, "1-1234", 1000.00),
+                new BankAccount(null, "2-1234", 2000.00),
+                new BankAccount(null, "3-1234", 3000.00),
+                new BankAccount(null, "4-1234", 4000.00)
+        ));
+
+        assertEquals(4, results.size());
+        assertEquals(201, results.get(0).getStatus());
+        assertEquals(201, results.get(1).getStatus());
+        assertEquals(409, results.get(2).getStatus());
+        assertNull(results.get(2).getId());
+        assertEquals("Bank account with number 3-1234 already exists.", results.get(2).getError());
+        assertEquals(201, results.get(3).getStatus());
+        assertNotNull(bankAccountRepository.findByNumber("4-1234"));
+        assertEquals(4, bankAccountRepository.count());
+    }
+}
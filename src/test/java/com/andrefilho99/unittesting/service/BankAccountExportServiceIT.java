@@ -0,0 +1,110 @@
+package com.andrefilho99.unittesting.service;
+
+import com.andrefilho99.unittesting.configuration.AppConfig;
+import com.andrefilho99.unittesting.dto.BankAccountFileFormat;
+import com.andrefilho99.unittesting.mapper.BankAccountMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Exports millions of rows through the repository stream and samples the heap (after a GC) every
+// tenth of the way, so it runs with the integration tests rather than on every build. It uses the
+// application's H2 settings, since without lazy query execution H2 copies the whole result first.
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:export;LAZY_QUERY_EXECUTION=1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureJson
+@Import({AppConfig.class, BankAccountService.class, BankAccountExportService.class, BankAccountMapper.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class BankAccountExportServiceIT {
+
+    private static final long ROWS = Long.getLong("export.rows", 1_000_000L);
+    private static final long SAMPLE_EVERY = ROWS / 10;
+    private static final long MAX_HEAP_GROWTH = 32L * 1024 * 1024;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BankAccountExportService bankAccountExportService;
+
+    @BeforeAll
+    public void beforeAll() {
+        jdbcTemplate.update("delete from bank_account");
+        jdbcTemplate.update("insert into bank_account (id, number, balance, version) select x, concat('1-', x), 1000.00, 0 from system_range(1, ?)", ROWS);
+    }
+
+    @Test
+    public void export_MillionsOfRowsAsCsv_KeepHeapFlat() throws IOException {
+        assertHeapStaysFlat(BankAccountFileFormat.CSV, ROWS + 1);
+    }
+
+    @Test
+    public void export_MillionsOfRowsAsNdjson_KeepHeapFlat() throws IOException {
+        assertHeapStaysFlat(BankAccountFileFormat.NDJSON, ROWS - 1);
+    }
+
+    private void assertHeapStaysFlat(BankAccountFileFormat format, long expectedLines) throws IOException {
+        SamplingOutputStream outputStream = new SamplingOutputStream(usedHeap());
+
+        bankAccountExportService.export(format, outputStream);
+
+        assertTrue(outputStream.maxHeap - outputStream.startHeap < MAX_HEAP_GROWTH,
+                String.format("heap grew by %d bytes while exporting %d rows", outputStream.maxHeap - outputStream.startHeap, ROWS));
+        assertEquals(expectedLines, outputStream.lines);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class SamplingOutputStream extends OutputStream {
+
+        private final long startHeap;
+        private long maxHeap;
+        private long lines;
+
+        private SamplingOutputStream(long startHeap) {
+            this.startHeap = startHeap;
+            this.maxHeap = startHeap;
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                line();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    line();
+                }
+            }
+        }
+
+        private void line() {
+            if (++lines % SAMPLE_EVERY == 0) {
+                maxHeap = Math.max(maxHeap, usedHeap());
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.andrefilho99.unittesting.service;
+
+import com.andrefilho99.unittesting.configuration.AppConfig;
+import com.andrefilho99.unittesting.dto.BankAccountFileFormat;
+import com.andrefilho99.unittesting.mapper.BankAccountMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@AutoConfigureJson
+@Import({AppConfig.class, BankAccountService.class, BankAccountExportService.class, BankAccountMapper.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BankAccountExportServiceTest {
+
+    private static final int ROWS = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BankAccountExportService bankAccountExportService;
+
+    @BeforeEach
+    public void before() {
+        jdbcTemplate.update("delete from bank_account");
+        jdbcTemplate.update("insert into bank_account (id, number, balance, version) select x, concat('1-', x), 1000.00, 0 from system_range(1, ?)", ROWS);
+    }
+
+    @Test
+    public void export_FormatCsv_WriteHeaderAndOneRowPerAccountInIdOrder() throws IOException {
+        String[] lines = export(BankAccountFileFormat.CSV);
+
+        assertEquals(ROWS + 1, lines.length);
+        assertEquals("id,number,balance", lines[0]);
+        assertEquals("1,1-1,1000.0", lines[1]);
+        assertEquals(ROWS + ",1-" + ROWS + ",1000.0", lines[ROWS]);
+    }
+
+    @Test
+    public void export_FormatNdjson_WriteOneObjectPerAccountInIdOrder() throws IOException {
+        String[] lines = export(BankAccountFileFormat.NDJSON);
+
+        assertEquals(ROWS, lines.length);
+        assertEquals("{\"id\":1,\"number\":\"1-1\",\"balance\":1000.0}", lines[0]);
+        assertEquals("{\"id\":" + ROWS + ",\"number\":\"1-" + ROWS + "\",\"balance\":1000.0}", lines[ROWS - 1]);
+    }
+
+    private String[] export(BankAccountFileFormat format) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        bankAccountExportService.export(format, outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8).split("\n");
+    }
+}
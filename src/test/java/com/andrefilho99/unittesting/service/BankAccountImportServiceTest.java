@@ -0,0 +1,204 @@
+package com.andrefilho99.unittesting.service;
+
+import com.andrefilho99.unittesting.cache.BankAccountAggregates;
+import com.andrefilho99.unittesting.cache.BankAccountBalanceIndex;
+import com.andrefilho99.unittesting.cache.BankAccountChangeCounter;
+import com.andrefilho99.unittesting.cache.BankAccountChangeFeed;
+import com.andrefilho99.unittesting.cache.BankAccountIdFilter;
+import com.andrefilho99.unittesting.cache.BankAccountNumberIndex;
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.dto.BankAccountBatchResult;
+import com.andrefilho99.unittesting.dto.BankAccountFileFormat;
+import com.andrefilho99.unittesting.dto.BankAccountImportReport;
+import com.andrefilho99.unittesting.mapper.BankAccountMapper;
+import com.andrefilho99.unittesting.repository.BankAccountRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({BankAccountImportService.class, BankAccountBatchService.class, BankAccountChangeCounter.class, BankAccountChangeFeed.class, BankAccountAggregates.class, BankAccountBalanceIndex.class, BankAccountNumberIndex.class, BankAccountIdFilter.class, BankAccountMapper.class})
+@TestPropertySource(properties = "bank-account.batch.chunk-size=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BankAccountImportServiceTest {
+
+    @Autowired
+    private BankAccountImportService bankAccountImportService;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @BeforeEach
+    public void before() {
+        bankAccountRepository.deleteAll();
+    }
+
+    @Test
+    public void importAll_CsvWithInvalidAndDuplicateRows_ImportTheRestAndReportRejectedRows() throws IOException {
+        bankAccountRepository.save(new BankAccount(null, "3-1234", 3000.00));
+
+        BankAccountImportReport report = bankAccountImportService.importAll(BankAccountFileFormat.CSV, input(
+                "id,number,balance",
+                "1,1-1234,1000.0",
+                "2,\"2,1234\",2000.0",
+                "3,3-1234,3000.0",
+                "4,4-1234,abc",
+                "5,,5000.0",
+                "6,6-1234,6000.0"
+        ), 0);
+
+        assertTrue(report.getCompleted());
+        assertEquals(6, report.getRows());
+        assertEquals(3, report.getImported());
+        assertEquals(3, report.getRejected());
+        assertEquals(6, report.getCheckpoint());
+        assertEquals(4, bankAccountRepository.count());
+        assertNotNull(bankAccountRepository.findByNumber("2,1234"));
+
+        List<BankAccountBatchResult> rejections = report.getRejections();
+        assertEquals(3L, rejections.get(0).getIndex());
+        assertEquals(409, rejections.get(0).getStatus());
+        assertEquals(4L, rejections.get(1).getIndex());
+        assertEquals(400, rejections.get(1).getStatus());
+        assertEquals("Invalid balance abc.", rejections.get(1).getError());
+        assertEquals(5L, rejections.get(2).getIndex());
+        assertEquals("Number is required.", rejections.get(2).getError());
+    }
+
+    @Test
+    public void importAll_NdjsonWithMalformedLine_RejectOnlyThatLine() throws IOException {
+        BankAccountImportReport report = bankAccountImportService.importAll(BankAccountFileFormat.NDJSON, input(
+                "{\"number\":\"1-1234\",\"balance\":1000.0}",
+                "{\"number\":\"2-1234\",",
+                "",
+                "{\"number\":\"3-1234\",\"balance\":3000.0}"
+        ), 0);
+
+        assertTrue(report.getCompleted());
+        assertEquals(3, report.getRows());
+        assertEquals(2, report.getImported());
+        assertEquals(2L, report.getRejections().get(0).getIndex());
+        assertEquals("Malformed JSON.", report.getRejections().get(0).getError());
+    }
+
+    @Test
+    public void importAll_ResumeFromCheckpoint_SkipCommittedRowsAndReportEachChunk() throws IOException {
+        List<Long> checkpoints = new ArrayList<>();
+
+        BankAccountImportReport report = bankAccountImportService.importAll(BankAccountFileFormat.CSV, input(
+                "number,balance",
+                "1-1234,1000.0",
+                "2-1234,2000.0",
+                "3-1234,3000.0",
+                "4-1234,4000.0",
+                "5-1234,5000.0",
+                "6-1234,6000.0",
+                "7-1234,7000.0"
+        ), 2, checkpoints::add);
+
+        assertEquals(5, report.getRows());
+        assertEquals(5, report.getImported());
+        assertEquals(7, report.getCheckpoint());
+        assertEquals(List.of(4L, 6L, 7L), checkpoints);
+        assertEquals(5, bankAccountRepository.count());
+        assertEquals(null, bankAccountRepository.findByNumber("2-1234"));
+    }
+
+    @Test
+    public void importAll_WriterFallsBehind_StopReadingUntilChunksAreWritten() throws Exception {
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        BankAccountBatchService bankAccountBatchService = mock(BankAccountBatchService.class);
+        when(bankAccountBatchService.getChunkSize()).thenReturn(100);
+        when(bankAccountBatchService.saveChunk(anyList(), anyInt())).thenAnswer(invocation -> {
+            writerBlocked.await();
+            List<BankAccount> chunk = invocation.getArgument(0);
+            List<BankAccountBatchResult> results = new ArrayList<>();
+            for (int index = 0; index < chunk.size(); index++) {
+                results.add(BankAccountBatchResult.builder().index((long) index).id((long) index).status(201).build());
+            }
+            return results;
+        });
+
+        BankAccountImportService importService = new BankAccountImportService(
+                bankAccountBatchService, new BankAccountMapper(), new ObjectMapper(), 2, 10);
+        GeneratedNdjsonInputStream inputStream = new GeneratedNdjsonInputStream(100_000);
+
+        CompletableFuture<BankAccountImportReport> report = CompletableFuture.supplyAsync(() -> {
+            try {
+                return importService.importAll(BankAccountFileFormat.NDJSON, inputStream, 0);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        TimeUnit.MILLISECONDS.sleep(500);
+        long linesReadWhileBlocked = inputStream.lines.get();
+
+        assertFalse(report.isDone());
+        assertTrue(linesReadWhileBlocked < 10_000, String.format("%d lines read while the writer was blocked", linesReadWhileBlocked));
+
+        writerBlocked.countDown();
+
+        assertEquals(100_000, report.get(30, TimeUnit.SECONDS).getImported());
+    }
+
+    private InputStream input(String... lines) {
+        return new ByteArrayInputStream((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class GeneratedNdjsonInputStream extends InputStream {
+
+        private final long totalLines;
+        private final AtomicLong lines = new AtomicLong();
+        private byte[] line = new byte[0];
+        private int position;
+
+        private GeneratedNdjsonInputStream(long totalLines) {
+            this.totalLines = totalLines;
+        }
+
+        @Override
+        public int read() {
+            if (position == line.length) {
+                if (lines.get() == totalLines) {
+                    return -1;
+                }
+
+                long number = lines.incrementAndGet();
+                line = String.format("{\"number\":\"%d\",\"balance\":1.0}\n", number).getBytes(StandardCharsets.UTF_8);
+                position = 0;
+            }
+
+            return line[position++];
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.andrefilho99.unittesting.service;
+
+import com.andrefilho99.unittesting.cache.BankAccountAggregates;
+import com.andrefilho99.unittesting.cache.BankAccountBalanceIndex;
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.exceptions.BankAccountNotFoundException;
+import com.andrefilho99.unittesting.exceptions.InsufficientFundsException;
+import com.andrefilho99.unittesting.repository.BankAccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+@SpringBootTest(properties = "bank-account.balance-index.enabled=true")
+public class BankAccountServiceConcurrencyTest {
+
+    private static final int ACCOUNTS = 50;
+    private static final int TRANSFERS = 2000;
+    private static final int THREADS = 16;
+    private static final double INITIAL_BALANCE = 1000.00;
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private BankAccountAggregates bankAccountAggregates;
+
+    @Autowired
+    private BankAccountBalanceIndex bankAccountBalanceIndex;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    public void before() {
+        bankAccountRepository.deleteAll();
+        bankAccountAggregates.rebuild(Stream.empty());
+        bankAccountBalanceIndex.rebuild(Stream.empty());
+        ids = new ArrayList<>();
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            ids.add(bankAccountService.create(new BankAccount(null, String.format("9-%04d", i), INITIAL_BALANCE)).getId());
+        }
+    }
+
+    @Test
+    public void transfer_ThousandsOfParallelTransfers_TotalBalanceIsConserved() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < TRANSFERS; i++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Long fromId = ids.get(random.nextInt(ACCOUNTS));
+                Long toId = ids.get(random.nextInt(ACCOUNTS));
+
+                if (fromId.equals(toId)) {
+                    return;
+                }
+
+                try {
+                    bankAccountService.transfer(fromId, toId, (double) random.nextInt(1, 100));
+                } catch (InsufficientFundsException e) {
+                    rejected.incrementAndGet();
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+
+        log.info("{} transfers on {} threads in {} ms ({} transfers/s, {} rejected for insufficient funds)",
+                TRANSFERS, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                Math.round(TRANSFERS / (elapsedNanos / 1e9)), rejected.get());
+
+        List<BankAccount> bankAccounts = bankAccountRepository.findAll();
+        double total = bankAccounts.stream().mapToDouble(BankAccount::getBalance).sum();
+
+        assertEquals(ACCOUNTS * INITIAL_BALANCE, total);
+        assertTrue(bankAccounts.stream().allMatch(bankAccount -> bankAccount.getBalance() >= 0));
+    }
+
+    @Test
+    public void statsAndBalanceIndex_ParallelMixedWrites_MatchFullRecompute() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger created = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < TRANSFERS; i++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Long id = ids.get(random.nextInt(ACCOUNTS));
+                double amount = random.nextInt(1, 5000);
+
+                try {
+                    switch (random.nextInt(6)) {
+                        case 0 -> bankAccountService.create(new BankAccount(null, String.format("8-%05d", created.incrementAndGet()), amount));
+                        case 1 -> bankAccountService.update(id, new BankAccount(null, bankAccountService.getById(id).getNumber(), amount));
+                        case 2 -> bankAccountService.patch(id, new BankAccount(null, null, amount));
+                        case 3 -> bankAccountService.credit(id, amount);
+                        case 4 -> bankAccountService.debit(id, amount);
+                        default -> bankAccountService.delete(id);
+                    }
+                } catch (BankAccountNotFoundException | InsufficientFundsException e) {
+                    // deleted by another writer or rejected, neither may move the aggregates
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+
+        executor.shutdown();
+
+        BankAccountAggregates recomputed = new BankAccountAggregates();
+        recomputed.rebuild(bankAccountRepository.findAll().stream().map(BankAccount::getBalance));
+
+        assertEquals(recomputed.snapshot(), bankAccountAggregates.snapshot());
+
+        List<Long> idsByBalance = bankAccountRepository.findAll(Sort.by("balance", "id")).stream().map(BankAccount::getId).toList();
+
+        assertEquals(idsByBalance, bankAccountBalanceIndex.findIds(-Double.MAX_VALUE, Double.MAX_VALUE, false, Integer.MAX_VALUE));
+    }
+}
@@ -1,21 +1,49 @@
 package com.andrefilho99.unittesting.service;
 
+import com.andrefilho99.unittesting.cache.BankAccountAggregates;
+import com.andrefilho99.unittesting.cache.BankAccountBalanceIndex;
+import com.andrefilho99.unittesting.cache.BankAccountCache;
+import com.andrefilho99.unittesting.cache.BankAccountChangeCounter;
+import com.andrefilho99.unittesting.cache.BankAccountChangeFeed;
+import com.andrefilho99.unittesting.cache.BankAccountIdFilter;
+import com.andrefilho99.unittesting.cache.BankAccountNumberIndex;
 import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.dto.BankAccountChangeEvent;
+import com.andrefilho99.unittesting.dto.BankAccountChangeType;
 import com.andrefilho99.unittesting.exceptions.BankAccountNotFoundException;
+import com.andrefilho99.unittesting.exceptions.BankAccountVersionMismatchException;
+import com.andrefilho99.unittesting.exceptions.InsufficientFundsException;
+import com.andrefilho99.unittesting.exceptions.InvalidBankAccountOperationException;
+import com.andrefilho99.unittesting.repository.BankAccountBalance;
 import com.andrefilho99.unittesting.repository.BankAccountRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +55,33 @@ public class BankAccountServiceTest {
     @Mock
     private BankAccountRepository bankAccountRepository;
 
+    @Spy
+    private BankAccountCache bankAccountCache = new BankAccountCache(100, Duration.ofMinutes(1));
+
+    @Spy
+    private BankAccountChangeCounter bankAccountChangeCounter = new BankAccountChangeCounter();
+
+    @Spy
+    private BankAccountChangeFeed bankAccountChangeFeed = new BankAccountChangeFeed(16);
+
+    @Spy
+    private BankAccountAggregates bankAccountAggregates = new BankAccountAggregates();
+
+    @Spy
+    private BankAccountBalanceIndex bankAccountBalanceIndex = BankAccountBalanceIndex.disabled();
+
+    @Spy
+    private BankAccountNumberIndex bankAccountNumberIndex = new BankAccountNumberIndex();
+
+    @Spy
+    private BankAccountIdFilter bankAccountIdFilter = BankAccountIdFilter.disabled();
+
+    @Spy
+    private BankAccountWriteBehindQueue bankAccountWriteBehindQueue = BankAccountWriteBehindQueue.disabled();
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private BankAccount existingBankAccount;
     private BankAccount updatedBankAccount;
     private BankAccount newBankAccount;
@@ -61,6 +116,18 @@ public class BankAccountServiceTest {
         assertEquals(1000.00, bankAccounts.get(0).getBalance());
     }
 
+    @Test
+    public void getPage_AfterId1WithLimit2_ReturnNextAccountsInAList() {
+        when(bankAccountRepository.findByIdGreaterThanOrderByIdAsc(1L, PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(new BankAccount(2L, "2-1234", 500.00), new BankAccount(3L, "3-1234", 750.00)));
+
+        List<BankAccount> bankAccounts = bankAccountService.getPage(1L, 2);
+
+        assertEquals(2, bankAccounts.size());
+        assertEquals(2L, bankAccounts.get(0).getId());
+        assertEquals(3L, bankAccounts.get(1).getId());
+    }
+
     @Test
     public void getById_BankAccountWithId1Created_ReturnAccountWithId1() {
         when(bankAccountRepository.findById(1L))
@@ -73,6 +140,35 @@ public class BankAccountServiceTest {
         assertEquals(1000.00, bankAccount.getBalance());
     }
 
+    @Test
+    public void getById_BankAccountWithId1ReadTwice_QueryRepositoryOnce() {
+        when(bankAccountRepository.findById(1L))
+                .thenReturn(Optional.of(existingBankAccount));
+
+        bankAccountService.getById(1L);
+        BankAccount bankAccount = bankAccountService.getById(1L);
+
+        assertEquals(1L, bankAccount.getId());
+        verify(bankAccountRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    public void getById_BankAccountWithId1ReadAfterUpdate_QueryRepositoryAgain() {
+        newBankAccount = new BankAccount(null, "2-1234", 1250.00);
+
+        when(bankAccountRepository.findById(1L))
+                .thenReturn(Optional.of(existingBankAccount));
+
+        when(bankAccountRepository.update(1L, "2-1234", 1250.00))
+                .thenReturn(Optional.of(previous(1000.00)));
+
+        bankAccountService.getById(1L);
+        bankAccountService.update(1L, newBankAccount);
+        bankAccountService.getById(1L);
+
+        verify(bankAccountRepository, times(2)).findById(1L);
+    }
+
     @Test
     public void getById_BankAccountWithId1NotPresent_ThrowBankAccountNotFoundException() {
         when(bankAccountRepository.findById(1L)).thenReturn(Optional.empty());
@@ -82,6 +178,53 @@ public class BankAccountServiceTest {
         assertEquals("Bank account with id 1 not found.", exception.getMessage());
     }
 
+    @Test
+    public void getById_IdNotInFilter_ThrowStacklessExceptionWithoutQueryingRepository() {
+        doReturn(false).when(bankAccountIdFilter).mightExist(1L);
+
+        RuntimeException exception = assertThrows(BankAccountNotFoundException.class, () -> bankAccountService.getById(1L));
+
+        assertEquals("Bank account with id 1 not found.", exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length);
+        verify(bankAccountRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    public void getByNumber_BankAccountWithNumber11234Created_ReturnAccountWithId1() {
+        when(bankAccountRepository.findByNumber("1-1234")).thenReturn(existingBankAccount);
+        when(bankAccountRepository.findById(1L)).thenReturn(Optional.of(existingBankAccount));
+
+        bankAccountService.getByNumber("1-1234");
+        BankAccount bankAccount = bankAccountService.getByNumber("1-1234");
+
+        assertEquals(1L, bankAccount.getId());
+        assertEquals("1-1234", bankAccount.getNumber());
+        verify(bankAccountRepository, times(1)).findByNumber("1-1234");
+        verify(bankAccountRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    public void getByNumber_BankAccountNumberChanged_ThrowBankAccountNotFoundException() {
+        when(bankAccountRepository.findByNumber("1-1234"))
+                .thenReturn(existingBankAccount)
+                .thenReturn(null);
+        when(bankAccountRepository.findById(1L))
+                .thenReturn(Optional.of(updatedBankAccount));
+
+        RuntimeException exception = assertThrows(BankAccountNotFoundException.class, () -> bankAccountService.getByNumber("1-1234"));
+
+        assertEquals("Bank account with number 1-1234 not found.", exception.getMessage());
+    }
+
+    @Test
+    public void getByNumber_BankAccountWithNumber11234NotPresent_ThrowBankAccountNotFoundException() {
+        when(bankAccountRepository.findByNumber("1-1234")).thenReturn(null);
+
+        RuntimeException exception = assertThrows(BankAccountNotFoundException.class, () -> bankAccountService.getByNumber("1-1234"));
+
+        assertEquals("Bank account with number 1-1234 not found.", exception.getMessage());
+    }
+
     @Test
     public void create_CreateBankAccount_ReturnAccountWithId1() {
         when(bankAccountRepository.save(newBankAccount))
@@ -98,41 +241,273 @@ public class BankAccountServiceTest {
     public void update_BankAccountWithId1UpdateNumberAndBalance_ReturnAccountWithId1AndUpdatedNumberAndBalance() {
         newBankAccount = new BankAccount(null, "2-1234", 1250.00);
 
-        when(bankAccountRepository.findById(1L))
-                .thenReturn(Optional.of(existingBankAccount));
-
-        when(bankAccountRepository.save(updatedBankAccount))
-                .thenReturn(updatedBankAccount);
+        when(bankAccountRepository.update(1L, "2-1234", 1250.00))
+                .thenReturn(Optional.of(previous(1000.00)));
 
         BankAccount savedBankAccount = bankAccountService.update(1L, newBankAccount);
 
         assertEquals(1L, savedBankAccount.getId());
         assertEquals("2-1234", savedBankAccount.getNumber());
         assertEquals(1250.00, savedBankAccount.getBalance());
+        assertEquals(1L, savedBankAccount.getVersion());
     }
 
     @Test
     public void update_AccountWithId1NotPresent_ThrowBankAccountNotFoundException() {
         newBankAccount = new BankAccount(null, "2-1234", 1250.00);
 
-        when(bankAccountRepository.findById(1L)).thenReturn(Optional.empty());
+        when(bankAccountRepository.update(1L, "2-1234", 1250.00)).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(BankAccountNotFoundException.class, () -> bankAccountService.update(1L, newBankAccount));
 
         assertEquals("Bank account with id 1 not found.", exception.getMessage());
     }
 
+    @Test
+    public void update_ExpectedVersionMatches_ReturnAccountAtNextVersionAndMoveChangeTag() {
+        newBankAccount = new BankAccount(null, "2-1234", 1250.00);
+        String changeTag = bankAccountService.getChangeTag();
+
+        when(bankAccountRepository.updateIfVersion(1L, "2-1234", 1250.00, 3L)).thenReturn(Optional.of(previous(1000.00)));
+
+        BankAccount savedBankAccount = bankAccountService.update(1L, newBankAccount, 3L);
+
+        assertEquals(4L, savedBankAccount.getVersion());
+        assertNotEquals(changeTag, bankAccountService.getChangeTag());
+    }
+
+    @Test
+    public void update_ExpectedVersionStale_ThrowBankAccountVersionMismatchException() {
+        newBankAccount = new BankAccount(null, "2-1234", 1250.00);
+
+        when(bankAccountRepository.updateIfVersion(1L, "2-1234", 1250.00, 3L)).thenReturn(Optional.empty());
+        when(bankAccountRepository.existsById(1L)).thenReturn(true);
+
+        RuntimeException exception = assertThrows(BankAccountVersionMismatchException.class, () -> bankAccountService.update(1L, newBankAccount, 3L));
+
+        assertEquals("Bank account with id 1 is no longer at version 3.", exception.getMessage());
+    }
+
+    @Test
+    public void delete_ExpectedVersionOnMissingAccount_ThrowBankAccountNotFoundException() {
+        when(bankAccountRepository.deleteBankAccountByIdIfVersion(1L, 3L)).thenReturn(Optional.empty());
+        when(bankAccountRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(BankAccountNotFoundException.class, () -> bankAccountService.delete(1L, 3L));
+    }
+
+    @Test
+    public void patch_BankAccountWithId1PatchBalanceOnly_ReturnAccountWithId1AndUpdatedBalance() {
+        newBankAccount = new BankAccount(null, null, 1250.00);
+
+        when(bankAccountRepository.patch(1L, null, 1250.00))
+                .thenReturn(Optional.of(previous(1000.00)));
+        when(bankAccountRepository.findById(1L))
+                .thenReturn(Optional.of(new BankAccount(1L, "1-1234", 1250.00)));
+
+        BankAccount savedBankAccount = bankAccountService.patch(1L, newBankAccount);
+
+        assertEquals(1L, savedBankAccount.getId());
+        assertEquals("1-1234", savedBankAccount.getNumber());
+        assertEquals(1250.00, savedBankAccount.getBalance());
+    }
+
+    @Test
+    public void patch_AccountWithId1NotPresent_ThrowBankAccountNotFoundException() {
+        newBankAccount = new BankAccount(null, null, 1250.00);
+
+        when(bankAccountRepository.patch(1L, null, 1250.00)).thenReturn(Optional.empty());
+
+        RuntimeException exception = assertThrows(BankAccountNotFoundException.class, () -> bankAccountService.patch(1L, newBankAccount));
+
+        assertEquals("Bank account with id 1 not found.", exception.getMessage());
+    }
+
     @Test
     public void delete_DeleteAccountWithId1_Success() {
-        when(bankAccountRepository.findById(1L)).thenReturn(Optional.of(existingBankAccount));
+        when(bankAccountRepository.deleteBankAccountById(1L)).thenReturn(Optional.of(previous(1000.00)));
 
         bankAccountService.delete(1L);
+
+        verify(bankAccountRepository, never()).findById(1L);
+    }
+
+    @Test
+    public void getChanges_AccountCreatedUpdatedAndDeleted_ReturnOneEventPerWriteInOrder() {
+        when(bankAccountRepository.save(newBankAccount)).thenReturn(existingBankAccount);
+        when(bankAccountRepository.update(1L, "2-1234", 1250.00)).thenReturn(Optional.of(previous(1000.00)));
+        when(bankAccountRepository.deleteBankAccountById(1L)).thenReturn(Optional.of(previous(1250.00)));
+
+        bankAccountService.create(newBankAccount);
+        bankAccountService.update(1L, updatedBankAccount);
+        bankAccountService.delete(1L);
+
+        List<BankAccountChangeEvent> changes = bankAccountService.getChanges(0L, 10);
+
+        assertEquals(3L, bankAccountService.getLastChange());
+        assertEquals(List.of(BankAccountChangeType.CREATED, BankAccountChangeType.UPDATED, BankAccountChangeType.DELETED),
+                changes.stream().map(BankAccountChangeEvent::getType).toList());
+        assertEquals("2-1234", changes.get(1).getNumber());
+        assertEquals(1L, changes.get(1).getVersion());
+        assertEquals(List.of(2L, 3L), bankAccountService.getChanges(1L, 10).stream().map(BankAccountChangeEvent::getSequence).toList());
     }
 
     @Test
     public void delete_AccountWithId1NotPresent_ThrowBankAccountNotFoundException() {
-        when(bankAccountRepository.findById(1L)).thenReturn(Optional.empty());
+        when(bankAccountRepository.deleteBankAccountById(1L)).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(BankAccountNotFoundException.class, () -> bankAccountService.delete(1L));
     }
+
+    @Test
+    public void credit_BankAccountWithId1Credited250_ReturnAccountWithNewBalance() {
+        when(bankAccountRepository.credit(1L, 250.00)).thenReturn(Optional.of(previous(1000.00)));
+        when(bankAccountRepository.findById(1L))
+                .thenReturn(Optional.of(new BankAccount(1L, "1-1234", 1250.00)));
+
+        BankAccount bankAccount = bankAccountService.credit(1L, 250.00);
+
+        assertEquals(1250.00, bankAccount.getBalance());
+    }
+
+    @Test
+    public void credit_AccountWithId1NotPresent_ThrowBankAccountNotFoundException() {
+        when(bankAccountRepository.credit(1L, 250.00)).thenReturn(Optional.empty());
+
+        RuntimeException exception = assertThrows(BankAccountNotFoundException.class, () -> bankAccountService.credit(1L, 250.00));
+
+        assertEquals("Bank account with id 1 not found.", exception.getMessage());
+    }
+
+    @Test
+    public void credit_NegativeAmount_ThrowInvalidBankAccountOperationException() {
+        assertThrows(InvalidBankAccountOperationException.class, () -> bankAccountService.credit(1L, -250.00));
+
+        verify(bankAccountRepository, never()).credit(1L, -250.00);
+    }
+
+    @Test
+    public void debit_BalanceLowerThanAmount_ThrowInsufficientFundsException() {
+        when(bankAccountRepository.debit(1L, 2000.00)).thenReturn(Optional.empty());
+        when(bankAccountRepository.existsById(1L)).thenReturn(true);
+
+        RuntimeException exception = assertThrows(InsufficientFundsException.class, () -> bankAccountService.debit(1L, 2000.00));
+
+        assertEquals("Bank account with id 1 has insufficient funds.", exception.getMessage());
+    }
+
+    @Test
+    public void debit_AccountWithId1NotPresent_ThrowBankAccountNotFoundException() {
+        when(bankAccountRepository.debit(1L, 250.00)).thenReturn(Optional.empty());
+        when(bankAccountRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(BankAccountNotFoundException.class, () -> bankAccountService.debit(1L, 250.00));
+    }
+
+    @Test
+    public void transfer_FromHigherToLowerId_UpdateAccountsInAscendingIdOrder() {
+        when(bankAccountRepository.credit(1L, 100.00)).thenReturn(Optional.of(previous(1000.00)));
+        when(bankAccountRepository.debit(2L, 100.00)).thenReturn(Optional.of(previous(1000.00)));
+
+        bankAccountService.transfer(2L, 1L, 100.00);
+
+        InOrder inOrder = inOrder(bankAccountRepository);
+        inOrder.verify(bankAccountRepository).credit(1L, 100.00);
+        inOrder.verify(bankAccountRepository).debit(2L, 100.00);
+    }
+
+    @Test
+    public void transfer_FromLowerToHigherId_UpdateAccountsInAscendingIdOrder() {
+        when(bankAccountRepository.debit(1L, 100.00)).thenReturn(Optional.of(previous(1000.00)));
+        when(bankAccountRepository.credit(2L, 100.00)).thenReturn(Optional.of(previous(1000.00)));
+
+        bankAccountService.transfer(1L, 2L, 100.00);
+
+        InOrder inOrder = inOrder(bankAccountRepository);
+        inOrder.verify(bankAccountRepository).debit(1L, 100.00);
+        inOrder.verify(bankAccountRepository).credit(2L, 100.00);
+    }
+
+    @Test
+    public void transfer_SameAccount_ThrowInvalidBankAccountOperationException() {
+        RuntimeException exception = assertThrows(InvalidBankAccountOperationException.class, () -> bankAccountService.transfer(1L, 1L, 100.00));
+
+        assertEquals("Cannot transfer to the same bank account.", exception.getMessage());
+    }
+
+    @Test
+    public void getByBalance_NoIndexAndOpenRange_QueryRepositoryByBalanceDescending() {
+        when(bankAccountRepository.findByBalanceBetween(-Double.MAX_VALUE, 5000.00, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "balance", "id"))))
+                .thenReturn(List.of(existingBankAccount));
+
+        List<BankAccount> bankAccounts = bankAccountService.getByBalance(null, 5000.00, true, 10);
+
+        assertEquals(List.of(existingBankAccount), bankAccounts);
+    }
+
+    @Test
+    public void search_IndexHoldsStaleNumber_FetchMatchesInOneQueryAndDropStaleEntry() {
+        bankAccountNumberIndex.updated(1L, null, "1-1234", 0L);
+        bankAccountNumberIndex.updated(2L, null, "1-2345", 0L);
+        bankAccountNumberIndex.updated(3L, null, "2-1234", 0L);
+
+        when(bankAccountRepository.findAllById(List.of(1L, 2L)))
+                .thenReturn(List.of(existingBankAccount, new BankAccount(2L, "3-2345", 500.00)));
+
+        List<BankAccount> bankAccounts = bankAccountService.search("1-", 10);
+
+        assertEquals(List.of(existingBankAccount), bankAccounts);
+        assertEquals(2, bankAccountNumberIndex.size());
+        verify(bankAccountRepository, times(1)).findAllById(List.of(1L, 2L));
+    }
+
+    @Test
+    public void getByIds_DuplicateAndMissingIds_ReturnFoundAccountsInRequestOrderFromOneQuery() {
+        BankAccount other = new BankAccount(3L, "3-1234", 500.00);
+
+        when(bankAccountRepository.findAllById(List.of(3L, 1L, 2L)))
+                .thenReturn(List.of(existingBankAccount, other));
+
+        Map<Long, BankAccount> bankAccounts = bankAccountService.getByIds(Arrays.asList(3L, 1L, null, 3L, 2L));
+
+        assertEquals(List.of(3L, 1L), List.copyOf(bankAccounts.keySet()));
+        assertEquals(other, bankAccounts.get(3L));
+        verify(bankAccountRepository, times(1)).findAllById(List.of(3L, 1L, 2L));
+    }
+
+    @Test
+    public void getByIds_MoreIdsThanFitInOneQuery_QueryInChunks() {
+        List<Long> ids = LongStream.rangeClosed(1, 501).boxed().toList();
+
+        when(bankAccountRepository.findAllById(ids.subList(0, 500))).thenReturn(List.of(existingBankAccount));
+        when(bankAccountRepository.findAllById(List.of(501L))).thenReturn(List.of(new BankAccount(501L, "5-1234", 500.00)));
+
+        Map<Long, BankAccount> bankAccounts = bankAccountService.getByIds(ids);
+
+        assertEquals(List.of(1L, 501L), List.copyOf(bankAccounts.keySet()));
+    }
+
+    private BankAccountBalance previous(Double balance) {
+        return new BankAccountBalance() {
+            @Override
+            public Long getId() {
+                return 1L;
+            }
+
+            @Override
+            public String getNumber() {
+                return "1-1234";
+            }
+
+            @Override
+            public Double getBalance() {
+                return balance;
+            }
+
+            @Override
+            public Long getVersion() {
+                return 0L;
+            }
+        };
+    }
 }
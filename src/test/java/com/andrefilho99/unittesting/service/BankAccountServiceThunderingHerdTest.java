@@ -0,0 +1,73 @@
+package com.andrefilho99.unittesting.service;
+
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.repository.BankAccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:herd", "bank-account.cache.enabled=false"})
+public class BankAccountServiceThunderingHerdTest {
+
+    private static final int CLIENTS = 50;
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    @SpyBean
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void getById_ManyClientsReadSameAccountWithoutCache_RunOneQuery() throws Exception {
+        Long id = bankAccountService.create(new BankAccount(null, "7-1234", 1000.00)).getId();
+        CountDownLatch start = new CountDownLatch(1);
+        Answer<?> delegateToRepository = mockingDetails(bankAccountRepository).getMockCreationSettings().getDefaultAnswer();
+
+        doAnswer(invocation -> {
+            Thread.sleep(300);
+            return delegateToRepository.answer(invocation);
+        }).when(bankAccountRepository).findById(anyLong());
+
+        double statementsBefore = meterRegistry.get("bank.account.sql.statements").counter().count();
+        List<Future<BankAccount>> reads = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CLIENTS; i++) {
+                reads.add(executor.submit(() -> {
+                    start.await();
+                    return bankAccountService.getById(id);
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<BankAccount> read : reads) {
+                assertEquals("7-1234", read.get(10, TimeUnit.SECONDS).getNumber());
+            }
+        }
+
+        verify(bankAccountRepository, times(1)).findById(id);
+        assertEquals(1.0, meterRegistry.get("bank.account.sql.statements").counter().count() - statementsBefore);
+    }
+}
@@ -0,0 +1,190 @@
+package com.andrefilho99.unittesting.service;
+
+import com.andrefilho99.unittesting.configuration.AppConfig;
+import com.andrefilho99.unittesting.domain.BankAccount;
+import com.andrefilho99.unittesting.repository.BankAccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import({AppConfig.class, BankAccountService.class})
+@TestPropertySource(properties = {
+        "bank-account.write-behind.enabled=true",
+        "bank-account.write-behind.max-pending=2",
+        "bank-account.write-behind.flush-interval=1h"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BankAccountWriteBehindQueueTest {
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private BankAccountWriteBehindQueue bankAccountWriteBehindQueue;
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BankAccount bankAccount;
+
+    @BeforeEach
+    public void before() {
+        bankAccountRepository.deleteAll();
+        bankAccount = bankAccountService.create(new BankAccount(null, "1-1234", 1000.00));
+    }
+
+    @Test
+    public void update_ManyBalanceUpdatesOfSameAccount_ServeFromViewAndWriteOnceOnFlush() {
+        for (int i = 1; i <= 100; i++) {
+            bankAccountService.update(bankAccount.getId(), new BankAccount(null, "1-1234", (double) i));
+        }
+
+        BankAccount view = bankAccountService.getById(bankAccount.getId());
+
+        assertEquals(100.00, view.getBalance());
+        assertEquals(100L, view.getVersion());
+        assertEquals(100.00, bankAccountService.getAll().get(0).getBalance());
+        assertEquals(1000.00, stored().getBalance());
+        assertEquals(1, bankAccountWriteBehindQueue.pending());
+        assertEquals(99, bankAccountWriteBehindQueue.coalesced());
+
+        bankAccountWriteBehindQueue.flush();
+
+        assertEquals(100.00, stored().getBalance());
+        assertEquals(100L, stored().getVersion());
+        assertEquals(0, bankAccountWriteBehindQueue.pending());
+        assertEquals(100.00, bankAccountService.getById(bankAccount.getId()).getBalance());
+    }
+
+    @Test
+    public void getByBalance_PendingBalanceMovedAccountWithinAndOutOfRange_FilterAndOrderByView() {
+        BankAccount second = bankAccountService.create(new BankAccount(null, "2-1234", 2000.00));
+        BankAccount third = bankAccountService.create(new BankAccount(null, "3-1234", 3000.00));
+        BankAccount fourth = bankAccountService.create(new BankAccount(null, "4-1234", 4000.00));
+        bankAccountService.update(second.getId(), new BankAccount(null, "2-1234", 5000.00));
+
+        List<BankAccount> highest = bankAccountService.getByBalance(1500.00, 6000.00, true, 2);
+        List<BankAccount> lowest = bankAccountService.getByBalance(1500.00, 4500.00, false, 2);
+
+        assertEquals(1, bankAccountWriteBehindQueue.pending());
+        assertEquals(List.of(second.getId(), fourth.getId()), highest.stream().map(BankAccount::getId).toList());
+        assertEquals(5000.00, highest.get(0).getBalance());
+        assertEquals(List.of(third.getId(), fourth.getId()), lowest.stream().map(BankAccount::getId).toList());
+    }
+
+    @Test
+    public void credit_PendingUpdateOfSameAccount_WritePendingUpdateFirst() {
+        bankAccountService.update(bankAccount.getId(), new BankAccount(null, "1-1234", 500.00));
+
+        BankAccount credited = bankAccountService.credit(bankAccount.getId(), 100.00);
+
+        assertEquals(600.00, credited.getBalance());
+        assertEquals(600.00, stored().getBalance());
+        assertEquals(0, bankAccountWriteBehindQueue.pending());
+    }
+
+    @Test
+    public void update_NumberChanged_WriteImmediately() {
+        bankAccountService.update(bankAccount.getId(), new BankAccount(null, "2-1234", 500.00));
+
+        assertEquals("2-1234", stored().getNumber());
+        assertEquals(500.00, stored().getBalance());
+        assertEquals(0, bankAccountWriteBehindQueue.pending());
+    }
+
+    @Test
+    public void update_StoredAccountWithoutNumber_DeferUpdate() {
+        BankAccount withoutNumber = bankAccountService.create(new BankAccount(null, null, 2000.00));
+
+        BankAccount updated = bankAccountService.update(withoutNumber.getId(), new BankAccount(null, null, 500.00));
+
+        assertEquals(500.00, updated.getBalance());
+        assertEquals(1, bankAccountWriteBehindQueue.pending());
+    }
+
+    @Test
+    public void update_DirectWriteOpenOnSameStripe_DeferOtherAccountAndWriteLockedOneDirectly() throws Exception {
+        BankAccount sameStripe = null;
+
+        for (int i = 1; i <= 16; i++) {
+            sameStripe = bankAccountService.create(new BankAccount(null, "2-" + i, 2000.00));
+        }
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> directWrite = CompletableFuture.runAsync(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bankAccountWriteBehindQueue.lock(bankAccount.getId());
+            locked.countDown();
+
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+        bankAccountService.update(sameStripe.getId(), new BankAccount(null, sameStripe.getNumber(), 600.00));
+        bankAccountService.update(bankAccount.getId(), new BankAccount(null, "1-1234", 500.00));
+
+        assertEquals(1, bankAccountWriteBehindQueue.pending());
+        assertEquals(500.00, stored().getBalance());
+
+        release.countDown();
+        directWrite.get(10, TimeUnit.SECONDS);
+        bankAccountService.update(bankAccount.getId(), new BankAccount(null, "1-1234", 400.00));
+
+        assertEquals(2, bankAccountWriteBehindQueue.flushed());
+        assertEquals(400.00, stored().getBalance());
+    }
+
+    @Test
+    public void update_MaxPendingAccountsReached_FlushOnCallingThread() {
+        BankAccount other = bankAccountService.create(new BankAccount(null, "2-1234", 2000.00));
+
+        bankAccountService.update(bankAccount.getId(), new BankAccount(null, "1-1234", 500.00));
+
+        assertEquals(1, bankAccountWriteBehindQueue.pending());
+
+        bankAccountService.update(other.getId(), new BankAccount(null, "2-1234", 600.00));
+
+        assertEquals(0, bankAccountWriteBehindQueue.pending());
+        assertEquals(500.00, stored().getBalance());
+        assertEquals(600.00, bankAccountRepository.findById(other.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    public void close_PendingUpdates_FlushBeforeShutdown() {
+        bankAccountService.update(bankAccount.getId(), new BankAccount(null, "1-1234", 500.00));
+
+        bankAccountWriteBehindQueue.close();
+
+        assertEquals(500.00, stored().getBalance());
+    }
+
+    private BankAccount stored() {
+        return bankAccountRepository.findById(bankAccount.getId()).orElseThrow();
+    }
+}
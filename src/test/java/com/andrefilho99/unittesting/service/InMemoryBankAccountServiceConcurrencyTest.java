@@ -0,0 +1,7 @@
+package com.andrefilho99.unittesting.service;
+
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("in-memory")
+public class InMemoryBankAccountServiceConcurrencyTest extends BankAccountServiceConcurrencyTest {
+}